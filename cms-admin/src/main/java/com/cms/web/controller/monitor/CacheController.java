@@ -1,9 +1,14 @@
 package com.cms.web.controller.monitor;
 
+import com.alibaba.fastjson2.JSON;
 import com.cms.common.constant.CacheConstants;
 import com.cms.common.core.domain.AjaxResult;
+import com.cms.common.core.domain.model.LoginUser;
 import com.cms.common.utils.StringUtils;
+import com.cms.common.utils.http.UserAgentUtils;
 import com.cms.common.core.domain.entity.SysCache;
+import com.cms.framework.interceptor.impl.SameUrlDataInterceptor;
+import com.cms.framework.web.service.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -25,6 +30,12 @@ public class CacheController
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private SameUrlDataInterceptor sameUrlDataInterceptor;
+
     // 缓存信息列表
     private final static List<SysCache> caches = new ArrayList<SysCache>();
     {
@@ -62,6 +73,22 @@ public class CacheController
         return AjaxResult.success(result);
     }
 
+    // 获取User-Agent解析缓存命中统计
+    @PreAuthorize("@ss.hasPermi('monitor:cache:list')")
+    @GetMapping("/userAgent")
+    public AjaxResult userAgentMetrics()
+    {
+        return AjaxResult.success(UserAgentUtils.getMetrics());
+    }
+
+    // 获取防重提交判断统计（次数与耗时）
+    @PreAuthorize("@ss.hasPermi('monitor:cache:list')")
+    @GetMapping("/repeatSubmit")
+    public AjaxResult repeatSubmitMetrics()
+    {
+        return AjaxResult.success(sameUrlDataInterceptor.getMetrics());
+    }
+
     // 获取缓存名称列表
     @PreAuthorize("@ss.hasPermi('monitor:cache:list')")
     @GetMapping("/getNames")
@@ -84,7 +111,17 @@ public class CacheController
     @GetMapping("/getValue/{cacheName}/{cacheKey}")
     public AjaxResult getCacheValue(@PathVariable String cacheName, @PathVariable String cacheKey)
     {
-        String cacheValue = redisTemplate.opsForValue().get(cacheKey);
+        String cacheValue;
+        if (cacheKey.startsWith(CacheConstants.LOGIN_TOKEN_KEY))
+        {
+            // 用户信息以二进制格式保存，解码后展示
+            LoginUser loginUser = tokenService.getLoginUserByUuid(cacheKey.substring(CacheConstants.LOGIN_TOKEN_KEY.length()));
+            cacheValue = loginUser == null ? null : JSON.toJSONString(loginUser);
+        }
+        else
+        {
+            cacheValue = redisTemplate.opsForValue().get(cacheKey);
+        }
         SysCache sysCache = new SysCache(cacheName, cacheKey, cacheValue);
         return AjaxResult.success(sysCache);
     }
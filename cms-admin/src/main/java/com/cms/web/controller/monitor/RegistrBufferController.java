@@ -0,0 +1,49 @@
+package com.cms.web.controller.monitor;
+
+import com.cms.RabbitMQ.MQRegistrConsumerHelper;
+import com.cms.common.constant.MqConstants;
+import com.cms.common.core.domain.AjaxResult;
+import com.cms.system.service.ISysRegistrService;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 报名缓冲写入监控表现层：
+ * 用于查询缓冲写入模式的吞吐量、排队延迟与队列积压
+ * @author quoteZZZ
+ */
+@RestController
+@RequestMapping("/monitor/registrBuffer")
+public class RegistrBufferController
+{
+    @Autowired
+    private MQRegistrConsumerHelper registrConsumerHelper;
+
+    @Autowired
+    private ISysRegistrService sysRegistrService;
+
+    @Autowired
+    private AmqpAdmin amqpAdmin;
+
+    // 获取缓冲写入统计
+    @PreAuthorize("@ss.hasPermi('monitor:registr:list')")
+    @GetMapping()
+    public AjaxResult getInfo()
+    {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("buffered", sysRegistrService.isRegistrBuffered());
+        Properties queue = amqpAdmin.getQueueProperties(MqConstants.REGISTR_QUEUE);
+        result.put("queueDepth", queue == null ? null : queue.get(RabbitAdmin.QUEUE_MESSAGE_COUNT));
+        result.putAll(registrConsumerHelper.getMetrics());
+        return AjaxResult.success(result);
+    }
+}
@@ -6,6 +6,7 @@ import com.cms.common.core.domain.AjaxResult;
 import com.cms.common.core.page.TableDataInfo;
 import com.cms.common.enums.BusinessType;
 import com.cms.common.utils.excel.ExcelUtil;
+import com.cms.framework.manager.LoginLogWriter;
 import com.cms.framework.web.service.SysPasswordService;
 import com.cms.common.core.domain.entity.SysLogininfor;
 import com.cms.system.service.ISysLogininforService;
@@ -33,6 +34,18 @@ public class SysLogininforController extends BaseController
     @Autowired
     private SysPasswordService passwordService;
 
+    // 登录日志写入器
+    @Autowired
+    private LoginLogWriter loginLogWriter;
+
+    // 获取登录日志写入统计（队列深度、合并的失败次数等）
+    @PreAuthorize("@ss.hasPermi('monitor:logininfor:list')")
+    @GetMapping("/writer")
+    public AjaxResult writer()
+    {
+        return AjaxResult.success(loginLogWriter.getMetrics());
+    }
+
     // 登录日志列表
     @PreAuthorize("@ss.hasPermi('monitor:logininfor:list')")
     @GetMapping("/list")
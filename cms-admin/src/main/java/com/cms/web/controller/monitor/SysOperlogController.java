@@ -7,6 +7,7 @@ import com.cms.common.core.page.TableDataInfo;
 import com.cms.common.enums.BusinessType;
 import com.cms.common.utils.excel.ExcelUtil;
 import com.cms.common.core.domain.entity.SysOperLog;
+import com.cms.framework.manager.OperLogPipeline;
 import com.cms.system.service.ISysOperLogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -28,6 +29,17 @@ public class SysOperlogController extends BaseController
     @Autowired
     private ISysOperLogService operLogService;
 
+    @Autowired
+    private OperLogPipeline operLogPipeline;
+
+    // 获取操作日志写入管道统计（队列深度、丢弃数等）
+    @PreAuthorize("@ss.hasPermi('monitor:operlog:list')")
+    @GetMapping("/pipeline")
+    public AjaxResult pipeline()
+    {
+        return AjaxResult.success(operLogPipeline.getMetrics());
+    }
+
     // 获取操作日志记录列表
     @PreAuthorize("@ss.hasPermi('monitor:operlog:list')")
     @GetMapping("/list")
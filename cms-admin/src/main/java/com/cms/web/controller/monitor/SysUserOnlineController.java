@@ -1,25 +1,19 @@
 package com.cms.web.controller.monitor;
 
 import com.cms.common.annotation.Log;
-import com.cms.common.constant.CacheConstants;
+import com.cms.common.constant.HttpStatus;
 import com.cms.common.core.controller.BaseController;
 import com.cms.common.core.domain.AjaxResult;
-import com.cms.common.core.domain.model.LoginUser;
+import com.cms.common.core.page.PageDomain;
 import com.cms.common.core.page.TableDataInfo;
-import com.cms.common.core.redis.RedisCache;
+import com.cms.common.core.page.TableSupport;
 import com.cms.common.enums.BusinessType;
-import com.cms.common.utils.StringUtils;
-import com.cms.common.core.domain.entity.SysUserOnline;
-import com.cms.system.service.ISysUserOnlineService;
+import com.cms.framework.web.service.OnlineSessionRegistry;
+import com.cms.framework.web.service.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
-
 /**
  * 在线用户监控表现层 ：
  * 用于监控在线用户
@@ -30,40 +24,25 @@ import java.util.List;
 public class SysUserOnlineController extends BaseController
 {
     @Autowired
-    private ISysUserOnlineService userOnlineService;
+    private OnlineSessionRegistry onlineSessionRegistry;
 
     @Autowired
-    private RedisCache redisCache;
+    private TokenService tokenService;
 
+    /**
+     * 查询在线用户
+     * 从在线会话索引分页读取，按最近活动时间倒序，登录地址与用户名为精确匹配
+     */
     @PreAuthorize("@ss.hasPermi('monitor:online:list')")
     @GetMapping("/list")
     public TableDataInfo list(String ipaddr, String userName)
     {
-        Collection<String> keys = redisCache.keys(CacheConstants.LOGIN_TOKEN_KEY + "*");
-        List<SysUserOnline> userOnlineList = new ArrayList<SysUserOnline>();
-        for (String key : keys)
-        {
-            LoginUser user = redisCache.getCacheObject(key);
-            if (StringUtils.isNotEmpty(ipaddr) && StringUtils.isNotEmpty(userName))
-            {
-                userOnlineList.add(userOnlineService.selectOnlineByInfo(ipaddr, userName, user));
-            }
-            else if (StringUtils.isNotEmpty(ipaddr))
-            {
-                userOnlineList.add(userOnlineService.selectOnlineByIpaddr(ipaddr, user));
-            }
-            else if (StringUtils.isNotEmpty(userName) && StringUtils.isNotNull(user.getUser()))
-            {
-                userOnlineList.add(userOnlineService.selectOnlineByUserName(userName, user));
-            }
-            else
-            {
-                userOnlineList.add(userOnlineService.loginUserToUserOnline(user));
-            }
-        }
-        Collections.reverse(userOnlineList);
-        userOnlineList.removeAll(Collections.singleton(null));
-        return getDataTable(userOnlineList);
+        PageDomain pageDomain = TableSupport.buildPageRequest();
+        TableDataInfo rspData = onlineSessionRegistry.selectPage(ipaddr, userName,
+                pageDomain.getPageNum(), pageDomain.getPageSize());
+        rspData.setCode(HttpStatus.SUCCESS);
+        rspData.setMsg("查询成功");
+        return rspData;
     }
 
     /**
@@ -74,7 +53,7 @@ public class SysUserOnlineController extends BaseController
     @DeleteMapping("/{tokenId}")
     public AjaxResult forceLogout(@PathVariable String tokenId)
     {
-        redisCache.deleteObject(CacheConstants.LOGIN_TOKEN_KEY + tokenId);
+        tokenService.delLoginUser(tokenId);
         return success();
     }
 }
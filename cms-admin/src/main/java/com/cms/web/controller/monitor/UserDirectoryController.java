@@ -0,0 +1,30 @@
+package com.cms.web.controller.monitor;
+
+import com.cms.common.core.domain.AjaxResult;
+import com.cms.system.service.ISysUserDirectoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 用户目录缓存监控表现层：
+ * 用于查询用户目录缓存的本地命中、Redis命中与回源次数
+ * @author quoteZZZ
+ */
+@RestController
+@RequestMapping("/monitor/userDirectory")
+public class UserDirectoryController
+{
+    @Autowired
+    private ISysUserDirectoryService userDirectoryService;
+
+    // 获取缓存命中统计
+    @PreAuthorize("@ss.hasPermi('monitor:cache:list')")
+    @GetMapping()
+    public AjaxResult getInfo()
+    {
+        return AjaxResult.success(userDirectoryService.getMetrics());
+    }
+}
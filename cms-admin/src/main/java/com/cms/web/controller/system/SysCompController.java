@@ -14,8 +14,10 @@ import com.cms.common.core.domain.entity.SysComp;
 import com.cms.common.core.domain.entity.SysUserComp;
 import com.cms.system.mapper.SysUserMapper;
 import com.cms.system.service.ISysCompService;
+import com.cms.system.service.ISysCompStatsService;
 import com.cms.system.service.ISysDeptService;
 import com.cms.system.service.ISysRoleService;
+import com.cms.system.service.ISysUserCompIndexService;
 import com.cms.system.service.ISysUserService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -28,7 +30,10 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -63,6 +68,12 @@ public class SysCompController extends BaseController {
     @Autowired
     private ISysDeptService deptService;
 
+    @Autowired
+    private ISysCompStatsService compStatsService;
+
+    @Autowired
+    private ISysUserCompIndexService userCompIndexService;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
 
@@ -96,6 +107,8 @@ public TableDataInfo list(
                 .collect(Collectors.toList());
     }
 
+    // 填充竞赛计数（读取计数服务，不影响竞赛实体缓存）
+    compStatsService.fillCompStats(list);
     return getDataTable(list);
 }
 
@@ -141,7 +154,11 @@ public void export(
 public R<SysComp> getInfo(
         @ApiParam(value = "竞赛信息主键", required = true)
         @PathVariable("compId") Long compId) {
-    return R.ok(sysCompService.selectSysCompByCompId(compId));
+    SysComp sysComp = sysCompService.selectSysCompByCompId(compId);
+    if (sysComp != null) {
+        sysComp.setStats(compStatsService.selectCompStats(compId));
+    }
+    return R.ok(sysComp);
 }
 
 
@@ -278,6 +295,25 @@ public R<SysComp> getInfo(
         }
     }
 
+    /**
+     * 查询多个竞赛共同的评委（由成员索引求交集）
+     */
+    @ApiOperation("查询多个竞赛共同的评委")
+    @PreAuthorize("@ss.hasPermi('system:comp:list')")
+    @GetMapping("/AuthJudge/shared")
+    public AjaxResult sharedJudges(
+            @ApiParam(value = "竞赛ID列表", required = true)
+            @RequestParam List<Long> compIds) {
+        if (compIds == null || compIds.size() < 2) {
+            return error("至少需要两个竞赛ID");
+        }
+        Set<Long> userIds = userCompIndexService.selectSharedUserIds(compIds);
+        Map<String, Object> data = new HashMap<>();
+        data.put("userIds", userIds);
+        data.put("count", userIds.size());
+        return success(data);
+    }
+
     /**
      * 查询未分配用户竞赛列表
      */
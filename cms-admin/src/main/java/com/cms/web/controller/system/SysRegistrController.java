@@ -19,10 +19,12 @@ import com.cms.common.core.domain.entity.SysUser;
 import com.cms.common.core.domain.entity.SysComp;
 import com.cms.system.service.ISysRegistrService;
 import com.cms.system.service.ISysCompService;
+import com.cms.system.service.ISysRegistrAdmissionService;
 import com.cms.common.utils.excel.ExcelUtil;
 import com.cms.common.utils.file.FileUploadUtils;
 import com.cms.common.config.CmsConfig;
 import com.cms.framework.web.service.TokenService;
+import com.cms.common.utils.SecurityUtils;
 import com.cms.common.utils.ServletUtils;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -52,6 +54,9 @@ public class SysRegistrController extends BaseController {
     @Autowired
     private TokenService tokenService;
 
+    @Autowired
+    private ISysRegistrAdmissionService admissionService;
+
     private static final Logger log = LoggerFactory.getLogger(SysRegistrController.class);
 
     /**
@@ -109,6 +114,34 @@ public class SysRegistrController extends BaseController {
         return R.ok(sysRegistrService.insertSysRegistr(sysRegistr));
     }
 
+    /**
+     * 提交报名（缓冲写入模式下入队后立即返回）
+     */
+    @ApiOperation("提交报名")
+    @PreAuthorize("@ss.hasPermi('system:registr:add')")
+    @Log(title = "报名信息", businessType = BusinessType.INSERT)
+    @PostMapping("/submit")
+    public R<Map<String, Object>> submit(
+            @ApiParam(value = "提交报名信息数据", required = true)
+            @RequestBody SysRegistr sysRegistr) {
+        sysRegistr.setCreateBy(getUsername());
+        return R.ok(sysRegistrService.submitSysRegistr(sysRegistr));
+    }
+
+    /**
+     * 查询提交报名的处理状态，普通用户只能查询本人的报名，管理员与有修改权限的用户可查询全部
+     */
+    @ApiOperation("查询提交报名的处理状态")
+    @PreAuthorize("@ss.hasPermi('system:registr:add')")
+    @GetMapping("/submit/{registrId}")
+    public R<Map<String, Object>> submitStatus(
+            @ApiParam(value = "报名ID", required = true)
+            @PathVariable("registrId") Long registrId) {
+        Long userId = getUserId();
+        boolean manager = SecurityUtils.isAdmin(userId) || SecurityUtils.hasPermi("system:registr:edit");
+        return R.ok(sysRegistrService.selectSubmitStatus(registrId, manager ? null : userId));
+    }
+
     /**
      * 修改报名信息
      */
@@ -170,5 +203,46 @@ public class SysRegistrController extends BaseController {
         return R.ok(sysRegistrService.deleteSysRegistrByRegistrIds(registrIds));
     }
 
+    /**
+     * 开放竞赛报名（启用准入控制）
+     */
+    @ApiOperation("开放竞赛报名")
+    @PreAuthorize("@ss.hasPermi('system:registr:edit')")
+    @Log(title = "报名准入", businessType = BusinessType.UPDATE)
+    @PostMapping("/admission/{compId}")
+    public R<Integer> openAdmission(
+            @ApiParam(value = "竞赛ID", required = true)
+            @PathVariable("compId") Long compId,
+            @ApiParam(value = "报名名额上限，0表示不限")
+            @RequestParam(value = "quota", defaultValue = "0") int quota) {
+        return R.ok(admissionService.openAdmission(compId, quota));
+    }
+
+    /**
+     * 关闭竞赛报名
+     */
+    @ApiOperation("关闭竞赛报名")
+    @PreAuthorize("@ss.hasPermi('system:registr:edit')")
+    @Log(title = "报名准入", businessType = BusinessType.UPDATE)
+    @DeleteMapping("/admission/{compId}")
+    public R<String> closeAdmission(
+            @ApiParam(value = "竞赛ID", required = true)
+            @PathVariable("compId") Long compId) {
+        admissionService.closeAdmission(compId);
+        return R.ok("报名已关闭");
+    }
+
+    /**
+     * 查询竞赛报名准入状态
+     */
+    @ApiOperation("查询竞赛报名准入状态")
+    @PreAuthorize("@ss.hasPermi('system:registr:query')")
+    @GetMapping("/admission/{compId}")
+    public R<Map<String, Object>> admissionStatus(
+            @ApiParam(value = "竞赛ID", required = true)
+            @PathVariable("compId") Long compId) {
+        return R.ok(admissionService.getAdmissionStatus(compId));
+    }
+
 
 }
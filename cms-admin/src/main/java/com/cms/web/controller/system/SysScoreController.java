@@ -22,6 +22,7 @@ import com.cms.common.enums.BusinessType;
 import com.cms.common.core.domain.entity.SysScore;
 import com.cms.common.core.domain.entity.SysUser;
 import com.cms.common.core.domain.entity.SysRegistr;
+import com.cms.system.service.ISysJudgeQueueService;
 import com.cms.system.service.ISysScoreService;
 import com.cms.system.service.ISysRegistrService;
 import com.cms.common.utils.excel.ExcelUtil;
@@ -54,6 +55,9 @@ public class SysScoreController extends BaseController {
     @Autowired
     private TokenService tokenService;
 
+    @Autowired
+    private ISysJudgeQueueService judgeQueueService;
+
     private static final Logger log = LoggerFactory.getLogger(SysScoreController.class);
 
     /**
@@ -135,6 +139,47 @@ public class SysScoreController extends BaseController {
         return R.ok(sysScoreService.deleteSysScoreByScoreIds(scoreIds));
     }
 
+    /**
+     * 初始化竞赛评审工作队列
+     */
+    @ApiOperation("初始化竞赛评审工作队列")
+    @PreAuthorize("@ss.hasPermi('system:score:edit')")
+    @Log(title = "评审工作队列", businessType = BusinessType.OTHER)
+    @PostMapping("/queue/{compId}")
+    public R<Integer> seedQueue(
+            @ApiParam(value = "竞赛ID", required = true)
+            @PathVariable("compId") Long compId,
+            @ApiParam(value = "每条报名需要的评分次数")
+            @RequestParam(value = "requiredScores", defaultValue = "1") int requiredScores) {
+        return R.ok(judgeQueueService.seedQueue(compId, requiredScores));
+    }
+
+    /**
+     * 评委领取待评报名
+     */
+    @ApiOperation("评委领取待评报名")
+    @PreAuthorize("@ss.hasPermi('system:score:add')")
+    @PostMapping("/queue/{compId}/claim")
+    public R<List<Long>> claimQueue(
+            @ApiParam(value = "竞赛ID", required = true)
+            @PathVariable("compId") Long compId,
+            @ApiParam(value = "领取数量")
+            @RequestParam(value = "count", defaultValue = "10") int count) {
+        return R.ok(judgeQueueService.claim(compId, getUserId(), count));
+    }
+
+    /**
+     * 查询评审工作队列状态
+     */
+    @ApiOperation("查询评审工作队列状态")
+    @PreAuthorize("@ss.hasPermi('system:score:list')")
+    @GetMapping("/queue/{compId}/status")
+    public R<Map<String, Object>> queueStatus(
+            @ApiParam(value = "竞赛ID", required = true)
+            @PathVariable("compId") Long compId) {
+        return R.ok(judgeQueueService.getQueueStatus(compId));
+    }
+
 
 
 }
@@ -14,6 +14,7 @@ import com.cms.common.utils.excel.ExcelUtil;
 import com.cms.system.service.ISysDeptService;
 import com.cms.system.service.ISysPostService;
 import com.cms.system.service.ISysRoleService;
+import com.cms.system.service.ISysUserImportService;
 import com.cms.system.service.ISysUserService;
 import org.apache.commons.lang3.ArrayUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +25,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletResponse;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -47,6 +49,9 @@ public class SysUserController extends BaseController
     @Autowired
     private ISysPostService postService;
 
+    @Autowired
+    private ISysUserImportService userImportService;
+
     /**
      * 获取用户列表
      */
@@ -74,11 +79,23 @@ public class SysUserController extends BaseController
     @PostMapping("/importData")
     public AjaxResult importData(MultipartFile file, boolean updateSupport) throws Exception
     {
-        ExcelUtil<SysUser> util = new ExcelUtil<SysUser>(SysUser.class);
-        List<SysUser> userList = util.importExcel(file.getInputStream());
-        String operName = getUsername();
-        String message = userService.importUser(userList, updateSupport, operName);
-        return success(message);
+        // 文件内容在请求线程内读取，导入在后台分批执行，通过任务ID查询进度
+        String taskId = userImportService.submitImport(file.getBytes(), updateSupport, getUsername());
+        AjaxResult ajax = AjaxResult.success("导入任务已提交");
+        ajax.put("taskId", taskId);
+        return ajax;
+    }
+
+    @PreAuthorize("@ss.hasPermi('system:user:import')")
+    @GetMapping("/importData/{taskId}")
+    public AjaxResult importProgress(@PathVariable String taskId)
+    {
+        Map<String, Object> progress = userImportService.selectImportProgress(taskId);
+        if (progress.isEmpty())
+        {
+            return error("导入任务不存在或已过期");
+        }
+        return success(progress);
     }
 
     @PostMapping("/importTemplate")
@@ -6,6 +6,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import com.cms.common.constant.CacheConstants;
+import com.cms.common.enums.LimitAlgorithm;
 import com.cms.common.enums.LimitType;
 
 /**
@@ -37,4 +38,14 @@ public @interface RateLimiter
      * 限流类型
      */
     public LimitType limitType() default LimitType.DEFAULT;
+
+    /**
+     * 限流算法
+     */
+    public LimitAlgorithm algorithm() default LimitAlgorithm.FIXED_WINDOW;
+
+    /**
+     * 令牌桶算法下每次向Redis租用的令牌数，0表示取限流次数的十分之一
+     */
+    public int lease() default 0;
 }
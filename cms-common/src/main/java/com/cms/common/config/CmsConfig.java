@@ -30,6 +30,9 @@ public class CmsConfig //改了
     /** 验证码类型 */
     private static String captchaType;
 
+    /** 离线IP地址库文件路径 */
+    private static String addressDbPath;
+
     public String getName()
     {
         return name;
@@ -80,6 +83,16 @@ public class CmsConfig //改了
         CmsConfig.addressEnabled = addressEnabled;
     }
 
+    public static String getAddressDbPath()
+    {
+        return addressDbPath;
+    }
+
+    public void setAddressDbPath(String addressDbPath)
+    {
+        CmsConfig.addressDbPath = addressDbPath;
+    }
+
     public static String getCaptchaType() {
         return captchaType;
     }
@@ -18,6 +18,11 @@ public final class CacheConstants {
      */
     public static final String LOGIN_TOKEN_KEY = "login_tokens:";
 
+    /**
+     * 登录会话状态 redis key（哈希：lastSeen 最近访问时间，expireAt 过期时间），续期只改写此键
+     */
+    public static final String LOGIN_SESSION_KEY = "login_session:";
+
     /**
      * 验证码 redis key
      */
@@ -124,6 +129,56 @@ public final class CacheConstants {
     public static final int LOCK_TIMEOUT = 10;
 
     public static final String USER_JUDGE_KEY = "user_judge:";
-}
 
+    /**
+     * 评审工作队列 key 前缀
+     * 按竞赛划分：待评队列、租约、已评记录、队列元数据
+     */
+    public static final String JUDGE_QUEUE_KEY = "judge_queue:";
+
+    /**
+     * 报名准入控制 key 前缀
+     * 按竞赛划分：已报名用户集合、剩余名额、报名开关
+     */
+    public static final String REGISTR_ADMISSION_KEY = "registr_admission:";
+
+    /**
+     * 缓冲报名处理状态 key 前缀
+     */
+    public static final String REGISTR_STATUS_KEY = "registr_status:";
+
+    /**
+     * 竞赛统计计数 key 前缀
+     * comp_stats:{compId} 为计数哈希，comp_stats:dirty 为待落库的竞赛集合，comp_stats:access 为访问频率增量
+     * comp_stats:ver:{compId} 为计数变更版本，comp_stats:pending:{compId} 为未结束事务中的计数变更数
+     */
+    public static final String COMP_STATS_KEY = "comp_stats:";
+
+    /**
+     * 用户-竞赛成员索引 key 前缀
+     * user:{userId} 为用户所属竞赛集合，comp:{compId} 为竞赛成员集合
+     */
+    public static final String USER_COMP_INDEX_KEY = "user_comp_idx:";
+
+    /**
+     * 用户导入任务进度 redis key
+     */
+    public static final String USER_IMPORT_KEY = "user_import:";
 
+    /**
+     * 用户目录缓存 key 前缀
+     * id:{userId} 为精简用户信息，name:{userName} 为用户ID索引
+     */
+    public static final String USER_DIRECTORY_KEY = "user_dir:";
+
+    /**
+     * 在线会话索引 key 前缀
+     * index 为按最近续期时间排序的令牌集合，summary 为会话摘要，user:/ip: 为过滤用令牌集合
+     */
+    public static final String ONLINE_SESSION_KEY = "online_sessions:";
+
+    /**
+     * 权限字典 redis key（哈希：epoch 字典代次，size 条目数，p:{权限字符} 为编号，i:{编号} 为权限字符）
+     */
+    public static final String PERMISSION_DICT_KEY = "perm_dict";
+}
@@ -31,4 +31,18 @@ public class MqConstants {
 
     public static final String NOTICE_QUEUE = "notice.queue";
     public static final String NOTICE_DELAY_QUEUE = "notice.delay.queue";
+
+    // 评分事件相关的常量（评分变更后异步重算成绩）
+    public static final String SCORE_EXCHANGE = "score.exchange";
+
+    public static final String SCORE_ROUTING_KEY = "score.registr.scored";
+
+    public static final String SCORE_QUEUE = "score.registr.scored.queue";
+
+    // 报名缓冲写入相关的常量（高峰期报名入队后批量落库）
+    public static final String REGISTR_EXCHANGE = "registr.exchange";
+
+    public static final String REGISTR_ROUTING_KEY = "registr.buffered";
+
+    public static final String REGISTR_QUEUE = "registr.buffered.queue";
 }
\ No newline at end of file
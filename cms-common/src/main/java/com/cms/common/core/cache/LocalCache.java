@@ -0,0 +1,313 @@
+package com.cms.common.core.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 进程内本地缓存
+ * 
+ * 容量有界，按最近最少使用淘汰；每个条目带过期时间，读取时惰性清除过期条目。
+ * 条目按键的哈希分到多个分段，每个分段各自加锁并独立按最近最少使用淘汰，不同键的并发访问不会争用同一把锁；
+ * 因此容量与淘汰顺序在分段内精确、整体近似，容量较小时只有一个分段。
+ * 用作 Redis 之前的一级缓存，只应保存可容忍短暂不一致的数据，跨节点一致性由调用方通过失效通知保证。
+ * 
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author quoteZZZ
+ */
+public class LocalCache<K, V>
+{
+    // 最大分段数
+    private static final int MAX_SEGMENTS = 16;
+
+    // 每个分段至少容纳的条目数，容量较小时减少分段数
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final long ttlMillis;
+
+    private final Segment<K, V>[] segments;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param maxSize 最大条目数
+     * @param ttlMillis 默认存活时间（毫秒）
+     */
+    public LocalCache(int maxSize, long ttlMillis)
+    {
+        if (maxSize <= 0 || ttlMillis <= 0)
+        {
+            throw new IllegalArgumentException("缓存容量与存活时间必须大于0");
+        }
+        this.ttlMillis = ttlMillis;
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, maxSize / MIN_SEGMENT_SIZE)));
+        int segmentSize = (maxSize + count - 1) / count;
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] array = new Segment[count];
+        for (int i = 0; i < count; i++)
+        {
+            array[i] = new Segment<>(segmentSize, evictionCount);
+        }
+        this.segments = array;
+    }
+
+    /**
+     * 获取缓存值
+     * 
+     * @param key 键
+     * @return 值，不存在或已过期时返回 null
+     */
+    public V get(K key)
+    {
+        if (key == null)
+        {
+            return null;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment)
+        {
+            Entry<V> entry = segment.get(key);
+            if (entry != null && entry.expireAt > System.currentTimeMillis())
+            {
+                hitCount.incrementAndGet();
+                return entry.value;
+            }
+            if (entry != null)
+            {
+                segment.remove(key);
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 获取缓存值，不存在或已过期时用 mappingFunction 创建并以默认存活时间写入，整个过程在键所在分段的锁内完成
+     * 并发调用同一个键时只会创建一次，mappingFunction 应当很快完成且不能访问本缓存
+     * 
+     * @param key 键
+     * @param mappingFunction 创建值的函数，返回 null 时不写入
+     * @return 缓存中或新创建的值
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction)
+    {
+        if (key == null)
+        {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment)
+        {
+            Entry<V> entry = segment.get(key);
+            if (entry != null && entry.expireAt > now)
+            {
+                hitCount.incrementAndGet();
+                return entry.value;
+            }
+            missCount.incrementAndGet();
+            V value = mappingFunction.apply(key);
+            if (value == null)
+            {
+                segment.remove(key);
+            }
+            else
+            {
+                segment.put(key, new Entry<>(value, now + ttlMillis));
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 以默认存活时间写入缓存
+     * 
+     * @param key 键
+     * @param value 值，为空时移除
+     */
+    public void put(K key, V value)
+    {
+        put(key, value, ttlMillis);
+    }
+
+    /**
+     * 以指定存活时间写入缓存，不超过默认存活时间
+     * 
+     * @param key 键
+     * @param value 值，为空时移除
+     * @param ttlMillis 存活时间（毫秒）
+     */
+    public void put(K key, V value, long ttlMillis)
+    {
+        if (key == null)
+        {
+            return;
+        }
+        if (value == null || ttlMillis <= 0)
+        {
+            remove(key);
+            return;
+        }
+        long expireAt = System.currentTimeMillis() + Math.min(ttlMillis, this.ttlMillis);
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment)
+        {
+            segment.put(key, new Entry<>(value, expireAt));
+        }
+    }
+
+    /**
+     * 移除缓存
+     * 
+     * @param key 键
+     */
+    public void remove(K key)
+    {
+        if (key == null)
+        {
+            return;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment)
+        {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * 移除满足条件的缓存
+     * 
+     * @param predicate 值的判断条件
+     * @return 移除的条目数
+     */
+    public int removeIf(Predicate<V> predicate)
+    {
+        int removed = 0;
+        for (Segment<K, V> segment : segments)
+        {
+            synchronized (segment)
+            {
+                Iterator<Entry<V>> it = segment.values().iterator();
+                while (it.hasNext())
+                {
+                    if (predicate.test(it.next().value))
+                    {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear()
+    {
+        for (Segment<K, V> segment : segments)
+        {
+            synchronized (segment)
+            {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (Segment<K, V> segment : segments)
+        {
+            synchronized (segment)
+            {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    public long getEvictionCount()
+    {
+        return evictionCount.get();
+    }
+
+    /**
+     * 命中率，无访问时为0
+     */
+    public double getHitRate()
+    {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0D : (double) hits / total;
+    }
+
+    private Segment<K, V> segmentFor(K key)
+    {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return segments[h & (segments.length - 1)];
+    }
+
+    /**
+     * 分段：按访问顺序排列的 LinkedHashMap，超过分段容量时淘汰最久未访问的条目，以自身为锁
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, Entry<V>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private final AtomicLong evictionCount;
+
+        private Segment(int maxSize, AtomicLong evictionCount)
+        {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest)
+        {
+            if (size() > maxSize)
+            {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class Entry<V>
+    {
+        private final V value;
+
+        private final long expireAt;
+
+        private Entry(V value, long expireAt)
+        {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -130,4 +130,10 @@ public class SysComp extends BaseEntity {
     @ApiModelProperty(value = "删除标志：0存在/2删除")
     private Character delFlag;
 
+    /**
+     * 统计计数：报名、审核通过、评分、评委人数（非数据库字段，由计数服务填充）
+     */
+    @ApiModelProperty(value = "统计计数：报名、审核通过、评分、评委人数")
+    private SysCompStats stats;
+
 }
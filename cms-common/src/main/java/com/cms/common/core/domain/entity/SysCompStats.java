@@ -0,0 +1,59 @@
+package com.cms.common.core.domain.entity;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * 竞赛统计计数对象 sys_comp_stats
+ *
+ * @author quoteZZZ
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel(description = "竞赛统计计数对象 sys_comp_stats")
+public class SysCompStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 竞赛编号
+     */
+    @ApiModelProperty(value = "竞赛编号")
+    private Long compId;
+
+    /**
+     * 报名人数
+     */
+    @ApiModelProperty(value = "报名人数")
+    private Long registrCount;
+
+    /**
+     * 审核通过人数
+     */
+    @ApiModelProperty(value = "审核通过人数")
+    private Long approvedCount;
+
+    /**
+     * 评分次数
+     */
+    @ApiModelProperty(value = "评分次数")
+    private Long scoredCount;
+
+    /**
+     * 评委人数
+     */
+    @ApiModelProperty(value = "评委人数")
+    private Long judgeCount;
+
+    /**
+     * 更新时间
+     */
+    @ApiModelProperty(value = "更新时间")
+    private Date updateTime;
+}
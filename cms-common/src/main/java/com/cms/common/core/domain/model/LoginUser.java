@@ -72,6 +72,11 @@ public class LoginUser implements UserDetails
      */
     private SysUser user;
 
+    /**
+     * 编译后的权限匹配数据，由权限服务在首次校验时生成，权限或用户信息变更时清空
+     */
+    private transient Object compiledPermissions;
+
     public LoginUser()
     {
     }
@@ -247,6 +252,7 @@ public class LoginUser implements UserDetails
     public void setPermissions(Set<String> permissions)
     {
         this.permissions = permissions;
+        this.compiledPermissions = null;
     }
 
     public SysUser getUser()
@@ -257,6 +263,19 @@ public class LoginUser implements UserDetails
     public void setUser(SysUser user)
     {
         this.user = user;
+        this.compiledPermissions = null;
+    }
+
+    @JSONField(serialize = false)
+    public Object getCompiledPermissions()
+    {
+        return compiledPermissions;
+    }
+
+    @JSONField(deserialize = false)
+    public void setCompiledPermissions(Object compiledPermissions)
+    {
+        this.compiledPermissions = compiledPermissions;
     }
 
     @Override
@@ -0,0 +1,195 @@
+package com.cms.common.core.loader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 批量加载器
+ * 
+ * 先通过 load/loadMany 收集键，再由 dispatch 对未缓存的键调用一次批量查询（通常是一条 IN 查询），
+ * 结果在加载器生命周期内缓存，重复的键不会再次查询。未查到的键缓存为空值。
+ * 非线程安全，应在单个请求（线程）内使用，见 {@link BatchLoaders}。
+ * 
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author quoteZZZ
+ */
+public class BatchLoader<K, V>
+{
+    /** 默认单次批量查询的键数上限，避免 IN 列表过长 */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+
+    private final int maxBatchSize;
+
+    private final Set<K> pending = new LinkedHashSet<>();
+
+    private final Map<K, V> cache = new HashMap<>();
+
+    /** 批量查询次数 */
+    private int dispatchCount;
+
+    public BatchLoader(Function<Collection<K>, Map<K, V>> batchFunction)
+    {
+        this(batchFunction, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public BatchLoader(Function<Collection<K>, Map<K, V>> batchFunction, int maxBatchSize)
+    {
+        if (batchFunction == null)
+        {
+            throw new IllegalArgumentException("批量查询函数不能为空");
+        }
+        if (maxBatchSize <= 0)
+        {
+            throw new IllegalArgumentException("批量大小必须大于0");
+        }
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * 登记待加载的键
+     * 
+     * @param key 键，为空时忽略
+     * @return 当前加载器
+     */
+    public BatchLoader<K, V> load(K key)
+    {
+        if (key != null && !cache.containsKey(key))
+        {
+            pending.add(key);
+        }
+        return this;
+    }
+
+    /**
+     * 登记多个待加载的键
+     * 
+     * @param keys 键集合
+     * @return 当前加载器
+     */
+    public BatchLoader<K, V> loadMany(Collection<? extends K> keys)
+    {
+        if (keys != null)
+        {
+            for (K key : keys)
+            {
+                load(key);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 对已登记且未缓存的键执行批量查询
+     */
+    public void dispatch()
+    {
+        if (pending.isEmpty())
+        {
+            return;
+        }
+        List<K> keys = new ArrayList<>(pending);
+        pending.clear();
+        for (int from = 0; from < keys.size(); from += maxBatchSize)
+        {
+            List<K> batch = keys.subList(from, Math.min(from + maxBatchSize, keys.size()));
+            Map<K, V> loaded = batchFunction.apply(batch);
+            dispatchCount++;
+            for (K key : batch)
+            {
+                cache.put(key, loaded == null ? null : loaded.get(key));
+            }
+        }
+    }
+
+    /**
+     * 获取键对应的值，存在未执行的登记时先批量查询
+     * 
+     * @param key 键
+     * @return 值，不存在时返回 null
+     */
+    public V get(K key)
+    {
+        if (key == null)
+        {
+            return null;
+        }
+        if (!cache.containsKey(key))
+        {
+            pending.add(key);
+            dispatch();
+        }
+        return cache.get(key);
+    }
+
+    /**
+     * 获取多个键对应的值，未查到的键不出现在结果中
+     * 
+     * @param keys 键集合
+     * @return 键值映射，保持键的顺序
+     */
+    public Map<K, V> getMany(Collection<? extends K> keys)
+    {
+        loadMany(keys);
+        dispatch();
+        Map<K, V> result = new LinkedHashMap<>();
+        if (keys != null)
+        {
+            for (K key : keys)
+            {
+                V value = key == null ? null : cache.get(key);
+                if (value != null)
+                {
+                    result.put(key, value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 预置缓存值，后续加载该键不再查询
+     * 
+     * @param key 键
+     * @param value 值
+     * @return 当前加载器
+     */
+    public BatchLoader<K, V> prime(K key, V value)
+    {
+        if (key != null)
+        {
+            pending.remove(key);
+            cache.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * 清空缓存与待加载的键
+     */
+    public void clear()
+    {
+        pending.clear();
+        cache.clear();
+    }
+
+    /**
+     * 获取批量查询次数
+     * 
+     * @return 批量查询次数
+     */
+    public int getDispatchCount()
+    {
+        return dispatchCount;
+    }
+}
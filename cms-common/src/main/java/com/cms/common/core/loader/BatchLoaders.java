@@ -0,0 +1,45 @@
+package com.cms.common.core.loader;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 请求级批量加载器注册表
+ * 
+ * 同一 HTTP 请求内按名称复用同一个 {@link BatchLoader}，加载器保存在请求属性中，随请求结束释放；
+ * 非请求线程（定时任务、消息消费等）每次返回新的加载器。
+ * 
+ * @author quoteZZZ
+ */
+public class BatchLoaders
+{
+    private static final String ATTRIBUTE_PREFIX = BatchLoaders.class.getName() + ".";
+
+    /**
+     * 获取当前请求中指定名称的加载器，不存在时创建
+     * 
+     * @param name 加载器名称，同一名称在请求内应对应同一种实体
+     * @param batchFunction 批量查询函数
+     * @return 批量加载器
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> BatchLoader<K, V> get(String name, Function<Collection<K>, Map<K, V>> batchFunction)
+    {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null)
+        {
+            return new BatchLoader<>(batchFunction);
+        }
+        String attribute = ATTRIBUTE_PREFIX + name;
+        BatchLoader<K, V> loader = (BatchLoader<K, V>) attributes.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST);
+        if (loader == null)
+        {
+            loader = new BatchLoader<>(batchFunction);
+            attributes.setAttribute(attribute, loader, RequestAttributes.SCOPE_REQUEST);
+        }
+        return loader;
+    }
+}
@@ -0,0 +1,24 @@
+package com.cms.common.enums;
+
+/**
+ * 限流算法
+ *
+ * @author quoteZZZ
+ */
+public enum LimitAlgorithm
+{
+    /**
+     * 固定窗口计数，窗口交界处最多允许两倍流量
+     */
+    FIXED_WINDOW,
+
+    /**
+     * 滑动窗口日志，任意长度为time的区间内不超过count次，每次请求访问一次Redis
+     */
+    SLIDING_WINDOW,
+
+    /**
+     * 令牌桶，Redis保存全局令牌桶，各节点批量租用令牌后在本地扣减，只在本地令牌用完时访问Redis
+     */
+    TOKEN_BUCKET
+}
@@ -0,0 +1,75 @@
+package com.cms.common.filter;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+/**
+ * 读取已缓存请求体的输入流，支持批量读取
+ * 
+ * @author quoteZZZ
+ */
+public class CachedBodyInputStream extends ServletInputStream
+{
+    private final byte[] body;
+
+    private int pos;
+
+    public CachedBodyInputStream(byte[] body)
+    {
+        this.body = body;
+    }
+
+    @Override
+    public int read()
+    {
+        return pos < body.length ? body[pos++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        if (pos >= body.length)
+        {
+            return -1;
+        }
+        int n = Math.min(len, body.length - pos);
+        System.arraycopy(body, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n)
+    {
+        long skipped = Math.max(0, Math.min(n, body.length - pos));
+        pos += (int) skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available()
+    {
+        return body.length - pos;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return pos >= body.length;
+    }
+
+    @Override
+    public boolean isReady()
+    {
+        return true;
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener)
+    {
+    }
+}
@@ -1,14 +1,27 @@
 package com.cms.common.filter;
 
+import com.alibaba.fastjson2.JSONWriter;
 import com.alibaba.fastjson2.filter.SimplePropertyPreFilter;
 
 /**
  * 排除JSON敏感属性
- * 
+ *
+ * 设置了最大长度时，已写出的内容超过该长度后中止序列化，配合 BoundedJson 只生成需要保留的部分。
+ * 配置完成后不再修改，可在多个线程间共享。
+ *
  * @author quoteZZZ
  */
 public class PropertyPreExcludeFilter extends SimplePropertyPreFilter
 {
+    /** 中止序列化的标记异常，不填充堆栈 */
+    public static final RuntimeException LENGTH_EXCEEDED = new RuntimeException("超过最大长度", null, false, false)
+    {
+        private static final long serialVersionUID = 1L;
+    };
+
+    /** 最大长度，0表示不限制 */
+    private int maxLength;
+
     public PropertyPreExcludeFilter()
     {
     }
@@ -21,4 +34,25 @@ public class PropertyPreExcludeFilter extends SimplePropertyPreFilter
         }
         return this;
     }
+
+    public PropertyPreExcludeFilter maxLength(int maxLength)
+    {
+        this.maxLength = maxLength;
+        return this;
+    }
+
+    public int getMaxLength()
+    {
+        return maxLength;
+    }
+
+    @Override
+    public boolean process(JSONWriter writer, Object source, String name)
+    {
+        if (maxLength > 0 && writer.size() > maxLength)
+        {
+            throw LENGTH_EXCEEDED;
+        }
+        return super.process(writer, source, name);
+    }
 }
@@ -1,15 +1,16 @@
 package com.cms.common.filter;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import javax.servlet.ReadListener;
+import java.nio.charset.StandardCharsets;
 import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
-import com.cms.common.utils.http.HttpHelper;
+import org.springframework.util.StreamUtils;
 import com.cms.common.constant.Constants;
 
 /**
@@ -27,50 +28,43 @@ public class RepeatedlyRequestWrapper extends HttpServletRequestWrapper
         request.setCharacterEncoding(Constants.UTF8);
         response.setCharacterEncoding(Constants.UTF8);
 
-        body = HttpHelper.getBodyString(request).getBytes(Constants.UTF8);
+        body = readBody(request);
+    }
+
+    /**
+     * 获取请求体字节，返回内部数组，调用方不得修改
+     */
+    public byte[] getBody()
+    {
+        return body;
     }
 
     @Override
     public BufferedReader getReader() throws IOException
     {
-        return new BufferedReader(new InputStreamReader(getInputStream()));
+        return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
     }
 
     @Override
     public ServletInputStream getInputStream() throws IOException
     {
-        final ByteArrayInputStream bais = new ByteArrayInputStream(body);
-        return new ServletInputStream()
-        {
-            @Override
-            public int read() throws IOException
-            {
-                return bais.read();
-            }
-
-            @Override
-            public int available() throws IOException
-            {
-                return body.length;
-            }
-
-            @Override
-            public boolean isFinished()
-            {
-                return false;
-            }
-
-            @Override
-            public boolean isReady()
-            {
-                return false;
-            }
+        return new CachedBodyInputStream(body);
+    }
 
-            @Override
-            public void setReadListener(ReadListener readListener)
+    /**
+     * 读取请求体：外层有xss过滤包装时直接共用其缓存的请求体，否则读取原始字节
+     */
+    private static byte[] readBody(HttpServletRequest request) throws IOException
+    {
+        ServletRequest current = request;
+        while (current instanceof ServletRequestWrapper)
+        {
+            if (current instanceof XssHttpServletRequestWrapper)
             {
-
+                return ((XssHttpServletRequestWrapper) current).getBody();
             }
-        };
+            current = ((ServletRequestWrapper) current).getRequest();
+        }
+        return StreamUtils.copyToByteArray(request.getInputStream());
     }
 }
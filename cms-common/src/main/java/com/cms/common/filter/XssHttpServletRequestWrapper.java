@@ -1,24 +1,28 @@
 package com.cms.common.filter;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
-import org.apache.commons.io.IOUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
 import com.cms.common.utils.StringUtils;
 import com.cms.common.utils.html.EscapeUtil;
+import com.cms.common.utils.html.JsonXssSanitizer;
 
 /**
  * XSS过滤处理
  * 
+ * JSON请求体经 JsonXssSanitizer 流式过滤字符串值后缓存，多次读取与 RepeatedlyRequestWrapper 共用同一份。
+ * 
  * @author quoteZZZ
  */
 public class XssHttpServletRequestWrapper extends HttpServletRequestWrapper
 {
+    /** 缓存的请求体，首次读取时生成 */
+    private byte[] body;
+
     /**
      * @param request
      */
@@ -49,53 +53,25 @@ public class XssHttpServletRequestWrapper extends HttpServletRequestWrapper
     public ServletInputStream getInputStream() throws IOException
     {
         // 非json类型，直接返回
-        if (!isJsonRequest())
+        if (body == null && !isJsonRequest())
         {
             return super.getInputStream();
         }
+        return new CachedBodyInputStream(getBody());
+    }
 
-        // 为空，直接返回
-        String json = IOUtils.toString(super.getInputStream(), "utf-8");
-        if (StringUtils.isEmpty(json))
+    /**
+     * 获取请求体，JSON请求体中的字符串值经过xss过滤。
+     * 首次调用时读取并缓存，之后返回同一数组（RepeatedlyRequestWrapper 直接共用），调用方不得修改
+     */
+    public byte[] getBody() throws IOException
+    {
+        if (body == null)
         {
-            return super.getInputStream();
+            byte[] raw = StreamUtils.copyToByteArray(super.getInputStream());
+            body = raw.length > 0 && isJsonRequest() ? JsonXssSanitizer.sanitize(raw) : raw;
         }
-
-        // xss过滤
-        json = EscapeUtil.clean(json).trim();
-        byte[] jsonBytes = json.getBytes("utf-8");
-        final ByteArrayInputStream bis = new ByteArrayInputStream(jsonBytes);
-        return new ServletInputStream()
-        {
-            @Override
-            public boolean isFinished()
-            {
-                return true;
-            }
-
-            @Override
-            public boolean isReady()
-            {
-                return true;
-            }
-
-            @Override
-            public int available() throws IOException
-            {
-                return jsonBytes.length;
-            }
-
-            @Override
-            public void setReadListener(ReadListener readListener)
-            {
-            }
-
-            @Override
-            public int read() throws IOException
-            {
-                return bis.read();
-            }
-        };
+        return body;
     }
 
     /**
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.servlet.http.HttpServletResponse;
 
@@ -350,6 +351,61 @@ public class ExcelUtil<T>
      * @return 转换后集合
      */
     public List<T> importExcel(String sheetName, InputStream is, int titleNum) throws Exception
+    {
+        return importExcel(sheetName, is, titleNum, 0, null);
+    }
+
+    /**
+     * 对excel表单默认第一个索引名分批转换，每满 batchSize 行交给处理器，不保留全部行对象
+     * 
+     * @param is 输入流
+     * @param titleNum 标题占用行数
+     * @param batchSize 每批行数
+     * @param handler 批处理器
+     * @return 转换的总行数
+     */
+    public int importExcel(InputStream is, int titleNum, int batchSize, Consumer<List<T>> handler)
+    {
+        if (batchSize <= 0 || handler == null)
+        {
+            throw new IllegalArgumentException("分批导入需要指定批大小与处理器");
+        }
+        int[] total = { 0 };
+        try
+        {
+            importExcel(StringUtils.EMPTY, is, titleNum, batchSize, batch -> {
+                total[0] += batch.size();
+                handler.accept(batch);
+            });
+            return total[0];
+        }
+        catch (RuntimeException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            log.error("导入Excel异常{}", e.getMessage());
+            throw new UtilException(e.getMessage());
+        }
+        finally
+        {
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    /**
+     * 对excel表单指定表格索引名转换成list
+     * 指定批处理器时，每满 batchSize 行交给处理器后清空，返回列表不含已处理的行
+     * 
+     * @param sheetName 表格索引名
+     * @param is 输入流
+     * @param titleNum 标题占用行数
+     * @param batchSize 每批行数，不分批时为0
+     * @param handler 批处理器，不分批时为null
+     * @return 转换后集合
+     */
+    private List<T> importExcel(String sheetName, InputStream is, int titleNum, int batchSize, Consumer<List<T>> handler) throws Exception
     {
         this.type = Type.IMPORT;
         this.wb = WorkbookFactory.create(is);
@@ -520,6 +576,16 @@ public class ExcelUtil<T>
                     }
                 }
                 list.add(entity);
+                if (handler != null && list.size() >= batchSize)
+                {
+                    handler.accept(new ArrayList<T>(list));
+                    list.clear();
+                }
+            }
+            if (handler != null && !list.isEmpty())
+            {
+                handler.accept(new ArrayList<T>(list));
+                list.clear();
             }
         }
         return list;
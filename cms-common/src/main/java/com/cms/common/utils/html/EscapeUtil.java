@@ -58,7 +58,23 @@ public class EscapeUtil
      */
     public static String clean(String content)
     {
-        return new HTMLFilter().filter(content);
+        return HtmlSanitizer.DEFAULT.sanitize(content);
+    }
+
+    /**
+     * 清除已解码文本（如JSON字符串值）中不允许的HTML标签，保留的属性值使用普通双引号。
+     * 不含尖括号的文本不会被修改，直接返回。
+     * 
+     * @param content 文本
+     * @return 清除标签后的文本
+     */
+    public static String cleanText(String content)
+    {
+        if (content == null || (content.indexOf('<') < 0 && content.indexOf('>') < 0))
+        {
+            return content;
+        }
+        return HtmlSanitizer.TEXT.sanitize(content);
     }
 
     /**
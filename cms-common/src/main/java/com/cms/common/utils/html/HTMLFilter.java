@@ -11,7 +11,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * HTML过滤器，用于去除XSS漏洞隐患。
+ * HTML过滤器，用于去除XSS漏洞隐患。EscapeUtil 使用输出一致的 HtmlSanitizer，本类保留供自定义白名单使用。
  *
  * @author quoteZZZ
  */
@@ -96,12 +96,27 @@ public final class HTMLFilter
      * becomes "<b> text </b>"). If set to false, unbalanced angle brackets will be html escaped.
      */
     private final boolean alwaysMakeTags;
+    /**
+     * 属性值引号是否写成 \" ：过滤原始JSON文本时为true，保证JSON格式有效；过滤已解码的文本时为false
+     */
+    private final boolean escapeAttributeQuotes;
 
     /**
      * Default constructor.
      */
     public HTMLFilter()
     {
+        this(true);
+    }
+
+    /**
+     * 使用默认规则构造
+     *
+     * @param escapeAttributeQuotes 属性值引号是否写成 \"
+     */
+    public HTMLFilter(final boolean escapeAttributeQuotes)
+    {
+        this.escapeAttributeQuotes = escapeAttributeQuotes;
         vAllowed = new HashMap<>();
 
         final ArrayList<String> a_atts = new ArrayList<>();
@@ -163,6 +178,7 @@ public final class HTMLFilter
         stripComment = conf.containsKey("stripComment") ? (Boolean) conf.get("stripComment") : true;
         encodeQuotes = conf.containsKey("encodeQuotes") ? (Boolean) conf.get("encodeQuotes") : true;
         alwaysMakeTags = conf.containsKey("alwaysMakeTags") ? (Boolean) conf.get("alwaysMakeTags") : true;
+        escapeAttributeQuotes = conf.containsKey("escapeAttributeQuotes") ? (Boolean) conf.get("escapeAttributeQuotes") : true;
     }
 
     private void reset()
@@ -387,7 +403,8 @@ public final class HTMLFilter
                         {
                             paramValue = processParamProtocol(paramValue);
                         }
-                        params.append(' ').append(paramName).append("=\\\"").append(paramValue).append("\\\"");
+                        final String quote = escapeAttributeQuotes ? "\\\"" : "\"";
+                        params.append(' ').append(paramName).append('=').append(quote).append(paramValue).append(quote);
                     }
                 }
 
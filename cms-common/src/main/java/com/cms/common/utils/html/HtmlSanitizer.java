@@ -0,0 +1,591 @@
+package com.cms.common.utils.html;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTML过滤器（状态机实现），用于去除XSS漏洞隐患。
+ *
+ * 与 HTMLFilter 默认配置的白名单规则和输出一致（包括其对注释、孤立尖括号、属性、协议与实体的处理细节），
+ * 但只从左到右扫描一次输入，用显式状态代替十余次正则替换，不存在回溯，耗时与输入长度成线性关系。
+ * 只有输出中出现空标签时才对输出再做一次空标签清理。
+ * 配置不可变，过滤状态保存在局部变量中，同一实例可在多线程间共享。
+ *
+ * @author quoteZZZ
+ */
+public final class HtmlSanitizer
+{
+    /** 属性引号写成 \" 的实例，用于原始JSON文本，对应 new HTMLFilter() */
+    public static final HtmlSanitizer DEFAULT = new HtmlSanitizer(true);
+
+    /** 属性引号为普通双引号的实例，用于已解码的文本，对应 new HTMLFilter(false) */
+    public static final HtmlSanitizer TEXT = new HtmlSanitizer(false);
+
+    /** 允许的标签及其允许的属性 */
+    private final Map<String, List<String>> vAllowed = new HashMap<>();
+
+    /** 必须自闭合的标签 */
+    private final String[] vSelfClosingTags = { "img" };
+
+    /** 必须成对出现的标签 */
+    private final String[] vNeedClosingTags = { "a", "b", "strong", "i", "em" };
+
+    /** 需要检查协议的属性 */
+    private final String[] vProtocolAtts = { "src", "href" };
+
+    /** 允许的协议 */
+    private final String[] vAllowedProtocols = { "http", "mailto", "https" };
+
+    /** 没有内容时删除的标签 */
+    private final String[] vRemoveBlanks = { "a", "b", "strong", "i", "em" };
+
+    /** 允许的实体 */
+    private final String[] vAllowedEntities = { "amp", "gt", "lt", "quot" };
+
+    /** 属性值两侧的引号 */
+    private final String quote;
+
+    private HtmlSanitizer(boolean escapeAttributeQuotes)
+    {
+        vAllowed.put("a", Arrays.asList("href", "target"));
+        vAllowed.put("img", Arrays.asList("src", "width", "height", "alt"));
+        List<String> noAtts = new ArrayList<>();
+        vAllowed.put("b", noAtts);
+        vAllowed.put("strong", noAtts);
+        vAllowed.put("i", noAtts);
+        vAllowed.put("em", noAtts);
+        quote = escapeAttributeQuotes ? "\\\"" : "\"";
+    }
+
+    /**
+     * 过滤输入，只保留白名单中的标签与属性
+     *
+     * @param input 可能包含HTML的文本
+     * @return 过滤后的文本
+     */
+    public String sanitize(final String input)
+    {
+        final int n = input.length();
+        final StringBuilder out = new StringBuilder(n + 16);
+        // 各标签未闭合的数量，遍历顺序与 HTMLFilter 一致
+        final Map<String, Integer> tagCounts = new HashMap<>();
+        // 第一个完整的注释整体删除
+        final int commentStart = input.indexOf("<!--");
+        final int commentEnd = commentStart < 0 ? -1 : input.indexOf("-->", commentStart + 4);
+        // 以 > 开头时，紧随其后的下一个孤立 > 不转义（与 HTMLFilter 的正则替换结果一致）
+        boolean keepNextStray = false;
+        int i = 0;
+        while (i < n)
+        {
+            final char c = input.charAt(i);
+            if (c == '<')
+            {
+                if (i == commentStart && commentEnd >= 0)
+                {
+                    i = commentEnd + 3;
+                    keepNextStray = false;
+                    continue;
+                }
+                int j = i + 1;
+                while (j < n && input.charAt(j) != '<' && input.charAt(j) != '>')
+                {
+                    j++;
+                }
+                if (j == n || input.charAt(j) == '<')
+                {
+                    // 孤立的 <
+                    out.append("&lt;");
+                    i++;
+                    continue;
+                }
+                processTag(input.substring(i + 1, j), out, tagCounts);
+                keepNextStray = false;
+                i = j + 1;
+            }
+            else if (c == '>')
+            {
+                // 孤立的 >
+                if (keepNextStray)
+                {
+                    out.append('>');
+                    keepNextStray = false;
+                }
+                else
+                {
+                    out.append("&gt;");
+                    keepNextStray = i == 0;
+                }
+                i++;
+            }
+            else
+            {
+                out.append(c);
+                i++;
+            }
+        }
+        for (Map.Entry<String, Integer> entry : tagCounts.entrySet())
+        {
+            for (int ii = 0; ii < entry.getValue(); ii++)
+            {
+                out.append("</").append(entry.getKey()).append('>');
+            }
+        }
+        return removeBlanks(out);
+    }
+
+    /**
+     * 处理一个标签，写出保留的部分
+     *
+     * @param s 尖括号之间的内容
+     */
+    private void processTag(final String s, final StringBuilder out, final Map<String, Integer> tagCounts)
+    {
+        final int len = s.length();
+        // 结束标签
+        if (len > 1 && s.charAt(0) == '/' && isAlnum(s.charAt(1)))
+        {
+            final String name = s.substring(1, alnumEnd(s, 1)).toLowerCase();
+            if (allowed(name) && !inArray(name, vSelfClosingTags) && tagCounts.containsKey(name))
+            {
+                tagCounts.put(name, tagCounts.get(name) - 1);
+                out.append("</").append(name).append('>');
+                return;
+            }
+        }
+        // 开始标签，其余（注释等）删除
+        if (len == 0 || !isAlnum(s.charAt(0)))
+        {
+            return;
+        }
+        final int nameEnd = alnumEnd(s, 0);
+        final String name = s.substring(0, nameEnd).toLowerCase();
+        if (!allowed(name))
+        {
+            return;
+        }
+        // 标签体：去掉末尾的一个换行符，再去掉末尾的 /
+        int bodyEnd = len - finalLineTerminatorLength(s, nameEnd);
+        String ending = "";
+        if (bodyEnd > nameEnd && s.charAt(bodyEnd - 1) == '/')
+        {
+            bodyEnd--;
+            ending = "/";
+        }
+        final String body = s.substring(nameEnd, bodyEnd);
+
+        final List<String> paramNames = new ArrayList<>();
+        final List<String> paramValues = new ArrayList<>();
+        collectQuotedAttributes(body, paramNames, paramValues);
+        collectUnquotedAttributes(body, paramNames, paramValues);
+
+        out.append('<').append(name);
+        for (int ii = 0; ii < paramNames.size(); ii++)
+        {
+            final String paramName = paramNames.get(ii).toLowerCase();
+            String paramValue = paramValues.get(ii);
+            if (vAllowed.get(name).contains(paramName))
+            {
+                if (inArray(paramName, vProtocolAtts))
+                {
+                    paramValue = processParamProtocol(paramValue);
+                }
+                out.append(' ').append(paramName).append('=').append(quote).append(paramValue).append(quote);
+            }
+        }
+
+        if (inArray(name, vSelfClosingTags))
+        {
+            ending = " /";
+        }
+        if (inArray(name, vNeedClosingTags))
+        {
+            ending = "";
+        }
+        if (ending.isEmpty())
+        {
+            // 用 put 而不是 merge：两者在同一个桶内的插入位置不同，会改变末尾补全结束标签的顺序
+            final Integer count = tagCounts.get(name);
+            tagCounts.put(name, count == null ? 1 : count + 1);
+        }
+        else
+        {
+            ending = " /";
+        }
+        out.append(ending).append('>');
+    }
+
+    /**
+     * 带引号的属性：name="value" 或 name='value'
+     */
+    private static void collectQuotedAttributes(final String body, final List<String> names, final List<String> values)
+    {
+        final int len = body.length();
+        // 某种引号之后不再出现时，后续同类属性都无法闭合
+        boolean noDouble = false;
+        boolean noSingle = false;
+        int p = 0;
+        while (p < len)
+        {
+            if (!isAlnum(body.charAt(p)))
+            {
+                p++;
+                continue;
+            }
+            final int q = alnumEnd(body, p);
+            if (q + 1 < len && body.charAt(q) == '=' && (body.charAt(q + 1) == '"' || body.charAt(q + 1) == '\''))
+            {
+                final char mark = body.charAt(q + 1);
+                final boolean exhausted = mark == '"' ? noDouble : noSingle;
+                final int close = exhausted ? -1 : body.indexOf(mark, q + 2);
+                if (close >= 0)
+                {
+                    names.add(body.substring(p, q));
+                    values.add(body.substring(q + 2, close));
+                    p = close + 1;
+                    continue;
+                }
+                if (mark == '"')
+                {
+                    noDouble = true;
+                }
+                else
+                {
+                    noSingle = true;
+                }
+            }
+            p = q + 1;
+        }
+    }
+
+    /**
+     * 不带引号的属性：name=value，值到空白或引号为止
+     */
+    private static void collectUnquotedAttributes(final String body, final List<String> names, final List<String> values)
+    {
+        final int len = body.length();
+        int p = 0;
+        while (p < len)
+        {
+            if (!isAlnum(body.charAt(p)))
+            {
+                p++;
+                continue;
+            }
+            final int q = alnumEnd(body, p);
+            if (q < len && body.charAt(q) == '=')
+            {
+                int v = q + 1;
+                while (v < len && !isUnquotedStop(body.charAt(v)))
+                {
+                    v++;
+                }
+                if (v > q + 1)
+                {
+                    names.add(body.substring(p, q));
+                    values.add(body.substring(q + 1, v));
+                    p = v;
+                    continue;
+                }
+            }
+            p = q + 1;
+        }
+    }
+
+    /**
+     * 检查协议，不允许的协议改为页内锚点
+     */
+    private String processParamProtocol(String s)
+    {
+        s = decodeEntities(s);
+        final int colon = s.indexOf(':');
+        if (colon > 0)
+        {
+            final String protocol = s.substring(0, colon);
+            if (!inArray(protocol, vAllowedProtocols))
+            {
+                s = "#" + s.substring(colon + 1);
+                if (s.startsWith("#//"))
+                {
+                    s = "#" + s.substring(3);
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * 依次解码 &amp;#十进制; &amp;#x十六进制; %十六进制，再校验实体
+     */
+    private String decodeEntities(final String s)
+    {
+        String result = decodeDecimalEntities(s);
+        result = decodeHexEntities(result);
+        result = decodePercentEncoding(result);
+        return validateEntities(result);
+    }
+
+    private static String decodeDecimalEntities(final String s)
+    {
+        if (s.indexOf("&#") < 0)
+        {
+            return s;
+        }
+        final int len = s.length();
+        final StringBuilder buf = new StringBuilder(len);
+        int i = 0;
+        while (i < len)
+        {
+            if (s.startsWith("&#", i) && i + 2 < len && isDigit(s.charAt(i + 2)))
+            {
+                int e = i + 3;
+                while (e < len && isDigit(s.charAt(e)))
+                {
+                    e++;
+                }
+                buf.append((char) Integer.decode(s.substring(i + 2, e)).intValue());
+                i = e < len && s.charAt(e) == ';' ? e + 1 : e;
+                continue;
+            }
+            buf.append(s.charAt(i++));
+        }
+        return buf.toString();
+    }
+
+    private static String decodeHexEntities(final String s)
+    {
+        if (s.indexOf("&#x") < 0)
+        {
+            return s;
+        }
+        final int len = s.length();
+        final StringBuilder buf = new StringBuilder(len);
+        int i = 0;
+        while (i < len)
+        {
+            if (s.startsWith("&#x", i) && i + 3 < len && isLowerHex(s.charAt(i + 3)))
+            {
+                int e = i + 4;
+                while (e < len && isLowerHex(s.charAt(e)))
+                {
+                    e++;
+                }
+                buf.append((char) Integer.valueOf(s.substring(i + 3, e), 16).intValue());
+                i = e < len && s.charAt(e) == ';' ? e + 1 : e;
+                continue;
+            }
+            buf.append(s.charAt(i++));
+        }
+        return buf.toString();
+    }
+
+    private static String decodePercentEncoding(final String s)
+    {
+        if (s.indexOf('%') < 0)
+        {
+            return s;
+        }
+        final int len = s.length();
+        final StringBuilder buf = new StringBuilder(len);
+        int i = 0;
+        while (i < len)
+        {
+            if (s.charAt(i) == '%' && i + 2 < len && isLowerHex(s.charAt(i + 1)) && isLowerHex(s.charAt(i + 2)))
+            {
+                buf.append((char) Integer.parseInt(s.substring(i + 1, i + 3), 16));
+                i = i + 3 < len && s.charAt(i + 3) == ';' ? i + 4 : i + 3;
+                continue;
+            }
+            buf.append(s.charAt(i++));
+        }
+        return buf.toString();
+    }
+
+    /**
+     * 不在白名单中或缺少分号的实体，将 &amp; 转义
+     */
+    private String validateEntities(final String s)
+    {
+        if (s.indexOf('&') < 0)
+        {
+            return s;
+        }
+        final int len = s.length();
+        final StringBuilder buf = new StringBuilder(len + 16);
+        int i = 0;
+        while (i < len)
+        {
+            final char c = s.charAt(i);
+            if (c != '&')
+            {
+                buf.append(c);
+                i++;
+                continue;
+            }
+            int j = i + 1;
+            while (j < len && s.charAt(j) != '&' && s.charAt(j) != ';')
+            {
+                j++;
+            }
+            final String preamble = s.substring(i + 1, j);
+            final boolean terminated = j < len && s.charAt(j) == ';';
+            buf.append(terminated && inArray(preamble, vAllowedEntities) ? "&" : "&amp;").append(preamble);
+            i = j;
+        }
+        return buf.toString();
+    }
+
+    /**
+     * 删除没有内容的标签，如 &lt;b&gt;&lt;/b&gt;，按 vRemoveBlanks 的顺序各处理一遍
+     */
+    private String removeBlanks(final StringBuilder out)
+    {
+        String result = out.toString();
+        if (result.indexOf("></") < 0 && result.indexOf("/>") < 0)
+        {
+            return result;
+        }
+        for (String tag : vRemoveBlanks)
+        {
+            result = removeBlankTags(result, tag, true);
+            result = removeBlankTags(result, tag, false);
+        }
+        return result;
+    }
+
+    /**
+     * 删除 &lt;tag ...&gt;&lt;/tag&gt;（pair为true）或 &lt;tag .../&gt;（pair为false）
+     */
+    private static String removeBlankTags(final String s, final String tag, final boolean pair)
+    {
+        final String open = "<" + tag;
+        final String close = "</" + tag + ">";
+        int from = s.indexOf(open);
+        if (from < 0)
+        {
+            return s;
+        }
+        final int len = s.length();
+        final StringBuilder buf = new StringBuilder(len);
+        int copied = 0;
+        while (from >= 0)
+        {
+            final int k = from + open.length();
+            int matchEnd = -1;
+            if (k < len)
+            {
+                final char c = s.charAt(k);
+                if (pair)
+                {
+                    int gt = c == '>' ? k : (isSpace(c) ? s.indexOf('>', k + 1) : -1);
+                    if (gt >= 0 && s.startsWith(close, gt + 1))
+                    {
+                        matchEnd = gt + 1 + close.length();
+                    }
+                }
+                else
+                {
+                    if (c == '/' && k + 1 < len && s.charAt(k + 1) == '>')
+                    {
+                        matchEnd = k + 2;
+                    }
+                    else if (isSpace(c))
+                    {
+                        final int gt = s.indexOf('>', k + 1);
+                        if (gt > k + 1 && s.charAt(gt - 1) == '/')
+                        {
+                            matchEnd = gt + 1;
+                        }
+                    }
+                }
+            }
+            if (matchEnd >= 0)
+            {
+                buf.append(s, copied, from);
+                copied = matchEnd;
+                from = s.indexOf(open, matchEnd);
+            }
+            else
+            {
+                from = s.indexOf(open, from + 1);
+            }
+        }
+        if (copied == 0)
+        {
+            return s;
+        }
+        buf.append(s, copied, len);
+        return buf.toString();
+    }
+
+    /**
+     * 末尾换行符的长度（\r\n 为2，\n \r \u0085 \u2028 \u2029 为1），不会跨过 from
+     */
+    private static int finalLineTerminatorLength(final String s, final int from)
+    {
+        final int len = s.length();
+        if (len <= from)
+        {
+            return 0;
+        }
+        final char last = s.charAt(len - 1);
+        if (last == '\n')
+        {
+            return len - 2 >= from && s.charAt(len - 2) == '\r' ? 2 : 1;
+        }
+        return last == '\r' || last == '\u0085' || last == '\u2028' || last == '\u2029' ? 1 : 0;
+    }
+
+    private static int alnumEnd(final String s, int i)
+    {
+        while (i < s.length() && isAlnum(s.charAt(i)))
+        {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isAlnum(final char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isDigit(final char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLowerHex(final char c)
+    {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+    }
+
+    private static boolean isSpace(final char c)
+    {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isUnquotedStop(final char c)
+    {
+        return c == '"' || c == '\'' || isSpace(c);
+    }
+
+    private boolean allowed(final String name)
+    {
+        return vAllowed.containsKey(name);
+    }
+
+    private static boolean inArray(final String s, final String[] array)
+    {
+        for (String item : array)
+        {
+            if (item.equals(s))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,142 @@
+package com.cms.common.utils.html;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * JSON请求体XSS过滤
+ *
+ * 用流式解析器逐个读取JSON记号，只对字符串值执行 EscapeUtil.cleanText，键名、数字与结构原样写出（数字按原文写出，不损失精度）。
+ * 不含尖括号且没有 \\u 转义的请求体不可能包含标签，直接返回原数组。
+ * 输出先写入线程复用的缓冲区，结束后复制为准确长度的数组。
+ * 请求体不是合法JSON时退回对整段文本执行 EscapeUtil.clean，与原处理方式一致，由后续的JSON解析报告格式错误。
+ *
+ * @author quoteZZZ
+ */
+public class JsonXssSanitizer
+{
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    // 线程复用缓冲区保留的最大容量，更大的请求体使用后释放
+    private static final int MAX_POOLED_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<PooledBuffer> BUFFERS = ThreadLocal.withInitial(PooledBuffer::new);
+
+    /**
+     * 过滤JSON请求体中的字符串值
+     *
+     * @param json UTF-8编码的JSON
+     * @return 过滤后的JSON，无需过滤时返回原数组
+     */
+    public static byte[] sanitize(byte[] json) throws IOException
+    {
+        if (!mayContainTags(json))
+        {
+            return json;
+        }
+        PooledBuffer out = BUFFERS.get();
+        try
+        {
+            try (JsonParser parser = FACTORY.createParser(json);
+                    JsonGenerator generator = FACTORY.createGenerator(out))
+            {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null)
+                {
+                    switch (token)
+                    {
+                        case VALUE_STRING:
+                            generator.writeString(EscapeUtil.cleanText(parser.getText()));
+                            break;
+                        case VALUE_NUMBER_INT:
+                        case VALUE_NUMBER_FLOAT:
+                            generator.writeNumber(parser.getText());
+                            break;
+                        default:
+                            generator.copyCurrentEvent(parser);
+                            break;
+                    }
+                }
+            }
+            return out.toByteArray();
+        }
+        catch (JsonProcessingException e)
+        {
+            return EscapeUtil.clean(new String(json, StandardCharsets.UTF_8)).trim().getBytes(StandardCharsets.UTF_8);
+        }
+        finally
+        {
+            out.release();
+        }
+    }
+
+    /**
+     * 是否可能包含标签：出现尖括号或 \\u 转义（UTF-8多字节字符中不会出现这些ASCII字节）
+     */
+    private static boolean mayContainTags(byte[] json)
+    {
+        for (int i = 0; i < json.length; i++)
+        {
+            byte b = json[i];
+            if (b == '<' || b == '>' || (b == '\\' && i + 1 < json.length && json[i + 1] == 'u'))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 线程复用的输出缓冲区
+     */
+    private static final class PooledBuffer extends OutputStream
+    {
+        private byte[] buf = new byte[4096];
+
+        private int count;
+
+        @Override
+        public void write(int b)
+        {
+            ensureCapacity(count + 1);
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            ensureCapacity(count + len);
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        private void ensureCapacity(int capacity)
+        {
+            if (capacity > buf.length)
+            {
+                buf = Arrays.copyOf(buf, Math.max(capacity, buf.length * 2));
+            }
+        }
+
+        private byte[] toByteArray()
+        {
+            return Arrays.copyOf(buf, count);
+        }
+
+        private void release()
+        {
+            count = 0;
+            if (buf.length > MAX_POOLED_SIZE)
+            {
+                buf = new byte[4096];
+            }
+        }
+    }
+}
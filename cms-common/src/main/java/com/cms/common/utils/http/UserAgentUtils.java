@@ -0,0 +1,94 @@
+package com.cms.common.utils.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import com.cms.common.core.cache.LocalCache;
+import eu.bitwalker.useragentutils.UserAgent;
+
+/**
+ * User-Agent 解析工具类
+ *
+ * 解析结果（浏览器、操作系统）按 User-Agent 字符串缓存在进程内，同一批浏览器的重复请求不再逐条匹配解析规则。
+ * 超长的 User-Agent 不进入缓存，避免异常请求占满缓存。
+ *
+ * @author quoteZZZ
+ */
+public class UserAgentUtils
+{
+    // 缓存容量与存活时间
+    private static final int MAX_SIZE = 2048;
+
+    private static final long TTL_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    // 可缓存的 User-Agent 最大长度
+    private static final int MAX_CACHEABLE_LENGTH = 512;
+
+    private static final LocalCache<String, Client> CACHE = new LocalCache<>(MAX_SIZE, TTL_MILLIS);
+
+    /**
+     * 解析 User-Agent
+     *
+     * @param userAgent User-Agent 字符串
+     * @return 客户端信息
+     */
+    public static Client parse(String userAgent)
+    {
+        String key = userAgent == null ? "" : userAgent;
+        Client client = CACHE.get(key);
+        if (client == null)
+        {
+            UserAgent parsed = UserAgent.parseUserAgentString(userAgent);
+            client = new Client(parsed.getBrowser().getName(), parsed.getOperatingSystem().getName());
+            if (key.length() <= MAX_CACHEABLE_LENGTH)
+            {
+                CACHE.put(key, client);
+            }
+        }
+        return client;
+    }
+
+    /**
+     * 查询缓存命中统计
+     *
+     * @return 统计信息
+     */
+    public static Map<String, Object> getMetrics()
+    {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", CACHE.size());
+        metrics.put("hits", CACHE.getHitCount());
+        metrics.put("misses", CACHE.getMissCount());
+        metrics.put("evictions", CACHE.getEvictionCount());
+        metrics.put("hitRate", CACHE.getHitRate());
+        return metrics;
+    }
+
+    /**
+     * 客户端信息
+     */
+    public static final class Client
+    {
+        /** 浏览器 */
+        private final String browser;
+
+        /** 操作系统 */
+        private final String os;
+
+        private Client(String browser, String os)
+        {
+            this.browser = browser;
+            this.os = os;
+        }
+
+        public String getBrowser()
+        {
+            return browser;
+        }
+
+        public String getOs()
+        {
+            return os;
+        }
+    }
+}
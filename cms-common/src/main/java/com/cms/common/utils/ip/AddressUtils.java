@@ -1,17 +1,36 @@
 package com.cms.common.utils.ip;
 
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
 import com.cms.common.config.CmsConfig;
 import com.cms.common.constant.Constants;
+import com.cms.common.core.cache.LocalCache;
 import com.cms.common.utils.StringUtils;
 import com.cms.common.utils.http.HttpUtils;
 
 /**
  * 获取地址类
- * 
+ *
+ * 配置了离线地址库（cms.addressDbPath）时从本地 IpRegionDatabase 查询，不访问网络；
+ * 未配置或加载失败时使用在线查询。查询结果按IP缓存，重复的IP不再查询。
+ * 批量查询时在线查询在独立线程中执行，调用方只等待限定时间，超时的IP返回未知地址，查询完成后结果仍进入缓存。
+ *
  * @author quoteZZZ
  */
 public class AddressUtils
@@ -24,33 +43,183 @@ public class AddressUtils
     // 未知地址
     public static final String UNKNOWN = "XX XX";
 
+    // IP到地址的缓存
+    private static final LocalCache<String, String> CACHE = new LocalCache<>(4096, TimeUnit.HOURS.toMillis(6));
+
+    // 离线地址库，加载后不再变化
+    private static volatile IpRegionDatabase database;
+
+    private static volatile boolean databaseLoaded;
+
+    // 在线查询线程池，队列满时不再提交，直接按未知地址处理
+    private static final ExecutorService REMOTE_EXECUTOR = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(256), new BasicThreadFactory.Builder().namingPattern("address-lookup-%d").daemon(true).build());
+
     public static String getRealAddressByIP(String ip)
+    {
+        String address = getLocalAddress(ip);
+        return address != null ? address : getRemoteAddressCached(ip);
+    }
+
+    /**
+     * 批量查询IP地址，需要在线查询的IP总共最多等待 timeoutMillis 毫秒
+     *
+     * @param ips IP集合
+     * @param timeoutMillis 在线查询的最长等待时间（毫秒）
+     * @return IP到地址的映射，超时或查询失败的IP为未知地址
+     */
+    public static Map<String, String> getRealAddressByIPs(Collection<String> ips, long timeoutMillis)
+    {
+        Map<String, String> addresses = new HashMap<>();
+        Map<String, Future<String>> remote = new HashMap<>();
+        for (String ip : ips)
+        {
+            if (addresses.containsKey(ip) || remote.containsKey(ip))
+            {
+                continue;
+            }
+            String address = getLocalAddress(ip);
+            if (address != null)
+            {
+                addresses.put(ip, address);
+            }
+            else
+            {
+                remote.put(ip, submitRemote(ip));
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Map.Entry<String, Future<String>> entry : remote.entrySet())
+        {
+            addresses.put(entry.getKey(), await(entry.getValue(), deadline));
+        }
+        return addresses;
+    }
+
+    /**
+     * 不访问网络查询IP地址，需要在线查询时返回null
+     */
+    private static String getLocalAddress(String ip)
     {
         // 内网不查询
         if (IpUtils.internalIp(ip))
         {
             return "内网IP";
         }
-        if (CmsConfig.isAddressEnabled())
+        if (!CmsConfig.isAddressEnabled())
         {
-            try
-            {
-                String rspStr = HttpUtils.sendGet(IP_URL, "ip=" + ip + "&json=true", Constants.GBK);
-                if (StringUtils.isEmpty(rspStr))
-                {
-                    log.error("获取地理位置异常 {}", ip);
-                    return UNKNOWN;
-                }
-                JSONObject obj = JSON.parseObject(rspStr);
-                String region = obj.getString("pro");
-                String city = obj.getString("city");
-                return String.format("%s %s", region, city);
-            }
-            catch (Exception e)
+            return UNKNOWN;
+        }
+        String address = CACHE.get(ip);
+        if (address != null)
+        {
+            return address;
+        }
+        IpRegionDatabase db = getDatabase();
+        if (db != null)
+        {
+            address = StringUtils.defaultIfEmpty(db.lookup(ip), UNKNOWN);
+            CACHE.put(ip, address);
+            return address;
+        }
+        return null;
+    }
+
+    /**
+     * 在线查询IP地址，成功时写入缓存
+     */
+    private static String getRemoteAddressCached(String ip)
+    {
+        String address = getRemoteAddress(ip);
+        if (!UNKNOWN.equals(address))
+        {
+            CACHE.put(ip, address);
+        }
+        return address;
+    }
+
+    private static Future<String> submitRemote(String ip)
+    {
+        try
+        {
+            return REMOTE_EXECUTOR.submit(() -> getRemoteAddressCached(ip));
+        }
+        catch (RejectedExecutionException e)
+        {
+            return CompletableFuture.completedFuture(UNKNOWN);
+        }
+    }
+
+    private static String await(Future<String> future, long deadline)
+    {
+        try
+        {
+            return future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return UNKNOWN;
+        }
+        catch (ExecutionException | TimeoutException e)
+        {
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * 在线查询IP地址
+     */
+    private static String getRemoteAddress(String ip)
+    {
+        try
+        {
+            String rspStr = HttpUtils.sendGet(IP_URL, "ip=" + ip + "&json=true", Constants.GBK);
+            if (StringUtils.isEmpty(rspStr))
             {
                 log.error("获取地理位置异常 {}", ip);
+                return UNKNOWN;
             }
+            JSONObject obj = JSON.parseObject(rspStr);
+            String region = obj.getString("pro");
+            String city = obj.getString("city");
+            return String.format("%s %s", region, city);
+        }
+        catch (Exception e)
+        {
+            log.error("获取地理位置异常 {}", ip);
         }
         return UNKNOWN;
     }
+
+    /**
+     * 获取离线地址库，首次调用时加载，未配置或加载失败时返回null
+     */
+    private static IpRegionDatabase getDatabase()
+    {
+        if (!databaseLoaded)
+        {
+            synchronized (AddressUtils.class)
+            {
+                if (!databaseLoaded)
+                {
+                    String path = CmsConfig.getAddressDbPath();
+                    if (StringUtils.isNotEmpty(path))
+                    {
+                        try
+                        {
+                            database = IpRegionDatabase.load(Paths.get(path));
+                            log.info("加载离线IP地址库 {}，区间 {} 条", path, database.size());
+                        }
+                        catch (Exception e)
+                        {
+                            log.error("加载离线IP地址库失败 {}，使用在线查询", path, e);
+                        }
+                    }
+                    databaseLoaded = true;
+                }
+            }
+        }
+        return database;
+    }
 }
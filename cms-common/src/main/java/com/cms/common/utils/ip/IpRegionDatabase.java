@@ -0,0 +1,286 @@
+package com.cms.common.utils.ip;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 离线IP地址库
+ *
+ * 地址库文件通过 MappedByteBuffer 映射到内存，按起始地址二分查找所在区间，查询不分配对象（命中时只构造地区字符串）。
+ *
+ * 文件格式（仅IPv4，所有整数为大端序）：
+ * <pre>
+ * 文件头 16 字节
+ *   0  8字节  魔数 ASCII "CMSIPDB1"
+ *   8  int    区间条数 N
+ *   12 int    字符串区起始偏移（相对文件开头）
+ * 区间表 N × 12 字节，按起始地址升序排列且互不重叠
+ *   int 起始地址（无符号IPv4）
+ *   int 结束地址（无符号IPv4，包含）
+ *   int 地区字符串偏移（相对字符串区起始）
+ * 字符串区
+ *   unsigned short 长度 + UTF-8 字节，内容为 "省份 城市"，与在线查询返回的格式一致；相同地区共用一个条目
+ * </pre>
+ * 可用 {@link #build(BufferedReader, OutputStream)} 由公开数据集整理出的 CSV（每行 "起始IP,结束IP,地区"）生成。
+ *
+ * @author quoteZZZ
+ */
+public class IpRegionDatabase
+{
+    private static final byte[] MAGIC = "CMSIPDB1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int RECORD_SIZE = 12;
+
+    private final ByteBuffer buffer;
+
+    private final int count;
+
+    private final int stringsOffset;
+
+    private IpRegionDatabase(ByteBuffer buffer)
+    {
+        if (buffer.capacity() < HEADER_SIZE)
+        {
+            throw new IllegalArgumentException("IP地址库文件格式错误");
+        }
+        for (int i = 0; i < MAGIC.length; i++)
+        {
+            if (buffer.get(i) != MAGIC[i])
+            {
+                throw new IllegalArgumentException("IP地址库文件格式错误");
+            }
+        }
+        this.buffer = buffer;
+        this.count = buffer.getInt(8);
+        this.stringsOffset = buffer.getInt(12);
+        if (count < 0 || stringsOffset < HEADER_SIZE + (long) count * RECORD_SIZE || stringsOffset > buffer.capacity())
+        {
+            throw new IllegalArgumentException("IP地址库文件格式错误");
+        }
+    }
+
+    /**
+     * 以只读方式映射地址库文件
+     *
+     * @param path 文件路径
+     * @return 地址库
+     */
+    public static IpRegionDatabase load(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new IpRegionDatabase(buffer);
+        }
+    }
+
+    /**
+     * 查询IP所在地区
+     *
+     * @param ip IPv4地址
+     * @return 地区，地址无效或不在任何区间内时返回null
+     */
+    public String lookup(String ip)
+    {
+        long value = toLong(ip);
+        if (value < 0)
+        {
+            return null;
+        }
+        // 查找起始地址不大于ip的最后一个区间
+        int low = 0;
+        int high = count - 1;
+        int found = -1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (Integer.toUnsignedLong(buffer.getInt(HEADER_SIZE + mid * RECORD_SIZE)) <= value)
+            {
+                found = mid;
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        if (found < 0)
+        {
+            return null;
+        }
+        int record = HEADER_SIZE + found * RECORD_SIZE;
+        if (Integer.toUnsignedLong(buffer.getInt(record + 4)) < value)
+        {
+            return null;
+        }
+        int offset = stringsOffset + buffer.getInt(record + 8);
+        int length = buffer.getShort(offset) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return 区间条数
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * 由CSV生成地址库文件，每行 "起始IP,结束IP,地区"，空行与#开头的行忽略
+     *
+     * @param csv CSV输入
+     * @param out 地址库输出
+     */
+    public static void build(BufferedReader csv, OutputStream out) throws IOException
+    {
+        List<long[]> ranges = new ArrayList<>();
+        List<String> regions = new ArrayList<>();
+        Map<String, Integer> regionIndex = new HashMap<>();
+        String line;
+        int lineNo = 0;
+        while ((line = csv.readLine()) != null)
+        {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+            {
+                continue;
+            }
+            String[] parts = line.split(",", 3);
+            long start = parts.length == 3 ? toLong(parts[0].trim()) : -1;
+            long end = parts.length == 3 ? toLong(parts[1].trim()) : -1;
+            if (start < 0 || end < start)
+            {
+                throw new IllegalArgumentException("第" + lineNo + "行格式错误：" + line);
+            }
+            String region = parts[2].trim();
+            Integer index = regionIndex.get(region);
+            if (index == null)
+            {
+                index = regions.size();
+                regions.add(region);
+                regionIndex.put(region, index);
+            }
+            ranges.add(new long[] { start, end, index });
+        }
+        ranges.sort(Comparator.comparingLong(r -> r[0]));
+        for (int i = 1; i < ranges.size(); i++)
+        {
+            if (ranges.get(i)[0] <= ranges.get(i - 1)[1])
+            {
+                throw new IllegalArgumentException("IP区间重叠：" + ranges.get(i - 1)[0] + "-" + ranges.get(i - 1)[1]);
+            }
+        }
+
+        int[] offsets = new int[regions.size()];
+        int size = 0;
+        List<byte[]> encoded = new ArrayList<>(regions.size());
+        for (int i = 0; i < regions.size(); i++)
+        {
+            byte[] bytes = regions.get(i).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF)
+            {
+                throw new IllegalArgumentException("地区名称过长：" + regions.get(i));
+            }
+            offsets[i] = size;
+            size += 2 + bytes.length;
+            encoded.add(bytes);
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeInt(ranges.size());
+        data.writeInt(HEADER_SIZE + ranges.size() * RECORD_SIZE);
+        for (long[] range : ranges)
+        {
+            data.writeInt((int) range[0]);
+            data.writeInt((int) range[1]);
+            data.writeInt(offsets[(int) range[2]]);
+        }
+        for (byte[] bytes : encoded)
+        {
+            data.writeShort(bytes.length);
+            data.write(bytes);
+        }
+        data.flush();
+    }
+
+    /**
+     * 由CSV文件生成地址库文件
+     *
+     * @param csv CSV文件
+     * @param target 地址库文件
+     */
+    public static void build(Path csv, Path target) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+                OutputStream out = Files.newOutputStream(target))
+        {
+            build(reader, out);
+        }
+    }
+
+    /**
+     * 解析点分十进制IPv4地址，不分配对象
+     *
+     * @return 无符号地址值，格式错误时返回-1
+     */
+    private static long toLong(String ip)
+    {
+        if (ip == null || ip.isEmpty())
+        {
+            return -1;
+        }
+        long result = 0;
+        int part = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = 0; i < ip.length(); i++)
+        {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9')
+            {
+                part = part * 10 + (c - '0');
+                if (++digits > 3 || part > 255)
+                {
+                    return -1;
+                }
+            }
+            else if (c == '.' && digits > 0 && dots < 3)
+            {
+                result = (result << 8) | part;
+                part = 0;
+                digits = 0;
+                dots++;
+            }
+            else
+            {
+                return -1;
+            }
+        }
+        if (dots != 3 || digits == 0)
+        {
+            return -1;
+        }
+        return (result << 8) | part;
+    }
+}
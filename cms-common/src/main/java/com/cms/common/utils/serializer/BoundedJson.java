@@ -0,0 +1,145 @@
+package com.cms.common.utils.serializer;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import com.alibaba.fastjson2.JSONFactory;
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.modules.ObjectWriterModule;
+import com.alibaba.fastjson2.writer.ObjectWriter;
+import com.alibaba.fastjson2.writer.ObjectWriterProvider;
+import com.cms.common.filter.PropertyPreExcludeFilter;
+import com.cms.common.utils.StringUtils;
+
+/**
+ * 限长JSON序列化
+ *
+ * 用于日志等只保留前若干字符的场景：写出的内容超过最大长度后中止序列化，大集合不会被完整序列化后再截断。
+ * 对象属性与Map键之间由 PropertyPreExcludeFilter 检查长度；集合与数组（byte[]、char[] 除外）逐个元素写出，
+ * 每个元素之前检查长度，因此 List&lt;String&gt;、List&lt;Long&gt; 等参数与Map值也会在写满时中止。
+ * 对象属性中的字符串集合由 fastjson2 直接写出，仍只在属性之间检查。
+ *
+ * @author quoteZZZ
+ */
+public class BoundedJson
+{
+    /** 按最大长度缓存的序列化器提供者，最大长度只有少数几种取值 */
+    private static final Map<Integer, ObjectWriterProvider> PROVIDERS = new ConcurrentHashMap<>();
+
+    /**
+     * 序列化对象，结果不超过过滤器的最大长度
+     *
+     * @param object 对象
+     * @param filter 设置了最大长度的过滤器
+     * @return JSON字符串（可能被截断）
+     */
+    public static String toJSONString(Object object, PropertyPreExcludeFilter filter)
+    {
+        int maxLength = filter.getMaxLength();
+        ObjectWriterProvider provider = maxLength > 0 ? PROVIDERS.computeIfAbsent(maxLength, BoundedJson::createProvider)
+                : JSONFactory.getDefaultObjectWriterProvider();
+        JSONWriter.Context context = new JSONWriter.Context(provider);
+        context.configFilter(filter);
+        try (JSONWriter writer = JSONWriter.of(context))
+        {
+            try
+            {
+                writer.writeAny(object);
+            }
+            catch (RuntimeException e)
+            {
+                // 已写满时中止属于正常截断，其他异常照常抛出
+                if (maxLength <= 0 || writer.size() <= maxLength)
+                {
+                    throw e;
+                }
+            }
+            String json = writer.toString();
+            return maxLength > 0 ? StringUtils.substring(json, 0, maxLength) : json;
+        }
+    }
+
+    /**
+     * 创建集合与数组逐元素检查长度的序列化器提供者，其他类型沿用默认序列化器
+     */
+    private static ObjectWriterProvider createProvider(int maxLength)
+    {
+        ObjectWriterProvider provider = new ObjectWriterProvider();
+        BoundedArrayWriter arrayWriter = new BoundedArrayWriter(maxLength);
+        provider.register(new ObjectWriterModule()
+        {
+            @Override
+            public ObjectWriter getObjectWriter(Type objectType, Class objectClass)
+            {
+                Class<?> clazz = objectClass != null ? objectClass : objectType instanceof Class ? (Class<?>) objectType : null;
+                if (clazz == null)
+                {
+                    return null;
+                }
+                if (Collection.class.isAssignableFrom(clazz)
+                        || (clazz.isArray() && clazz != byte[].class && clazz != char[].class))
+                {
+                    return arrayWriter;
+                }
+                return null;
+            }
+        });
+        return provider;
+    }
+
+    /**
+     * 集合与数组的序列化器，写出每个元素之前检查长度
+     */
+    private static class BoundedArrayWriter implements ObjectWriter<Object>
+    {
+        private final int maxLength;
+
+        private BoundedArrayWriter(int maxLength)
+        {
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public void write(JSONWriter jsonWriter, Object object, Object fieldName, Type fieldType, long features)
+        {
+            if (object == null)
+            {
+                jsonWriter.writeNull();
+                return;
+            }
+            jsonWriter.startArray();
+            if (object instanceof Collection)
+            {
+                int i = 0;
+                for (Object item : (Collection<?>) object)
+                {
+                    writeItem(jsonWriter, item, i++);
+                }
+            }
+            else
+            {
+                int length = Array.getLength(object);
+                for (int i = 0; i < length; i++)
+                {
+                    writeItem(jsonWriter, Array.get(object, i), i);
+                }
+            }
+            jsonWriter.endArray();
+        }
+
+        private void writeItem(JSONWriter jsonWriter, Object item, int index)
+        {
+            if (jsonWriter.size() > maxLength)
+            {
+                throw PropertyPreExcludeFilter.LENGTH_EXCEEDED;
+            }
+            if (index > 0)
+            {
+                jsonWriter.writeComma();
+            }
+            jsonWriter.writeAny(item);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.cms.common.utils.spring;
+
+import java.util.function.Consumer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务工具类
+ * @author quoteZZZ
+ */
+public final class TransactionUtils
+{
+    /** 当前线程是否正在执行事务回调，此时再注册的同步不一定会被调用，需直接执行 */
+    private static final ThreadLocal<Boolean> IN_CALLBACK = new ThreadLocal<>();
+
+    private TransactionUtils()
+    {
+    }
+
+    /**
+     * 在当前事务提交后执行，无事务时或在其他事务回调中调用时立即执行
+     * 调用方没有事务时动作会在数据写入之前执行，需要保证“先写库后执行”的调用方应在事务中调用或在写库之后调用
+     *
+     * @param action 动作
+     */
+    public static void runAfterCommit(Runnable action)
+    {
+        if (canRegister())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    runInCallback(action);
+                }
+            });
+        }
+        else
+        {
+            action.run();
+        }
+    }
+
+    /**
+     * 在当前事务结束（提交或回滚）后执行，参数为事务是否已提交
+     * 无事务时或在其他事务回调中调用时立即以已提交执行
+     *
+     * @param action 动作
+     */
+    public static void runAfterCompletion(Consumer<Boolean> action)
+    {
+        if (canRegister())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCompletion(int status)
+                {
+                    runInCallback(() -> action.accept(status == STATUS_COMMITTED));
+                }
+            });
+        }
+        else
+        {
+            action.accept(Boolean.TRUE);
+        }
+    }
+
+    private static boolean canRegister()
+    {
+        return TransactionSynchronizationManager.isSynchronizationActive() && IN_CALLBACK.get() == null;
+    }
+
+    private static void runInCallback(Runnable action)
+    {
+        IN_CALLBACK.set(Boolean.TRUE);
+        try
+        {
+            action.run();
+        }
+        finally
+        {
+            IN_CALLBACK.remove();
+        }
+    }
+}
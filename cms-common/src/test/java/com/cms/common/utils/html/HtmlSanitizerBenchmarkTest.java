@@ -0,0 +1,100 @@
+package com.cms.common.utils.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * HtmlSanitizer 与 HTMLFilter 耗时对比
+ *
+ * 默认不执行，运行方式：mvn -pl cms-common test -Dtest=HtmlSanitizerBenchmarkTest -Dbenchmark=true
+ * 每轮先预热再计时，输出每次调用的平均耗时（微秒），结果只作参考，不做断言。
+ *
+ * @author quoteZZZ
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HtmlSanitizerBenchmarkTest
+{
+    /** 重复的文档片段，含允许与不允许的标签、属性、协议与孤立尖括号 */
+    private static final String SNIPPET = "正文内容 <b>加粗</b> <a href=\"http://x.com/p?a=1&b=2\" target=_blank>链接</a> "
+            + "<script>alert(1)</script> <img src='javascript:x' alt=1> 3 > 2 ";
+
+    /** 文档长度（片段重复次数） */
+    private static final int[] REPEATS = { 1, 10, 60, 500 };
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    private static final int ROUNDS = 5;
+
+    /** 每轮调用总字符数，按文档长度换算调用次数 */
+    private static final int CHARS_PER_ROUND = 2_000_000;
+
+    @Test
+    void compareWithHtmlFilter()
+    {
+        for (int repeat : REPEATS)
+        {
+            StringBuilder document = new StringBuilder();
+            for (int i = 0; i < repeat; i++)
+            {
+                document.append(SNIPPET);
+            }
+            String input = document.toString();
+            assertEquals(new HTMLFilter().filter(input), HtmlSanitizer.DEFAULT.sanitize(input));
+            int calls = Math.max(1, CHARS_PER_ROUND / input.length());
+            for (int i = 0; i < WARMUP_ROUNDS; i++)
+            {
+                timeFilter(input, calls);
+                timeSanitizer(input, calls);
+            }
+            long filterNanos = 0;
+            long sanitizerNanos = 0;
+            for (int i = 0; i < ROUNDS; i++)
+            {
+                filterNanos += timeFilter(input, calls);
+                sanitizerNanos += timeSanitizer(input, calls);
+            }
+            long total = (long) calls * ROUNDS;
+            System.out.printf("长度 %d：HTMLFilter %.2fus，HtmlSanitizer %.2fus%n", input.length(),
+                    filterNanos / 1000.0 / total, sanitizerNanos / 1000.0 / total);
+        }
+    }
+
+    private static long timeFilter(String input, int calls)
+    {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++)
+        {
+            sink += new HTMLFilter().filter(input).length();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed;
+    }
+
+    private static long timeSanitizer(String input, int calls)
+    {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++)
+        {
+            sink += HtmlSanitizer.DEFAULT.sanitize(input).length();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed;
+    }
+
+    /**
+     * 使用计算结果，避免循环被优化掉
+     */
+    private static void consume(long sink)
+    {
+        if (sink == Long.MIN_VALUE)
+        {
+            System.out.println(sink);
+        }
+    }
+}
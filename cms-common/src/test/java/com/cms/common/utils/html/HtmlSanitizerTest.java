@@ -0,0 +1,132 @@
+package com.cms.common.utils.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * HtmlSanitizer 与 HTMLFilter 等价性测试
+ *
+ * 固定语料覆盖白名单标签、属性、协议、实体、注释与孤立尖括号等细节，随机语料由固定种子的片段拼接生成；
+ * 两种引号模式分别与 new HTMLFilter(true)、new HTMLFilter(false) 比较，抛出异常时比较异常类型。
+ *
+ * @author quoteZZZ
+ */
+class HtmlSanitizerTest
+{
+    /** 固定语料 */
+    private static final String[] CORPUS = {
+            "",
+            "普通文本",
+            "a < b > c",
+            "3 > 2 && 1 < 2",
+            ">>",
+            "> >x> y",
+            "<b>加粗</b><i>斜体</i><strong>强调</strong><em>强调</em>",
+            "<B>大写</B><STRONG>x</Strong>",
+            "<b>未闭合",
+            "</b>多余的闭合",
+            "<b><i>嵌套未闭合",
+            "<b></b><a href=\"http://x.com\"></a><i> </i>",
+            "<script>alert(1)</script>",
+            "<iframe src=\"http://x.com\"></iframe>",
+            "<a href=\"http://x.com/p?a=1&b=2\" target=_blank>链接</a>",
+            "<a href='https://x.com' target='_self' onclick='x()'>链接</a>",
+            "<a href=javascript:alert(1)>x</a>",
+            "<a href=\"JavaScript:alert(1)\">x</a>",
+            "<a href=\"&#106;avascript:alert(1)\">x</a>",
+            "<a href=\"&#x6a;avascript:alert(1)\">x</a>",
+            "<a href=\"%6aavascript:alert(1)\">x</a>",
+            "<a href=\"mailto:a@b.com\">邮件</a>",
+            "<a href=\"//x.com\">相对协议</a>",
+            "<a href=\"/path:x\">路径</a>",
+            "<img src=\"http://x.com/a.png\" width=10 height='20' alt=\"图片\">",
+            "<img src='javascript:x' alt=1>",
+            "<img src=\"http://x.com/a.png\"/>",
+            "<img>",
+            "<img/>",
+            "<a href=\"x\" href=\"y\">重复属性</a>",
+            "<a href=\"x\" target=y href=z>引号与非引号</a>",
+            "<b\n>换行</b>",
+            "<b\r\n>换行</b>",
+            "<b >换行</b>",
+            "<a href=\"x\"\u0085>换行</a>",
+            "<!-- 注释 -->正文",
+            "<!-- 一 -->正文<!-- 二 -->",
+            "<!-- 未结束的注释",
+            "&amp; &lt; &gt; &quot; &nbsp; &copy; &#60; &#x3c; & ;",
+            "&&amp;&",
+            "\"引号\" '单引号'",
+            "<a title=\"x\">不允许的属性</a>",
+            "<<b>>",
+            "<>",
+            "< b>空格</b>",
+            "<b >x</b >",
+            "<a href=\"http://x.com\" target=\"_blank\"/>",
+            "正文内容 <b>加粗</b> <a href=\"http://x.com/p?a=1&b=2\" target=_blank>链接</a> <script>alert(1)</script> <img src='javascript:x' alt=1> 3 > 2 ",
+            "<a href=\"&#99999999999;\">非法实体</a>",
+    };
+
+    /** 随机语料的片段 */
+    private static final String[] FRAGMENTS = {
+            "<a href=\"", "<img src='", "<a href=", "\"", "'", " target=", "&#0", "&#12", "&#x6a;", "%6a", "%3a",
+            "javascript:", "http://", "//", "mailto:", "&quot;", "&amp", "&gt;", ":", "\u0085", " ", "\r\n",
+            "></a>", "<b ", "></b>", "&#99999999999", "<", ">", "/", "=", "&", "#", ";", "a", "b", "i", "m", "g",
+            "h", "r", "e", "f", "s", "t", "x", "0", "1", "8", "9", " ", "!", "-", "%", "\n", "\r", " ", "img",
+            "href", "src", "http", "javascript", "<!--", "-->", "&#", "&#x", "&amp;", "&lt", "strong", "em", "<a ",
+            "<b>", "</b>", "</a>", "<img ", "/>", "target", "alt", "A", "B", "IMG", "HREF", "c", "d", "\t"
+    };
+
+    /** 随机语料条数 */
+    private static final int RANDOM_INPUTS = 20000;
+
+    @Test
+    void corpusMatchesHtmlFilter()
+    {
+        for (String input : CORPUS)
+        {
+            assertEquivalent(input);
+        }
+    }
+
+    @Test
+    void randomInputsMatchHtmlFilter()
+    {
+        Random random = new Random(20260501L);
+        for (int i = 0; i < RANDOM_INPUTS; i++)
+        {
+            int fragments = random.nextInt(60);
+            StringBuilder input = new StringBuilder();
+            for (int k = 0; k < fragments; k++)
+            {
+                input.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            assertEquivalent(input.toString());
+        }
+    }
+
+    private static void assertEquivalent(String input)
+    {
+        assertEquals(run(() -> new HTMLFilter(true).filter(input)), run(() -> HtmlSanitizer.DEFAULT.sanitize(input)),
+                () -> "转义引号模式输出不一致：" + input);
+        assertEquals(run(() -> new HTMLFilter(false).filter(input)), run(() -> HtmlSanitizer.TEXT.sanitize(input)),
+                () -> "普通引号模式输出不一致：" + input);
+    }
+
+    /**
+     * 执行过滤，抛出异常时返回异常类型，使异常行为也参与比较
+     */
+    private static String run(Supplier<String> filter)
+    {
+        try
+        {
+            return filter.get();
+        }
+        catch (RuntimeException e)
+        {
+            return "异常：" + e.getClass().getName();
+        }
+    }
+}
@@ -10,13 +10,16 @@ import com.cms.common.utils.SecurityUtils;
 import com.cms.common.utils.StringUtils;
 import com.cms.common.utils.text.Convert;
 import com.cms.framework.security.context.PermissionContextHolder;
+import com.cms.framework.web.service.PermissionService;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * 数据权限过滤服务切面类：（自定义注解DataScope）
@@ -58,6 +61,9 @@ public class DataScopeAspect
      */
     public static final String DATA_SCOPE = "dataScope";
 
+    @Autowired
+    private PermissionService permissionService;
+
     //前置通知：在方法执行前执行
     @Before("@annotation(controllerDataScope)")
     public void doBefore(JoinPoint point, DataScope controllerDataScope) throws Throwable
@@ -83,7 +89,8 @@ public class DataScopeAspect
                 // 获取目标方法的权限字符串，列如，用户列表的权限字符串为：sys_user:list
                 String permission = StringUtils.defaultIfEmpty(controllerDataScope.permission(), PermissionContextHolder.getContext());
                 //设置数据范围（权限）过滤条件，根据当前用户，部门别名、用户别名、权限标识符对切点对象进行过滤
-                dataScopeFilter(joinPoint, currentUser, controllerDataScope.deptAlias(), controllerDataScope.userAlias(), permission);
+                // 角色权限匹配使用登录时编译的权限位图
+                dataScopeFilter(joinPoint, currentUser, controllerDataScope.deptAlias(), controllerDataScope.userAlias(), permissionService.roleMatcher(loginUser, permission));
             }
         }
     }
@@ -97,6 +104,19 @@ public class DataScopeAspect
      * @param permission 权限字符
      */
     public static void dataScopeFilter(JoinPoint joinPoint, SysUser user, String deptAlias, String userAlias, String permission)
+    {
+        dataScopeFilter(joinPoint, user, deptAlias, userAlias, role -> StringUtils.containsAny(role.getPermissions(), Convert.toStrArray(permission)));
+    }
+
+    /**
+     * 数据范围过滤
+     * @param joinPoint 切点
+     * @param user 用户
+     * @param deptAlias 部门别名
+     * @param userAlias 用户别名
+     * @param permitted 判断角色是否具备目标权限
+     */
+    public static void dataScopeFilter(JoinPoint joinPoint, SysUser user, String deptAlias, String userAlias, Predicate<SysRole> permitted)
     {
         //构建SQL字符串，用于拼接数据范围过滤条件
         StringBuilder sqlString = new StringBuilder();
@@ -105,7 +125,7 @@ public class DataScopeAspect
         List<String> scopeCustomIds = new ArrayList<String>();
         //遍历用户角色集合，获取用户具有自定义权限的角色，并添加到scopeCustomIds集合中
         user.getRoles().forEach(role -> {
-            if (DATA_SCOPE_CUSTOM.equals(role.getDataScope()) && StringUtils.equals(role.getStatus(), UserConstants.ROLE_NORMAL) && StringUtils.containsAny(role.getPermissions(), Convert.toStrArray(permission)))
+            if (DATA_SCOPE_CUSTOM.equals(role.getDataScope()) && StringUtils.equals(role.getStatus(), UserConstants.ROLE_NORMAL) && permitted.test(role))
             {
                 scopeCustomIds.add(Convert.toStr(role.getRoleId()));
             }
@@ -121,7 +141,7 @@ public class DataScopeAspect
                 continue;
             }
             //如果当前角色没有权限，则跳过循环
-            if (!StringUtils.containsAny(role.getPermissions(), Convert.toStrArray(permission)))
+            if (!permitted.test(role))
             {
                 continue;
             }
@@ -1,6 +1,5 @@
 package com.cms.framework.aspectj;
 
-import com.alibaba.fastjson2.JSON;
 import com.cms.common.annotation.Log;
 import com.cms.common.core.domain.entity.SysUser;
 import com.cms.common.core.domain.model.LoginUser;
@@ -11,9 +10,9 @@ import com.cms.common.utils.SecurityUtils;
 import com.cms.common.utils.ServletUtils;
 import com.cms.common.utils.StringUtils;
 import com.cms.common.utils.ip.IpUtils;
+import com.cms.common.utils.serializer.BoundedJson;
 import com.cms.common.utils.uuid.IdGenerator;
-import com.cms.framework.manager.AsyncManager;
-import com.cms.framework.manager.factory.AsyncFactory;
+import com.cms.framework.manager.OperLogPipeline;
 import com.cms.common.core.domain.entity.SysOperLog;
 import org.apache.commons.lang3.ArrayUtils;
 import org.aspectj.lang.JoinPoint;
@@ -23,6 +22,8 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.NamedThreadLocal;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.BindingResult;
@@ -30,8 +31,13 @@ import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * 操作日志记录处理切面类：（自定义注解Log）
@@ -48,9 +54,26 @@ public class LogAspect
     /** 排除敏感属性字段 */
     public static final String[] EXCLUDE_PROPERTIES = { "password", "oldPassword", "newPassword", "confirmPassword" };
 
+    /** 请求参数与返回结果保留的最大长度 */
+    private static final int MAX_PARAM_LENGTH = 2000;
+
+    /** 返回结果序列化过滤器（只限制长度） */
+    private static final PropertyPreExcludeFilter RESULT_FILTER = new PropertyPreExcludeFilter().maxLength(MAX_PARAM_LENGTH);
+
+    /** 按排除字段缓存的参数过滤器 */
+    private static final Map<List<String>, PropertyPreExcludeFilter> FILTER_CACHE = new ConcurrentHashMap<>();
+
     /** 计算操作消耗时间 */
     private static final ThreadLocal<Long> TIME_THREADLOCAL = new NamedThreadLocal<Long>("Cost Time");
 
+    /** 操作日志写入管道 */
+    @Autowired
+    private OperLogPipeline operLogPipeline;
+
+    /** 是否由写入线程序列化请求参数与返回结果 */
+    @Value("${operlog.deferSerialization:true}")
+    private boolean deferSerialization;
+
     /**
      * （前置通知）处理请求前执行
      */
@@ -93,6 +116,7 @@ public class LogAspect
      */
     protected void handleLog(final JoinPoint joinPoint, Log controllerLog, final Exception e, Object jsonResult)
     {
+        long start = System.nanoTime();
         try
         {
             // 获取当前的用户，如果为空，则代表为匿名用户（通过SecurityUtils）
@@ -128,11 +152,11 @@ public class LogAspect
             // 设置请求方式
             operLog.setRequestMethod(ServletUtils.getRequest().getMethod());
             // 处理设置注解上的参数
-            getControllerMethodDescription(joinPoint, controllerLog, operLog, jsonResult);
+            Consumer<SysOperLog> deferred = getControllerMethodDescription(joinPoint, controllerLog, operLog, jsonResult);
             // 设置消耗时间：当前时间-开始时间=消耗时间
             operLog.setCostTime(System.currentTimeMillis() - TIME_THREADLOCAL.get());
-            // 将操作日志保存数据库（异步线程记录日志）
-            AsyncManager.me().execute(AsyncFactory.recordOper(operLog));
+            // 将操作日志放入写入管道（批量异步落库）
+            operLogPipeline.offer(operLog, deferred);
         }
         catch (Exception exp)
         {
@@ -143,6 +167,7 @@ public class LogAspect
         finally
         {
             TIME_THREADLOCAL.remove();//清理操作：清理线程变量
+            operLogPipeline.recordCaptureTime(System.nanoTime() - start);
         }
     }
 
@@ -150,9 +175,10 @@ public class LogAspect
      * 获取注解中对方法的描述信息 用于Controller层注解
      * @param log 日志
      * @param operLog 操作日志
+     * @return 需要在写入线程执行的参数与结果序列化，无需序列化或已在当前线程完成时返回null
      * @throws Exception
      */
-    public void getControllerMethodDescription(JoinPoint joinPoint, Log log, SysOperLog operLog, Object jsonResult) throws Exception
+    public Consumer<SysOperLog> getControllerMethodDescription(JoinPoint joinPoint, Log log, SysOperLog operLog, Object jsonResult) throws Exception
     {
         // 设置action动作
         operLog.setBusinessType(log.businessType().ordinal());
@@ -160,71 +186,101 @@ public class LogAspect
         operLog.setTitle(log.title());
         // 设置操作人类别
         operLog.setOperatorType(log.operatorType().ordinal());
+        PropertyPreExcludeFilter filter = excludePropertyPreFilter(log.excludeParamNames());
         // 是否需要保存request，参数和值
+        List<Object> args = null;
         if (log.isSaveRequestData())
         {
             // 获取参数的信息，传入到数据库中。
-            setRequestValue(joinPoint, operLog, log.excludeParamNames());
+            args = setRequestValue(joinPoint, operLog, filter);
         }
         // 是否需要保存response，参数和值
-        if (log.isSaveResponseData() && StringUtils.isNotNull(jsonResult))
+        Object result = log.isSaveResponseData() ? jsonResult : null;
+        if (args == null && result == null)
         {
-            operLog.setJsonResult(StringUtils.substring(JSON.toJSONString(jsonResult), 0, 2000));
+            return null;
         }
+        // 请求体参数与返回结果在控制器返回后不再被修改，可交给写入线程序列化
+        final List<Object> requestArgs = args;
+        Consumer<SysOperLog> serializer = target -> {
+            if (requestArgs != null)
+            {
+                target.setOperParam(argsArrayToString(requestArgs, filter));
+            }
+            if (result != null)
+            {
+                target.setJsonResult(BoundedJson.toJSONString(result, RESULT_FILTER));
+            }
+        };
+        if (deferSerialization)
+        {
+            return serializer;
+        }
+        serializer.accept(operLog);
+        return null;
     }
 
     /**
      * 获取请求的参数，放到log中
+     * 表单参数在当前线程序列化（请求对象处理完后会被容器回收）；请求体参数过滤后返回，由调用方决定序列化时机。
      * @param operLog 操作日志
+     * @return 需要序列化的请求体参数，没有时返回null
      * @throws Exception 异常
      */
-    private void setRequestValue(JoinPoint joinPoint, SysOperLog operLog, String[] excludeParamNames) throws Exception
+    private List<Object> setRequestValue(JoinPoint joinPoint, SysOperLog operLog, PropertyPreExcludeFilter filter) throws Exception
     {
         Map<?, ?> paramsMap = ServletUtils.getParamMap(ServletUtils.getRequest());
         String requestMethod = operLog.getRequestMethod();
         if (StringUtils.isEmpty(paramsMap) && StringUtils.equalsAny(requestMethod, HttpMethod.PUT.name(), HttpMethod.POST.name(), HttpMethod.DELETE.name()))
         {
-            String params = argsArrayToString(joinPoint.getArgs(), excludeParamNames);
-            operLog.setOperParam(StringUtils.substring(params, 0, 2000));
-        }
-        else
-        {
-            operLog.setOperParam(StringUtils.substring(JSON.toJSONString(paramsMap, excludePropertyPreFilter(excludeParamNames)), 0, 2000));
+            List<Object> args = new ArrayList<>();
+            Object[] paramsArray = joinPoint.getArgs();
+            if (paramsArray != null)
+            {
+                for (Object o : paramsArray)
+                {
+                    if (StringUtils.isNotNull(o) && !isFilterObject(o))
+                    {
+                        args.add(o);
+                    }
+                }
+            }
+            return args.isEmpty() ? null : args;
         }
+        operLog.setOperParam(BoundedJson.toJSONString(paramsMap, filter));
+        return null;
     }
 
     /**
      * 参数拼装
      */
-    private String argsArrayToString(Object[] paramsArray, String[] excludeParamNames)
+    private String argsArrayToString(List<Object> paramsArray, PropertyPreExcludeFilter filter)
     {
-        String params = "";
-        if (paramsArray != null && paramsArray.length > 0)
+        StringBuilder params = new StringBuilder();
+        for (Object o : paramsArray)
         {
-            for (Object o : paramsArray)
+            if (params.length() >= MAX_PARAM_LENGTH)
+            {
+                break;
+            }
+            try
+            {
+                params.append(BoundedJson.toJSONString(o, filter)).append(' ');
+            }
+            catch (Exception e)
             {
-                if (StringUtils.isNotNull(o) && !isFilterObject(o))
-                {
-                    try
-                    {
-                        String jsonObj = JSON.toJSONString(o, excludePropertyPreFilter(excludeParamNames));
-                        params += jsonObj.toString() + " ";
-                    }
-                    catch (Exception e)
-                    {
-                    }
-                }
             }
         }
-        return params.trim();
+        return StringUtils.substring(params.toString().trim(), 0, MAX_PARAM_LENGTH);
     }
 
     /**
-     * 忽略敏感属性
+     * 忽略敏感属性，同一组排除字段共用一个过滤器
      */
     public PropertyPreExcludeFilter excludePropertyPreFilter(String[] excludeParamNames)
     {
-        return new PropertyPreExcludeFilter().addExcludes(ArrayUtils.addAll(EXCLUDE_PROPERTIES, excludeParamNames));
+        return FILTER_CACHE.computeIfAbsent(Arrays.asList(excludeParamNames), key -> new PropertyPreExcludeFilter()
+                .addExcludes(ArrayUtils.addAll(EXCLUDE_PROPERTIES, excludeParamNames)).maxLength(MAX_PARAM_LENGTH));
     }
 
     /**
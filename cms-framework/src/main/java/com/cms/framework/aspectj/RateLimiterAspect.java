@@ -1,6 +1,7 @@
 package com.cms.framework.aspectj;
 
 import com.cms.common.annotation.RateLimiter;
+import com.cms.common.core.cache.LocalCache;
 import com.cms.common.enums.LimitType;
 import com.cms.common.exception.ServiceException;
 import com.cms.common.utils.StringUtils;
@@ -13,16 +14,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 限流处理切面类：（自定义注解RateLimiter）
  * 用于限流控制，通过Redis实现
+ * 支持固定窗口、滑动窗口与令牌桶三种算法（见 LimitAlgorithm），令牌桶模式下各节点批量租用令牌，大部分请求不访问Redis
  * @author quoteZZZ
  */
 @Aspect
@@ -38,6 +44,58 @@ public class RateLimiterAspect
     // RedisScript对象
     private RedisScript<Long> limitScript;
 
+    // 滑动窗口脚本：有序集合记录窗口内每次请求的时间，返回加上本次后的请求数（被拒绝的请求不记录）
+    private static final DefaultRedisScript<Long> SLIDING_WINDOW_SCRIPT = new DefaultRedisScript<>(
+            "redis.replicate_commands()\n" +
+            "local key = KEYS[1]\n" +
+            "local count = tonumber(ARGV[1])\n" +
+            "local window = tonumber(ARGV[2])\n" +
+            "local t = redis.call('time')\n" +
+            "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)\n" +
+            "redis.call('zremrangebyscore', key, 0, now - window)\n" +
+            "local current = redis.call('zcard', key)\n" +
+            "if current >= count then\n" +
+            "    return current + 1\n" +
+            "end\n" +
+            "redis.call('zadd', key, now, now .. '-' .. ARGV[3])\n" +
+            "redis.call('pexpire', key, window)\n" +
+            "return current + 1", Long.class);
+
+    // 令牌桶脚本：按 count/period 的速率补充令牌，容量为count；返回 {租到的令牌数, 无令牌时距下一个令牌的毫秒数}
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            "redis.replicate_commands()\n" +
+            "local key = KEYS[1]\n" +
+            "local capacity = tonumber(ARGV[1])\n" +
+            "local period = tonumber(ARGV[2])\n" +
+            "local want = tonumber(ARGV[3])\n" +
+            "local t = redis.call('time')\n" +
+            "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)\n" +
+            "local bucket = redis.call('hmget', key, 'tokens', 'ts')\n" +
+            "local tokens = tonumber(bucket[1])\n" +
+            "local ts = tonumber(bucket[2])\n" +
+            "if not tokens or not ts then\n" +
+            "    tokens = capacity\n" +
+            "    ts = now\n" +
+            "end\n" +
+            "local rate = capacity / period\n" +
+            "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)\n" +
+            "local granted = math.min(want, math.floor(tokens))\n" +
+            "tokens = tokens - granted\n" +
+            "redis.call('hmset', key, 'tokens', tostring(tokens), 'ts', tostring(now))\n" +
+            "redis.call('pexpire', key, period * 2)\n" +
+            "local wait = 0\n" +
+            "if granted == 0 then\n" +
+            "    wait = math.ceil((1 - tokens) / rate)\n" +
+            "end\n" +
+            "return {granted, wait}", List.class);
+
+    // 本节点租到的令牌，按限流key保存
+    private final LocalCache<String, LocalBucket> localBuckets = new LocalCache<>(10000, TimeUnit.HOURS.toMillis(1));
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
     // 注入RedisTemplate对象
     @Autowired
     public void setRedisTemplate1(RedisTemplate<Object, Object> redisTemplate)
@@ -60,24 +118,86 @@ public class RateLimiterAspect
         int count = rateLimiter.count();// 最大访问次数
 
         String combineKey = getCombineKey(rateLimiter, point);// 获取注解中定义的key
-        List<Object> keys = Collections.singletonList(combineKey);// 将key放入List集合中
+        boolean allowed;
         try
         {
-            Long number = redisTemplate.execute(limitScript, keys, count, time);// 执行RedisScript脚本，获取访问次数
-            if (StringUtils.isNull(number) || number.intValue() > count)// 如果访问次数大于最大访问次数，则抛出异常
+            switch (rateLimiter.algorithm())
             {
-                throw new ServiceException("访问过于频繁，请稍候再试");// 抛出异常
+                case SLIDING_WINDOW:
+                    allowed = acquireSlidingWindow(combineKey, count, time);
+                    break;
+                case TOKEN_BUCKET:
+                    allowed = acquireTokenBucket(combineKey, count, time, rateLimiter.lease());
+                    break;
+                default:
+                    allowed = acquireFixedWindow(combineKey, count, time);
+                    break;
             }
-            log.info("限制请求'{}',当前请求'{}',缓存key'{}'", count, number.intValue(), combineKey);// 记录日志
-        }
-        catch (ServiceException e)
-        {
-            throw e;// 抛出异常
         }
         catch (Exception e)
         {
+            log.error("限流检查失败，缓存key'{}'", combineKey, e);
             throw new RuntimeException("服务器限流异常，请稍候再试");// 抛出异常
         }
+        if (!allowed)// 超过最大访问次数，则抛出异常
+        {
+            throw new ServiceException("访问过于频繁，请稍候再试");// 抛出异常
+        }
+    }
+
+    // 固定窗口计数
+    private boolean acquireFixedWindow(String combineKey, int count, int time)
+    {
+        List<Object> keys = Collections.singletonList(combineKey);// 将key放入List集合中
+        Long number = redisTemplate.execute(limitScript, keys, count, time);// 执行RedisScript脚本，获取访问次数
+        log.debug("限制请求'{}',当前请求'{}',缓存key'{}'", count, number, combineKey);// 记录日志
+        return StringUtils.isNotNull(number) && number.intValue() <= count;
+    }
+
+    // 滑动窗口日志
+    private boolean acquireSlidingWindow(String combineKey, int count, int time)
+    {
+        String member = Long.toHexString(ThreadLocalRandom.current().nextLong());// 同一毫秒内的请求用随机成员区分
+        Long number = stringRedisTemplate.execute(SLIDING_WINDOW_SCRIPT, Collections.singletonList(combineKey + ":sliding"),
+                String.valueOf(count), String.valueOf(time * 1000L), member);
+        log.debug("限制请求'{}',当前请求'{}',缓存key'{}'", count, number, combineKey);// 记录日志
+        return StringUtils.isNotNull(number) && number.intValue() <= count;
+    }
+
+    // 令牌桶：优先使用本节点租到的令牌，用完后向Redis批量租用
+    private boolean acquireTokenBucket(String combineKey, int count, int time, int lease)
+    {
+        // 取桶与建桶一次完成，同一个key的并发请求共用一个桶，不会各自租用令牌
+        LocalBucket bucket = localBuckets.computeIfAbsent(combineKey, key -> new LocalBucket());
+        long periodMillis = time * 1000L;
+        synchronized (bucket)
+        {
+            long now = System.currentTimeMillis();
+            if (bucket.permits > 0 && now < bucket.expireAt)
+            {
+                bucket.permits--;
+                return true;
+            }
+            if (now < bucket.blockedUntil)// Redis中暂无令牌，到下一个令牌生成前直接拒绝
+            {
+                return false;
+            }
+            int size = lease > 0 ? Math.min(lease, count) : Math.max(1, count / 10);
+            List<?> result = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT, Collections.singletonList(combineKey + ":bucket"),
+                    String.valueOf(count), String.valueOf(periodMillis), String.valueOf(size));
+            long granted = ((Number) result.get(0)).longValue();
+            log.debug("租用令牌'{}',获得'{}',缓存key'{}'", size, granted, combineKey);// 记录日志
+            if (granted <= 0)
+            {
+                bucket.permits = 0;
+                bucket.blockedUntil = now + ((Number) result.get(1)).longValue();
+                return false;
+            }
+            // 租到的令牌最多保留一个周期，避免长期闲置后集中放行
+            bucket.permits = (int) granted - 1;
+            bucket.expireAt = now + periodMillis;
+            return true;
+        }
     }
 
     // 获取注解中定义的key
@@ -94,4 +214,19 @@ public class RateLimiterAspect
         stringBuffer.append(targetClass.getName()).append("-").append(method.getName());// 将类名和方法名拼接到StringBuffer对象中
         return stringBuffer.toString();// 返回StringBuffer对象
     }
+
+    /**
+     * 本节点持有的令牌，只在同步块中读写
+     */
+    private static final class LocalBucket
+    {
+        // 剩余令牌数
+        private int permits;
+
+        // 令牌失效时间
+        private long expireAt;
+
+        // Redis无令牌时，本地直接拒绝到该时间
+        private long blockedUntil;
+    }
 }
@@ -0,0 +1,118 @@
+package com.cms.framework.config;
+
+import com.cms.RabbitMQ.MQRegistrConsumerHelper;
+import com.cms.RabbitMQ.MQScoreConsumerHelper;
+import com.cms.common.constant.MqConstants;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ配置类：
+ * 声明评分事件、缓冲报名的交换机、队列与绑定关系，并注册批量消费的监听容器
+ * @author quoteZZZ
+ **/
+@Configuration
+public class RabbitMQConfig
+{
+    // 单批次最多合并的评分事件数
+    private int scoreBatchSize = 100;
+
+    // 批次收集窗口（毫秒），窗口内无新消息则提前提交当前批次
+    private long scoreBatchWindowMillis = 500;
+
+    // 缓冲报名单批次最大写入数
+    private int registrBatchSize = 200;
+
+    // 缓冲报名批次收集窗口（毫秒）
+    private long registrBatchWindowMillis = 200;
+
+    // 评分事件交换机
+    @Bean
+    public DirectExchange scoreExchange()
+    {
+        return new DirectExchange(MqConstants.SCORE_EXCHANGE, true, false);
+    }
+
+    // 评分事件队列（持久化）
+    @Bean
+    public Queue scoreQueue()
+    {
+        return QueueBuilder.durable(MqConstants.SCORE_QUEUE).build();
+    }
+
+    // 评分事件绑定
+    @Bean
+    public Binding scoreBinding()
+    {
+        return BindingBuilder.bind(scoreQueue()).to(scoreExchange()).with(MqConstants.SCORE_ROUTING_KEY);
+    }
+
+    /**
+     * 评分事件监听容器：
+     * 手动确认、批量消费，单消费者保证同一报名的重算不会并发执行
+     */
+    @Bean
+    public SimpleMessageListenerContainer scoreListenerContainer(ConnectionFactory connectionFactory,
+                                                                 MQScoreConsumerHelper scoreConsumerHelper)
+    {
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueueNames(MqConstants.SCORE_QUEUE);
+        container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        container.setConsumerBatchEnabled(true);
+        container.setBatchSize(scoreBatchSize);
+        container.setPrefetchCount(scoreBatchSize * 2);
+        container.setReceiveTimeout(scoreBatchWindowMillis);
+        container.setConcurrentConsumers(1);
+        container.setMessageListener(scoreConsumerHelper);
+        return container;
+    }
+
+    // 缓冲报名交换机
+    @Bean
+    public DirectExchange registrExchange()
+    {
+        return new DirectExchange(MqConstants.REGISTR_EXCHANGE, true, false);
+    }
+
+    // 缓冲报名队列（持久化）
+    @Bean
+    public Queue registrQueue()
+    {
+        return QueueBuilder.durable(MqConstants.REGISTR_QUEUE).build();
+    }
+
+    // 缓冲报名绑定
+    @Bean
+    public Binding registrBinding()
+    {
+        return BindingBuilder.bind(registrQueue()).to(registrExchange()).with(MqConstants.REGISTR_ROUTING_KEY);
+    }
+
+    /**
+     * 缓冲报名监听容器：
+     * 手动确认、批量消费，单消费者保证批量事务之间不互相争用行锁
+     */
+    @Bean
+    public SimpleMessageListenerContainer registrListenerContainer(ConnectionFactory connectionFactory,
+                                                                   MQRegistrConsumerHelper registrConsumerHelper)
+    {
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueueNames(MqConstants.REGISTR_QUEUE);
+        container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        container.setConsumerBatchEnabled(true);
+        container.setBatchSize(registrBatchSize);
+        container.setPrefetchCount(registrBatchSize * 2);
+        container.setReceiveTimeout(registrBatchWindowMillis);
+        container.setConcurrentConsumers(1);
+        container.setMessageListener(registrConsumerHelper);
+        return container;
+    }
+}
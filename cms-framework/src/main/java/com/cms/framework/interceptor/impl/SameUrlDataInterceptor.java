@@ -1,42 +1,42 @@
 package com.cms.framework.interceptor.impl;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import javax.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
-import com.alibaba.fastjson2.JSON;
 import com.cms.common.annotation.RepeatSubmit;
 import com.cms.common.constant.CacheConstants;
-import com.cms.common.redis.RedisCacheUtil;
 import com.cms.common.filter.RepeatedlyRequestWrapper;
 import com.cms.common.utils.StringUtils;
-import com.cms.common.utils.http.HttpHelper;
 import com.cms.framework.interceptor.RepeatSubmitInterceptor;
 
 /**
  * 验证是否重复提交拦截器（具体实现类）：
  * 主要用途：
  * 防止客户端在短时间内重复提交相同的数据（如表单提交）。
- * 通过对比上一次提交的请求地址、参数和时间，实现重复提交的检测和拦截。
  * 实现逻辑：
- * 使用 Redis 缓存存储请求的参数和提交时间。
- * 对比当前请求和缓存中存储的上一次请求：
- * 参数是否相同：通过请求体（body）或参数列表进行比对。
- * 时间间隔是否小于设定的间隔时间：默认有效时间为 10 秒。
- * 如果两者均满足，则认定为重复提交，拦截本次请求。
+ * 对 请求地址 + 消息头令牌 + 请求体（请求体为空时使用请求参数）计算SHA-256摘要，
+ * 以摘要为key执行一次 SET NX PX interval：
+ * 写入成功说明间隔时间内没有相同的提交，放行；key已存在则认定为重复提交，拦截本次请求。
+ * Redis中只保存摘要key，不保存请求内容，判断只需一次往返。
  * @author quoteZZZ
  */
 @Component
 public class SameUrlDataInterceptor extends RepeatSubmitInterceptor
 {
-    // 参数和消息键值对
-    public final String REPEAT_PARAMS = "repeatParams";
+    // 摘要各部分之间的分隔字节
+    private static final byte SEPARATOR = 0;
 
-    // 参数和消息键值对
-    public final String REPEAT_TIME = "repeatTime";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
 
     // 令牌自定义标识
     @Value("${token.header}")
@@ -44,78 +44,107 @@ public class SameUrlDataInterceptor extends RepeatSubmitInterceptor
 
     // redis缓存
     @Autowired
-    private RedisCacheUtil redisCacheUtil;
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 判断次数与耗时
+    private final LongAdder checks = new LongAdder();
+
+    private final LongAdder repeats = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
 
     // 拦截器方法
-    @SuppressWarnings("unchecked")
     @Override
     public boolean isRepeatSubmit(HttpServletRequest request, RepeatSubmit annotation)
     {
-        String nowParams = "";
-        if (request instanceof RepeatedlyRequestWrapper)
+        long start = System.nanoTime();
+        try
         {
-            RepeatedlyRequestWrapper repeatedlyRequest = (RepeatedlyRequestWrapper) request;
-            nowParams = HttpHelper.getBodyString(repeatedlyRequest);
+            // 唯一标识（指定key + 请求地址、消息头与参数的摘要）
+            String cacheRepeatKey = CacheConstants.REPEAT_SUBMIT_KEY + digest(request);
+            Boolean absent = stringRedisTemplate.opsForValue().setIfAbsent(cacheRepeatKey, "1", annotation.interval(), TimeUnit.MILLISECONDS);
+            boolean repeat = !Boolean.TRUE.equals(absent);
+            if (repeat)
+            {
+                repeats.increment();
+            }
+            return repeat;
         }
-
-        // body参数为空，获取Parameter的数据
-        if (StringUtils.isEmpty(nowParams))
+        finally
         {
-            nowParams = JSON.toJSONString(request.getParameterMap());
+            long nanos = System.nanoTime() - start;
+            checks.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
         }
-        Map<String, Object> nowDataMap = new HashMap<String, Object>();
-        nowDataMap.put(REPEAT_PARAMS, nowParams);
-        nowDataMap.put(REPEAT_TIME, System.currentTimeMillis());
-
-        // 请求地址（作为存放cache的key值）
-        String url = request.getRequestURI();
-
-        // 唯一值（没有消息头则使用请求地址）
-        String submitKey = StringUtils.trimToEmpty(request.getHeader(header));
+    }
 
-        // 唯一标识（指定key + url + 消息头）
-        String cacheRepeatKey = CacheConstants.REPEAT_SUBMIT_KEY + url + submitKey;
+    /**
+     * 查询判断统计
+     * @return 统计信息
+     */
+    public Map<String, Object> getMetrics()
+    {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long count = checks.sum();
+        metrics.put("checks", count);
+        metrics.put("repeats", repeats.sum());
+        metrics.put("avgMicros", count == 0 ? 0 : totalNanos.sum() / count / 1000);
+        metrics.put("maxMicros", maxNanos.get() / 1000);
+        return metrics;
+    }
 
-        Object sessionObj = redisCacheUtil.getCacheObject(cacheRepeatKey);
-        if (sessionObj != null)
+    /**
+     * 计算 请求地址 + 消息头令牌 + 请求体（或请求参数）的摘要
+     */
+    private String digest(HttpServletRequest request)
+    {
+        MessageDigest md = sha256();
+        md.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+        md.update(SEPARATOR);
+        md.update(StringUtils.trimToEmpty(request.getHeader(header)).getBytes(StandardCharsets.UTF_8));
+        md.update(SEPARATOR);
+        byte[] body = request instanceof RepeatedlyRequestWrapper ? ((RepeatedlyRequestWrapper) request).getBody() : null;
+        if (body != null && body.length > 0)
+        {
+            md.update(body);
+        }
+        else
         {
-            Map<String, Object> sessionMap = (Map<String, Object>) sessionObj;
-            if (sessionMap.containsKey(url))
+            // body参数为空，使用Parameter的数据
+            for (Map.Entry<String, String[]> entry : request.getParameterMap().entrySet())
             {
-                Map<String, Object> preDataMap = (Map<String, Object>) sessionMap.get(url);
-                if (compareParams(nowDataMap, preDataMap) && compareTime(nowDataMap, preDataMap, annotation.interval()))
+                md.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                for (String value : entry.getValue())
                 {
-                    return true;
+                    md.update(SEPARATOR);
+                    md.update(StringUtils.nvl(value, "").getBytes(StandardCharsets.UTF_8));
                 }
+                md.update(SEPARATOR);
+                md.update(SEPARATOR);
             }
         }
-        Map<String, Object> cacheMap = new HashMap<String, Object>();
-        cacheMap.put(url, nowDataMap);
-        redisCacheUtil.setCacheObject(cacheRepeatKey, cacheMap, annotation.interval(), TimeUnit.MILLISECONDS);
-        return false;
-    }
-
-    /**
-     * 判断参数是否相同
-     */
-    private boolean compareParams(Map<String, Object> nowMap, Map<String, Object> preMap)
-    {
-        String nowParams = (String) nowMap.get(REPEAT_PARAMS);
-        String preParams = (String) preMap.get(REPEAT_PARAMS);
-        return nowParams.equals(preParams);
+        byte[] hash = md.digest();
+        char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++)
+        {
+            chars[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(chars);
     }
 
-    /**
-     * 判断两次间隔时间
-     */
-    private boolean compareTime(Map<String, Object> nowMap, Map<String, Object> preMap, int interval)
+    private static MessageDigest sha256()
     {
-        long time1 = (Long) nowMap.get(REPEAT_TIME);
-        long time2 = (Long) preMap.get(REPEAT_TIME);
-        if ((time1 - time2) < interval)
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
         {
-            return true;
+            throw new IllegalStateException(e);
         }
-        return false;
     }
 }
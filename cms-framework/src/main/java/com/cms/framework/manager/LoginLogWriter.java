@@ -0,0 +1,366 @@
+package com.cms.framework.manager;
+
+import com.cms.common.constant.Constants;
+import com.cms.common.core.domain.entity.SysLogininfor;
+import com.cms.common.utils.DateUtils;
+import com.cms.common.utils.LogUtils;
+import com.cms.common.utils.ServletUtils;
+import com.cms.common.utils.StringUtils;
+import com.cms.common.utils.http.UserAgentUtils;
+import com.cms.common.utils.ip.AddressUtils;
+import com.cms.common.utils.ip.IpUtils;
+import com.cms.system.service.ISysLogininforService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登录日志写入器：
+ * 登录、退出、注册与登录失败事件由调用方带上已知的用户ID、部门ID，在请求线程采集IP与浏览器信息后放入有界队列，
+ * 单个写入线程按批限时查询登录地点并批量插入，批量失败时逐条重写，不再按用户名回查用户表。
+ * 同一用户名与IP在统计窗口内的登录失败超过阈值后不再逐条写入，窗口结束时合并为一条记录；
+ * 失败计数的键数有上限，达到上限后新的用户名与IP不再计数而是逐条写入，由有界队列兜底。
+ * @author quoteZZZ
+ */
+@Component
+public class LoginLogWriter
+{
+    private static final Logger log = LoggerFactory.getLogger(LoginLogWriter.class);
+
+    private static final Logger sys_user_logger = LoggerFactory.getLogger("sys-user");
+
+    // 提示消息最大长度
+    private static final int MAX_MSG_LENGTH = 255;
+
+    // 关闭时等待写完剩余日志的最长时间（毫秒）
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+    // 队列容量
+    @Value("${loginlog.queueCapacity:10000}")
+    private int queueCapacity;
+
+    // 单批最大条数
+    @Value("${loginlog.batchSize:200}")
+    private int batchSize;
+
+    // 攒批最长等待时间（毫秒）
+    @Value("${loginlog.flushMillis:1000}")
+    private long flushMillis;
+
+    // 同一用户名与IP在窗口内逐条记录的失败次数
+    @Value("${loginlog.failThreshold:5}")
+    private int failThreshold;
+
+    // 登录失败统计窗口（秒）
+    @Value("${loginlog.failWindowSeconds:60}")
+    private int failWindowSeconds;
+
+    // 同时统计的用户名与IP组合上限
+    @Value("${loginlog.maxFailureKeys:10000}")
+    private int maxFailureKeys;
+
+    // 单批查询登录地点的最长等待时间（毫秒），超时的记为未知
+    @Value("${loginlog.addressTimeoutMillis:1000}")
+    private long addressTimeoutMillis;
+
+    @Autowired
+    private ISysLogininforService logininforService;
+
+    private BlockingQueue<SysLogininfor> queue;
+
+    // 用户名|IP 到当前窗口失败计数，键数不超过 maxFailureKeys，窗口到期后由写入线程清除
+    private final Map<String, FailureCounter> failures = new ConcurrentHashMap<>();
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    private final AtomicLong accepted = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong merged = new AtomicLong();
+
+    private final AtomicLong untracked = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    public void init()
+    {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        running = true;
+        worker = new Thread(this::runWorker, "login-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 记录登录日志，在请求线程调用
+     * @param username 用户名
+     * @param userId 用户ID，未知时为null
+     * @param deptId 部门ID，未知时为null
+     * @param status 登录状态
+     * @param message 提示消息
+     * @param args 日志参数
+     */
+    public void record(String username, Long userId, Long deptId, String status, String message, Object... args)
+    {
+        UserAgentUtils.Client userAgent = UserAgentUtils.parse(ServletUtils.getRequest().getHeader("User-Agent"));
+        String ip = IpUtils.getIpAddr();
+        sys_user_logger.info(LogUtils.getBlock(ip) + LogUtils.getBlock(username) + LogUtils.getBlock(status) + LogUtils.getBlock(message), args);
+
+        SysLogininfor logininfor = new SysLogininfor();
+        logininfor.setUserName(username);
+        logininfor.setUserId(userId);
+        logininfor.setDeptId(deptId);
+        logininfor.setIpaddr(ip);
+        logininfor.setBrowser(userAgent.getBrowser());
+        logininfor.setOs(userAgent.getOs());
+        logininfor.setMsg(StringUtils.substring(message, 0, MAX_MSG_LENGTH));
+        logininfor.setLoginTime(DateUtils.getNowDate());
+        // 根据登录状态设置记录状态
+        if (StringUtils.equalsAny(status, Constants.LOGIN_SUCCESS, Constants.LOGOUT, Constants.REGISTER))
+        {
+            logininfor.setStatus(Constants.SUCCESS);
+        }
+        else if (Constants.LOGIN_FAIL.equals(status))
+        {
+            logininfor.setStatus(Constants.FAIL);
+            if (countFailure(logininfor))
+            {
+                merged.incrementAndGet();
+                return;
+            }
+        }
+        enqueue(logininfor);
+    }
+
+    /**
+     * 查询写入统计
+     * @return 统计信息
+     */
+    public Map<String, Object> getMetrics()
+    {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", queue.size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("accepted", accepted.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("mergedFailures", merged.get());
+        metrics.put("failureKeys", failures.size());
+        metrics.put("maxFailureKeys", maxFailureKeys);
+        metrics.put("untrackedFailures", untracked.get());
+        metrics.put("written", written.get());
+        metrics.put("failed", failed.get());
+        return metrics;
+    }
+
+    /**
+     * 停止接收日志，写出合并的失败记录与队列中剩余的日志
+     */
+    public void shutdown()
+    {
+        running = false;
+        if (worker == null)
+        {
+            return;
+        }
+        try
+        {
+            worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive())
+        {
+            log.warn("登录日志写入线程未在限定时间内结束，剩余 {} 条", queue.size());
+        }
+    }
+
+    /**
+     * 累计登录失败次数，计数键已满时新的用户名与IP不计数
+     * @return 是否超过阈值（超过时本条不单独写入）
+     */
+    private boolean countFailure(SysLogininfor logininfor)
+    {
+        boolean[] suppressed = new boolean[1];
+        failures.compute(logininfor.getUserName() + "|" + logininfor.getIpaddr(), (key, counter) -> {
+            if (counter == null)
+            {
+                if (failures.size() >= maxFailureKeys)
+                {
+                    untracked.incrementAndGet();
+                    return null;
+                }
+                counter = new FailureCounter(System.currentTimeMillis());
+            }
+            counter.count++;
+            if (counter.count > failThreshold)
+            {
+                counter.suppressed++;
+                counter.last = logininfor;
+                suppressed[0] = true;
+            }
+            return counter;
+        });
+        return suppressed[0];
+    }
+
+    /**
+     * 结束到期的失败统计窗口，被合并的失败写为一条记录
+     * @param force 是否结束全部窗口
+     */
+    private void sweepFailures(boolean force)
+    {
+        long expireBefore = System.currentTimeMillis() - failWindowSeconds * 1000L;
+        for (String key : failures.keySet())
+        {
+            failures.computeIfPresent(key, (k, counter) -> {
+                if (!force && counter.start > expireBefore)
+                {
+                    return counter;
+                }
+                if (counter.suppressed > 0)
+                {
+                    SysLogininfor summary = counter.last;
+                    summary.setMsg(StringUtils.substring(summary.getMsg() + "（" + failWindowSeconds + "秒内另有" + counter.suppressed + "次失败已合并）", 0, MAX_MSG_LENGTH));
+                    enqueue(summary);
+                }
+                return null;
+            });
+        }
+    }
+
+    private void enqueue(SysLogininfor logininfor)
+    {
+        if (queue.offer(logininfor))
+        {
+            accepted.incrementAndGet();
+        }
+        else
+        {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void runWorker()
+    {
+        List<SysLogininfor> batch = new ArrayList<>(batchSize);
+        while (running)
+        {
+            try
+            {
+                SysLogininfor first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first != null)
+                {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // 线程被中断时，已取出的日志照常写入
+            }
+            write(batch);
+            sweepFailures(false);
+        }
+        // 写出合并的失败记录与关闭前队列中剩余的日志
+        sweepFailures(true);
+        while (true)
+        {
+            queue.drainTo(batch, batchSize);
+            if (batch.isEmpty())
+            {
+                break;
+            }
+            write(batch);
+        }
+    }
+
+    private void write(List<SysLogininfor> batch)
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+        try
+        {
+            List<String> ips = new ArrayList<>(batch.size());
+            for (SysLogininfor logininfor : batch)
+            {
+                ips.add(logininfor.getIpaddr());
+            }
+            // 查询登录地点
+            Map<String, String> addresses = AddressUtils.getRealAddressByIPs(ips, addressTimeoutMillis);
+            for (SysLogininfor logininfor : batch)
+            {
+                logininfor.setLoginLocation(addresses.get(logininfor.getIpaddr()));
+            }
+            logininforService.insertLogininforBatch(batch);
+            written.addAndGet(batch.size());
+        }
+        catch (Exception e)
+        {
+            log.warn("登录日志批量写入失败，逐条重写，条数 {}", batch.size(), e);
+            writeEach(batch);
+        }
+        finally
+        {
+            batch.clear();
+        }
+    }
+
+    /**
+     * 逐条写入，只丢弃写入失败的日志
+     */
+    private void writeEach(List<SysLogininfor> batch)
+    {
+        for (SysLogininfor logininfor : batch)
+        {
+            try
+            {
+                logininforService.insertLogininfor(logininfor);
+                written.incrementAndGet();
+            }
+            catch (Exception e)
+            {
+                failed.incrementAndGet();
+                log.error("登录日志写入失败 {}", logininfor.getUserName(), e);
+            }
+        }
+    }
+
+    /**
+     * 单个用户名与IP在当前窗口内的失败计数，只在 ConcurrentHashMap 的 compute 中修改
+     */
+    private static class FailureCounter
+    {
+        private final long start;
+        private int count;
+        private int suppressed;
+        private SysLogininfor last;
+
+        private FailureCounter(long start)
+        {
+            this.start = start;
+        }
+    }
+}
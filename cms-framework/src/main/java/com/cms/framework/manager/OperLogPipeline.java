@@ -0,0 +1,361 @@
+package com.cms.framework.manager;
+
+import com.cms.common.core.domain.entity.SysOperLog;
+import com.cms.common.utils.DateUtils;
+import com.cms.common.utils.ip.AddressUtils;
+import com.cms.system.service.ISysOperLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 操作日志写入管道：
+ * 业务线程把操作日志放入有界队列后立即返回，队列满时按策略丢弃；
+ * 单个写入线程按条数或等待时间攒批，查询操作地点后一次多行插入，批量插入失败时逐条重写。
+ * 操作地点的在线查询每批最多等待 addressTimeoutMillis，超时的记为未知地址，不拖慢写入线程。
+ * 队列超过高水位且策略为 SAMPLE 时只保留部分日志，为突发流量留出余量。
+ * 请求参数与返回结果的序列化可随日志一起提交，由写入线程在落库前执行，不占用请求线程；被丢弃的日志不再序列化。
+ * 应用关闭时由 ShutdownManager 调用 shutdown，写完队列中剩余的日志。
+ * @author quoteZZZ
+ */
+@Component
+public class OperLogPipeline
+{
+    private static final Logger log = LoggerFactory.getLogger(OperLogPipeline.class);
+
+    /** 队列满时直接丢弃 */
+    public static final String POLICY_DROP = "DROP";
+
+    /** 超过高水位后按比例采样，队列满时丢弃 */
+    public static final String POLICY_SAMPLE = "SAMPLE";
+
+    // 队列容量
+    @Value("${operlog.queueCapacity:10000}")
+    private int queueCapacity;
+
+    // 单批最大条数
+    @Value("${operlog.batchSize:200}")
+    private int batchSize;
+
+    // 攒批最长等待时间（毫秒）
+    @Value("${operlog.flushMillis:500}")
+    private long flushMillis;
+
+    // 溢出策略：DROP 或 SAMPLE
+    @Value("${operlog.overflowPolicy:DROP}")
+    private String overflowPolicy;
+
+    // 采样策略下，超过高水位后每 N 条保留 1 条
+    @Value("${operlog.sampleRate:10}")
+    private int sampleRate;
+
+    // 每批查询操作地点的最长等待时间（毫秒）
+    @Value("${operlog.addressTimeoutMillis:1000}")
+    private long addressTimeoutMillis;
+
+    // 关闭时等待写完剩余日志的最长时间（毫秒）
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+    @Autowired
+    private ISysOperLogService operLogService;
+
+    private BlockingQueue<Pending> queue;
+
+    private int highWaterMark;
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    private final AtomicLong accepted = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong sampledOut = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    // 请求线程记录日志的耗时
+    private final LongAdder captureCount = new LongAdder();
+
+    private final LongAdder captureNanos = new LongAdder();
+
+    private final AtomicLong captureMaxNanos = new AtomicLong();
+
+    // 写入线程延后序列化的耗时
+    private final AtomicLong deferredCount = new AtomicLong();
+
+    private final AtomicLong deferredNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init()
+    {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        highWaterMark = queueCapacity * 8 / 10;
+        running = true;
+        worker = new Thread(this::runWorker, "oper-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 提交操作日志，不阻塞
+     * @param operLog 操作日志
+     * @return 是否进入队列
+     */
+    public boolean offer(SysOperLog operLog)
+    {
+        return offer(operLog, null);
+    }
+
+    /**
+     * 提交操作日志，不阻塞
+     * @param operLog 操作日志
+     * @param deferred 写入前在写入线程执行的处理（如序列化请求参数与返回结果），可为null
+     * @return 是否进入队列
+     */
+    public boolean offer(SysOperLog operLog, Consumer<SysOperLog> deferred)
+    {
+        if (operLog.getOperTime() == null)
+        {
+            operLog.setOperTime(DateUtils.getNowDate());
+        }
+        if (!running)
+        {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (POLICY_SAMPLE.equalsIgnoreCase(overflowPolicy) && queue.size() >= highWaterMark
+                && sampleCounter.incrementAndGet() % Math.max(1, sampleRate) != 0)
+        {
+            sampledOut.incrementAndGet();
+            return false;
+        }
+        if (queue.offer(new Pending(operLog, deferred)))
+        {
+            accepted.incrementAndGet();
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 记录请求线程处理一条操作日志的耗时
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordCaptureTime(long nanos)
+    {
+        captureCount.increment();
+        captureNanos.add(nanos);
+        captureMaxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * 查询管道统计
+     * @return 统计信息
+     */
+    public Map<String, Object> getMetrics()
+    {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", queue.size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("overflowPolicy", overflowPolicy);
+        metrics.put("accepted", accepted.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("sampledOut", sampledOut.get());
+        metrics.put("written", written.get());
+        metrics.put("failed", failed.get());
+        metrics.put("batches", batches.get());
+        long captures = captureCount.sum();
+        metrics.put("captureAvgMicros", captures == 0 ? 0 : captureNanos.sum() / captures / 1000);
+        metrics.put("captureMaxMicros", captureMaxNanos.get() / 1000);
+        long deferred = deferredCount.get();
+        metrics.put("deferredAvgMicros", deferred == 0 ? 0 : deferredNanos.get() / deferred / 1000);
+        return metrics;
+    }
+
+    /**
+     * 停止接收日志并写完队列中剩余的日志
+     */
+    public void shutdown()
+    {
+        running = false;
+        if (worker == null)
+        {
+            return;
+        }
+        try
+        {
+            worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive())
+        {
+            log.warn("操作日志写入线程未在限定时间内结束，剩余 {} 条", queue.size());
+        }
+    }
+
+    private void runWorker()
+    {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running)
+        {
+            try
+            {
+                Pending first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first == null)
+                {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushMillis;
+                while (batch.size() < batchSize)
+                {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || wait <= 0)
+                    {
+                        break;
+                    }
+                    Pending next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null)
+                    {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // 线程被中断时，已取出的日志照常写入
+            }
+            write(batch);
+        }
+        // 写完关闭前队列中剩余的日志
+        while (true)
+        {
+            queue.drainTo(batch, batchSize);
+            if (batch.isEmpty())
+            {
+                break;
+            }
+            write(batch);
+        }
+    }
+
+    private void write(List<Pending> batch)
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+        List<SysOperLog> operLogs = new ArrayList<>(batch.size());
+        try
+        {
+            List<String> ips = new ArrayList<>(batch.size());
+            for (Pending pending : batch)
+            {
+                if (pending.deferred != null)
+                {
+                    runDeferred(pending);
+                }
+                operLogs.add(pending.operLog);
+                ips.add(pending.operLog.getOperIp());
+            }
+            // 查询操作地点
+            Map<String, String> addresses = AddressUtils.getRealAddressByIPs(ips, addressTimeoutMillis);
+            for (SysOperLog operLog : operLogs)
+            {
+                operLog.setOperLocation(addresses.get(operLog.getOperIp()));
+            }
+            operLogService.insertOperlogBatch(operLogs);
+            written.addAndGet(operLogs.size());
+            batches.incrementAndGet();
+        }
+        catch (Exception e)
+        {
+            log.warn("操作日志批量写入失败，逐条重写，条数 {}", operLogs.size(), e);
+            writeEach(operLogs);
+        }
+        finally
+        {
+            batch.clear();
+        }
+    }
+
+    /**
+     * 逐条写入，只丢弃写入失败的日志
+     */
+    private void writeEach(List<SysOperLog> operLogs)
+    {
+        for (SysOperLog operLog : operLogs)
+        {
+            try
+            {
+                operLogService.insertOperlog(operLog);
+                written.incrementAndGet();
+            }
+            catch (Exception e)
+            {
+                failed.incrementAndGet();
+                log.error("操作日志写入失败 {}", operLog.getMethod(), e);
+            }
+        }
+    }
+
+    private void runDeferred(Pending pending)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            pending.deferred.accept(pending.operLog);
+        }
+        catch (Exception e)
+        {
+            // 序列化失败只影响参数与结果字段，日志照常写入
+            log.warn("操作日志参数序列化失败 {}", pending.operLog.getMethod(), e);
+        }
+        deferredNanos.addAndGet(System.nanoTime() - start);
+        deferredCount.incrementAndGet();
+    }
+
+    /**
+     * 队列中的日志与其延后处理
+     */
+    private static final class Pending
+    {
+        private final SysOperLog operLog;
+
+        private final Consumer<SysOperLog> deferred;
+
+        private Pending(SysOperLog operLog, Consumer<SysOperLog> deferred)
+        {
+            this.operLog = operLog;
+            this.deferred = deferred;
+        }
+    }
+}
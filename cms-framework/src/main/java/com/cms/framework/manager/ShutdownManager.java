@@ -2,6 +2,7 @@ package com.cms.framework.manager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import javax.annotation.PreDestroy;
 
@@ -16,13 +17,53 @@ public class ShutdownManager
     // 日志
     private static final Logger logger = LoggerFactory.getLogger("sys-user");
 
+    @Autowired
+    private OperLogPipeline operLogPipeline;
+
+    @Autowired
+    private LoginLogWriter loginLogWriter;
+
     // 关闭应用时执行
     @PreDestroy
     public void destroy()
     {
+        shutdownOperLogPipeline();
+        shutdownLoginLogWriter();
         shutdownAsyncManager();
     }
 
+    /**
+     * 写完队列中剩余的操作日志
+     */
+    private void shutdownOperLogPipeline()
+    {
+        try
+        {
+            logger.info("====关闭操作日志写入管道====");
+            operLogPipeline.shutdown();
+        }
+        catch (Exception e)
+        {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 写完队列中剩余的登录日志
+     */
+    private void shutdownLoginLogWriter()
+    {
+        try
+        {
+            logger.info("====关闭登录日志写入器====");
+            loginLogWriter.shutdown();
+        }
+        catch (Exception e)
+        {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
     /**
      * 停止异步执行任务
      */
@@ -7,8 +7,7 @@ import com.cms.common.core.domain.model.LoginUser;
 import com.cms.common.utils.MessageUtils;
 import com.cms.common.utils.ServletUtils;
 import com.cms.common.utils.StringUtils;
-import com.cms.framework.manager.AsyncManager;
-import com.cms.framework.manager.factory.AsyncFactory;
+import com.cms.framework.manager.LoginLogWriter;
 import com.cms.framework.web.service.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -31,6 +30,9 @@ public class LogoutSuccessHandlerImpl implements LogoutSuccessHandler
     @Autowired
     private TokenService tokenService;
 
+    @Autowired
+    private LoginLogWriter loginLogWriter;
+
     /**
      * 退出处理
      * 
@@ -49,8 +51,8 @@ public class LogoutSuccessHandlerImpl implements LogoutSuccessHandler
             String userName = loginUser.getUsername();
             // 删除用户缓存记录（redis里）
             tokenService.delLoginUser(loginUser.getToken());
-            // 记录用户退出日志，使用异步执行，避免阻塞主线程
-            AsyncManager.me().execute(AsyncFactory.recordLogininfor(userName, Constants.LOGOUT, MessageUtils.message("user.logout.success")));
+            // 记录用户退出日志，放入写入队列，避免阻塞主线程
+            loginLogWriter.record(userName, loginUser.getUserId(), loginUser.getDeptId(), Constants.LOGOUT, MessageUtils.message("user.logout.success"));
         }
         //返回成功响应：（返回Json格式的提示信息：user.logout.success在I18N的配置文件中）
         ServletUtils.renderString(response, JSON.toJSONString(AjaxResult.success(MessageUtils.message("user.logout.success"))));
@@ -0,0 +1,304 @@
+package com.cms.framework.web.service;
+
+import com.cms.common.core.domain.entity.SysDept;
+import com.cms.common.core.domain.entity.SysRole;
+import com.cms.common.core.domain.entity.SysUser;
+import com.cms.common.core.domain.model.LoginUser;
+import com.cms.common.utils.FastJson2JsonRedisSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 登录用户会话编码类：
+ * 用于把 LoginUser 编码为紧凑的二进制格式保存到 Redis，替代带类型信息的 JSON。
+ * 权限字符通过 PermissionDictionary 映射为编号后以位图保存，用户实体只保留过滤器、
+ * SecurityUtils、数据权限与个人信息接口需要的字段（不含竞赛、岗位等关联数据）。
+ * 格式：魔数 LU、格式版本、字典代次与版本，随后依次为登录信息、用户、部门与角色。
+ * 解码时识别旧的 JSON 格式，升级前创建的会话仍可读取。
+ * @author quoteZZZ
+ */
+@Component
+public class LoginUserCodec {
+
+    private static final byte MAGIC_0 = 'L';
+
+    private static final byte MAGIC_1 = 'U';
+
+    private static final byte FORMAT_VERSION = 1;
+
+    // 旧格式（JSON）会话的反序列化器
+    private static final FastJson2JsonRedisSerializer<LoginUser> LEGACY_SERIALIZER = new FastJson2JsonRedisSerializer<>(LoginUser.class);
+
+    @Autowired
+    private PermissionDictionary permissionDictionary;
+
+    /**
+     * 编码登录用户。
+     * @param loginUser 用户信息对象
+     * @return 编码后的字节数组
+     */
+    public byte[] encode(LoginUser loginUser) {
+        Set<String> perms = new HashSet<>();
+        if (loginUser.getPermissions() != null) {
+            perms.addAll(loginUser.getPermissions());
+        }
+        SysUser user = loginUser.getUser();
+        if (user != null && user.getRoles() != null) {
+            for (SysRole role : user.getRoles()) {
+                if (role.getPermissions() != null) {
+                    perms.addAll(role.getPermissions());
+                }
+            }
+        }
+        PermissionDictionary.Snapshot dict = permissionDictionary.intern(perms);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGIC_0);
+            out.writeByte(MAGIC_1);
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(dict.getEpoch());
+            out.writeInt(dict.getVersion());
+
+            writeLong(out, loginUser.getUserId());
+            writeLong(out, loginUser.getDeptId());
+            writeString(out, loginUser.getToken());
+            writeLong(out, loginUser.getLoginTime());
+            writeLong(out, loginUser.getExpireTime());
+            writeString(out, loginUser.getIpaddr());
+            writeString(out, loginUser.getLoginLocation());
+            writeString(out, loginUser.getBrowser());
+            writeString(out, loginUser.getOs());
+            writePerms(out, loginUser.getPermissions(), dict);
+            writeUser(out, user, dict);
+        } catch (IOException e) {
+            throw new IllegalStateException("登录用户编码失败", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解码登录用户，兼容旧的 JSON 格式。
+     * @param data 字节数组
+     * @return 用户信息对象，数据为空或权限字典已重建时返回null
+     */
+    public LoginUser decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (data.length < 3 || data[0] != MAGIC_0 || data[1] != MAGIC_1) {
+            return LEGACY_SERIALIZER.deserialize(data);
+        }
+        if (data[2] != FORMAT_VERSION) {
+            throw new IllegalStateException("不支持的登录用户编码格式：" + data[2]);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 3, data.length - 3))) {
+            String epoch = in.readUTF();
+            int version = in.readInt();
+            PermissionDictionary.Snapshot dict = permissionDictionary.resolve(epoch, version);
+            if (dict == null) {
+                return null;
+            }
+            LoginUser loginUser = new LoginUser();
+            loginUser.setUserId(readLong(in));
+            loginUser.setDeptId(readLong(in));
+            loginUser.setToken(readString(in));
+            loginUser.setLoginTime(readLong(in));
+            loginUser.setExpireTime(readLong(in));
+            loginUser.setIpaddr(readString(in));
+            loginUser.setLoginLocation(readString(in));
+            loginUser.setBrowser(readString(in));
+            loginUser.setOs(readString(in));
+            loginUser.setPermissions(readPerms(in, dict));
+            loginUser.setUser(readUser(in, dict));
+            return loginUser;
+        } catch (IOException e) {
+            throw new IllegalStateException("登录用户解码失败", e);
+        }
+    }
+
+    private void writeUser(DataOutputStream out, SysUser user, PermissionDictionary.Snapshot dict) throws IOException {
+        out.writeBoolean(user != null);
+        if (user == null) {
+            return;
+        }
+        writeLong(out, user.getUserId());
+        writeLong(out, user.getDeptId());
+        writeString(out, user.getUserName());
+        writeString(out, user.getNickName());
+        writeString(out, user.getEmail());
+        writeString(out, user.getPhonenumber());
+        writeString(out, user.getSex());
+        writeString(out, user.getAvatar());
+        writeString(out, user.getPassword());
+        writeString(out, user.getStatus());
+        writeString(out, user.getDelFlag());
+        writeString(out, user.getLoginIp());
+        writeDate(out, user.getLoginDate());
+        writeDate(out, user.getCreateTime());
+        writeString(out, user.getRemark());
+
+        SysDept dept = user.getDept();
+        out.writeBoolean(dept != null);
+        if (dept != null) {
+            writeLong(out, dept.getDeptId());
+            writeLong(out, dept.getParentId());
+            writeString(out, dept.getAncestors());
+            writeString(out, dept.getDeptName());
+            writeString(out, dept.getLeader());
+            writeString(out, dept.getStatus());
+        }
+
+        List<SysRole> roles = user.getRoles();
+        out.writeInt(roles == null ? -1 : roles.size());
+        if (roles != null) {
+            for (SysRole role : roles) {
+                writeLong(out, role.getRoleId());
+                writeString(out, role.getRoleName());
+                writeString(out, role.getRoleKey());
+                out.writeInt(role.getRoleSort() == null ? Integer.MIN_VALUE : role.getRoleSort());
+                writeString(out, role.getDataScope());
+                writeString(out, role.getStatus());
+                writePerms(out, role.getPermissions(), dict);
+            }
+        }
+    }
+
+    private SysUser readUser(DataInputStream in, PermissionDictionary.Snapshot dict) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        SysUser user = new SysUser();
+        user.setUserId(readLong(in));
+        user.setDeptId(readLong(in));
+        user.setUserName(readString(in));
+        user.setNickName(readString(in));
+        user.setEmail(readString(in));
+        user.setPhonenumber(readString(in));
+        user.setSex(readString(in));
+        user.setAvatar(readString(in));
+        user.setPassword(readString(in));
+        user.setStatus(readString(in));
+        user.setDelFlag(readString(in));
+        user.setLoginIp(readString(in));
+        user.setLoginDate(readDate(in));
+        user.setCreateTime(readDate(in));
+        user.setRemark(readString(in));
+
+        if (in.readBoolean()) {
+            SysDept dept = new SysDept();
+            dept.setDeptId(readLong(in));
+            dept.setParentId(readLong(in));
+            dept.setAncestors(readString(in));
+            dept.setDeptName(readString(in));
+            dept.setLeader(readString(in));
+            dept.setStatus(readString(in));
+            user.setDept(dept);
+        }
+
+        int roleCount = in.readInt();
+        if (roleCount >= 0) {
+            List<SysRole> roles = new ArrayList<>(roleCount);
+            for (int i = 0; i < roleCount; i++) {
+                SysRole role = new SysRole();
+                role.setRoleId(readLong(in));
+                role.setRoleName(readString(in));
+                role.setRoleKey(readString(in));
+                int roleSort = in.readInt();
+                role.setRoleSort(roleSort == Integer.MIN_VALUE ? null : roleSort);
+                role.setDataScope(readString(in));
+                role.setStatus(readString(in));
+                role.setPermissions(readPerms(in, dict));
+                roles.add(role);
+            }
+            user.setRoles(roles);
+        }
+        return user;
+    }
+
+    /**
+     * 权限集合以字典编号位图保存，长度为-1表示null
+     */
+    private void writePerms(DataOutputStream out, Set<String> perms, PermissionDictionary.Snapshot dict) throws IOException {
+        if (perms == null) {
+            out.writeInt(-1);
+            return;
+        }
+        BitSet bits = new BitSet(dict.getVersion());
+        for (String perm : perms) {
+            int id = dict.idOf(perm);
+            if (id < 0) {
+                throw new IllegalStateException("权限字符未登记到字典：" + perm);
+            }
+            bits.set(id);
+        }
+        long[] words = bits.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private Set<String> readPerms(DataInputStream in, PermissionDictionary.Snapshot dict) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        long[] words = new long[length];
+        for (int i = 0; i < length; i++) {
+            words[i] = in.readLong();
+        }
+        BitSet bits = BitSet.valueOf(words);
+        Set<String> perms = new HashSet<>(bits.cardinality() * 2);
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            String perm = dict.permOf(id);
+            if (perm == null) {
+                throw new IOException("权限编号不存在：" + id);
+            }
+            perms.add(perm);
+        }
+        return perms;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeDate(DataOutputStream out, Date value) throws IOException {
+        writeLong(out, value == null ? null : value.getTime());
+    }
+
+    private static Date readDate(DataInputStream in) throws IOException {
+        Long time = readLong(in);
+        return time == null ? null : new Date(time);
+    }
+}
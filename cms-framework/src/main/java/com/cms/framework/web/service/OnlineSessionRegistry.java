@@ -0,0 +1,293 @@
+package com.cms.framework.web.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.cms.common.constant.CacheConstants;
+import com.cms.common.core.domain.entity.SysUserOnline;
+import com.cms.common.core.domain.model.LoginUser;
+import com.cms.common.core.page.TableDataInfo;
+import com.cms.common.utils.StringUtils;
+import com.cms.system.service.ISysUserOnlineService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在线会话登记服务类：
+ * 用于维护在线会话索引，替代扫描 login_tokens:* 的在线用户查询。
+ * online_sessions:index 为按最近续期时间排序的 ZSET，online_sessions:summary 为令牌到会话摘要的哈希，
+ * online_sessions:user:{userName} 与 online_sessions:ip:{ip} 为按用户名、IP 过滤用的令牌集合。
+ * 由 TokenService 在创建、刷新、续期、删除会话时维护，登记由一个脚本原子替换摘要与过滤集合。
+ * 超过有效期未续期的条目由定时任务清理，查询前也会清理干净，总数不含过期会话。
+ * @author quoteZZZ
+ */
+@Component
+public class OnlineSessionRegistry {
+    private static final Logger log = LoggerFactory.getLogger(OnlineSessionRegistry.class);
+
+    private static final String INDEX_KEY = CacheConstants.ONLINE_SESSION_KEY + "index";
+
+    private static final String SUMMARY_KEY = CacheConstants.ONLINE_SESSION_KEY + "summary";
+
+    private static final String USER_PREFIX = CacheConstants.ONLINE_SESSION_KEY + "user:";
+
+    private static final String IP_PREFIX = CacheConstants.ONLINE_SESSION_KEY + "ip:";
+
+    // 单次清理的过期会话数上限
+    private static final int PRUNE_BATCH = 500;
+
+    // 定时清理间隔（秒）
+    private static final long PRUNE_INTERVAL_SECONDS = 60;
+
+    /**
+     * 登记脚本：按旧摘要移除过滤集合中的令牌，再写入新的索引、摘要与过滤集合
+     * KEYS[1] 索引，KEYS[2] 摘要；ARGV[1] 令牌，ARGV[2] 续期时间，ARGV[3] 新摘要，ARGV[4]/ARGV[5] 用户名/IP 过滤前缀
+     */
+    private static final DefaultRedisScript<Long> REGISTER_SCRIPT = new DefaultRedisScript<>(
+            "local index, summary = KEYS[1], KEYS[2]\n" +
+            "local token, userPrefix, ipPrefix = ARGV[1], ARGV[4], ARGV[5]\n" +
+            "local function filters(json)\n" +
+            "    local ok, online = pcall(cjson.decode, json)\n" +
+            "    if not ok or type(online) ~= 'table' then return nil, nil end\n" +
+            "    local user, ip = online['userName'], online['ipaddr']\n" +
+            "    if type(user) ~= 'string' or user == '' then user = nil end\n" +
+            "    if type(ip) ~= 'string' or ip == '' then ip = nil end\n" +
+            "    return user, ip\n" +
+            "end\n" +
+            "local previous = redis.call('hget', summary, token)\n" +
+            "if previous then\n" +
+            "    local user, ip = filters(previous)\n" +
+            "    if user then redis.call('srem', userPrefix .. user, token) end\n" +
+            "    if ip then redis.call('srem', ipPrefix .. ip, token) end\n" +
+            "end\n" +
+            "redis.call('zadd', index, ARGV[2], token)\n" +
+            "redis.call('hset', summary, token, ARGV[3])\n" +
+            "local user, ip = filters(ARGV[3])\n" +
+            "if user then redis.call('sadd', userPrefix .. user, token) end\n" +
+            "if ip then redis.call('sadd', ipPrefix .. ip, token) end\n" +
+            "return 1",
+            Long.class);
+
+    // 令牌有效期（分钟），超过此时间未续期的会话视为过期
+    @Value("${token.expireTime}")
+    private int expireTime;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ISysUserOnlineService userOnlineService;
+
+    @Resource(name = "scheduledExecutorService")
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * 注册过期会话清理任务
+     */
+    @PostConstruct
+    public void schedulePrune() {
+        scheduledExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                pruneAll();
+            } catch (Exception e) {
+                log.warn("清理过期在线会话失败'{}'", e.getMessage());
+            }
+        }, PRUNE_INTERVAL_SECONDS, PRUNE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 登记或更新会话摘要。
+     * @param loginUser 用户信息对象
+     */
+    public void register(LoginUser loginUser) {
+        SysUserOnline online = userOnlineService.loginUserToUserOnline(loginUser);
+        if (online == null) {
+            return;
+        }
+        String token = online.getTokenId();
+        try {
+            stringRedisTemplate.execute(REGISTER_SCRIPT, Arrays.asList(INDEX_KEY, SUMMARY_KEY),
+                    token, String.valueOf(System.currentTimeMillis()), JSON.toJSONString(online), USER_PREFIX, IP_PREFIX);
+        } catch (Exception e) {
+            log.warn("登记在线会话失败'{}'", e.getMessage());
+        }
+    }
+
+    /**
+     * 更新会话的最近续期时间。
+     * @param token 令牌UUID
+     * @param lastSeen 最近续期时间
+     */
+    public void touch(String token, long lastSeen) {
+        try {
+            stringRedisTemplate.opsForZSet().add(INDEX_KEY, token, lastSeen);
+        } catch (Exception e) {
+            log.warn("更新在线会话失败'{}'", e.getMessage());
+        }
+    }
+
+    /**
+     * 注销会话。
+     * @param token 令牌UUID
+     */
+    public void unregister(String token) {
+        unregister(Collections.singletonList(token));
+    }
+
+    /**
+     * 分页查询在线会话，按最近续期时间倒序。
+     * 先清理全部过期会话，再在无过滤条件时直接按 ZSET 范围读取当前页；按用户名、IP 过滤时对过滤集合求交集后排序分页。
+     * @param ipaddr 登录地址，为空不过滤
+     * @param userName 用户名，为空不过滤
+     * @param pageNum 页码，从1开始
+     * @param pageSize 每页条数，为空时返回全部
+     * @return 当前页的在线会话与符合条件的总数
+     */
+    public TableDataInfo selectPage(String ipaddr, String userName, Integer pageNum, Integer pageSize) {
+        pruneAll();
+        TableDataInfo page = new TableDataInfo();
+        int page = pageNum == null || pageNum < 1 ? 1 : pageNum;
+        long start = pageSize == null ? 0 : (long) (page - 1) * pageSize;
+        long end = pageSize == null ? -1 : start + pageSize - 1;
+
+        List<String> tokens;
+        if (StringUtils.isEmpty(ipaddr) && StringUtils.isEmpty(userName)) {
+            Long size = stringRedisTemplate.opsForZSet().zCard(INDEX_KEY);
+            page.setTotal(size == null ? 0 : size);
+            Set<String> range = stringRedisTemplate.opsForZSet().reverseRange(INDEX_KEY, start, end);
+            tokens = range == null ? new ArrayList<>() : new ArrayList<>(range);
+        } else {
+            List<String> filterKeys = new ArrayList<>();
+            if (StringUtils.isNotEmpty(ipaddr)) {
+                filterKeys.add(IP_PREFIX + ipaddr);
+            }
+            if (StringUtils.isNotEmpty(userName)) {
+                filterKeys.add(USER_PREFIX + userName);
+            }
+            Set<String> matched = filterKeys.size() == 1
+                    ? stringRedisTemplate.opsForSet().members(filterKeys.get(0))
+                    : stringRedisTemplate.opsForSet().intersect(filterKeys);
+            tokens = sortByLastSeen(matched);
+            page.setTotal(tokens.size());
+            int from = (int) Math.min(start, tokens.size());
+            int to = end < 0 ? tokens.size() : (int) Math.min(end + 1, tokens.size());
+            tokens = tokens.subList(from, to);
+        }
+        List<SysUserOnline> rows = new ArrayList<>(tokens.size());
+        page.setRows(rows);
+        if (tokens.isEmpty()) {
+            return page;
+        }
+        List<Object> values = stringRedisTemplate.opsForHash().multiGet(SUMMARY_KEY, new ArrayList<>(tokens));
+        for (Object value : values) {
+            if (value != null) {
+                rows.add(JSON.parseObject(value.toString(), SysUserOnline.class));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * 分批清理全部超过有效期未续期的会话。
+     * @return 清理的会话数
+     */
+    public int pruneAll() {
+        int total = 0;
+        int pruned;
+        do {
+            pruned = prune();
+            total += pruned;
+        } while (pruned >= PRUNE_BATCH);
+        return total;
+    }
+
+    /**
+     * 清理一批超过有效期未续期的会话，单次最多 PRUNE_BATCH 个。
+     * @return 清理的会话数
+     */
+    public int prune() {
+        long threshold = System.currentTimeMillis() - expireTime * 60L * 1000L;
+        Set<String> expired = stringRedisTemplate.opsForZSet().rangeByScore(INDEX_KEY, 0, threshold, 0, PRUNE_BATCH);
+        if (expired == null || expired.isEmpty()) {
+            return 0;
+        }
+        unregister(expired);
+        log.debug("清理过期在线会话 {} 个", expired.size());
+        return expired.size();
+    }
+
+    private void unregister(Collection<String> tokens) {
+        try {
+            List<Object> summaries = stringRedisTemplate.opsForHash().multiGet(SUMMARY_KEY, new ArrayList<>(tokens));
+            List<String> ids = new ArrayList<>(tokens);
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (int i = 0; i < ids.size(); i++) {
+                    String token = ids.get(i);
+                    Object summary = summaries.get(i);
+                    if (summary != null) {
+                        removeFilters(conn, token, JSON.parseObject(summary.toString(), SysUserOnline.class));
+                    }
+                    conn.zRem(INDEX_KEY, token);
+                    conn.hDel(SUMMARY_KEY, token);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("注销在线会话失败'{}'", e.getMessage());
+        }
+    }
+
+    private List<String> sortByLastSeen(Set<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> ids = new ArrayList<>(tokens);
+        List<Object> scores = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (String token : ids) {
+                conn.zScore(INDEX_KEY, token);
+            }
+            return null;
+        });
+        Map<String, Double> lastSeen = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object score = i < scores.size() ? scores.get(i) : null;
+            if (score != null) {
+                lastSeen.put(ids.get(i), (Double) score);
+            }
+        }
+        // 过滤集合中已不在索引里的令牌视为已注销
+        ids.removeIf(token -> !lastSeen.containsKey(token));
+        ids.sort(Comparator.comparing(lastSeen::get, Comparator.reverseOrder()));
+        return ids;
+    }
+
+    private void removeFilters(StringRedisConnection conn, String token, SysUserOnline online) {
+        if (StringUtils.isNotEmpty(online.getUserName())) {
+            conn.sRem(USER_PREFIX + online.getUserName(), token);
+        }
+        if (StringUtils.isNotEmpty(online.getIpaddr())) {
+            conn.sRem(IP_PREFIX + online.getIpaddr(), token);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.cms.framework.web.service;
+
+import com.cms.common.constant.CacheConstants;
+import com.cms.common.utils.uuid.IdUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 权限字典服务类：
+ * 用于把权限字符映射为稳定的整数编号，供会话编码以位图保存权限集合。
+ * 字典保存在 Redis 哈希 perm_dict 中，只追加不修改，各节点按需同步到本地；
+ * 版本为字典条目数，编码时记录版本，解码时本地字典落后则重新加载。
+ * 字典被清除后以新的代次重建，旧代次编码的会话无法解码，视为失效。
+ * @author quoteZZZ
+ */
+@Component
+public class PermissionDictionary {
+    private static final Logger log = LoggerFactory.getLogger(PermissionDictionary.class);
+
+    private static final String EPOCH_FIELD = "epoch";
+
+    private static final String SIZE_FIELD = "size";
+
+    private static final String ID_PREFIX = "i:";
+
+    /**
+     * 分配编号脚本：字典不存在时以 ARGV[1] 为代次创建，返回代次与各权限字符的编号
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> INTERN_SCRIPT = new DefaultRedisScript<>(
+            "local epoch = redis.call('hget', KEYS[1], 'epoch')\n" +
+            "if not epoch then\n" +
+            "    epoch = ARGV[1]\n" +
+            "    redis.call('hset', KEYS[1], 'epoch', epoch, 'size', 0)\n" +
+            "end\n" +
+            "local result = {epoch}\n" +
+            "for i = 2, #ARGV do\n" +
+            "    local id = redis.call('hget', KEYS[1], 'p:' .. ARGV[i])\n" +
+            "    if not id then\n" +
+            "        id = redis.call('hincrby', KEYS[1], 'size', 1) - 1\n" +
+            "        redis.call('hset', KEYS[1], 'p:' .. ARGV[i], id, 'i:' .. id, ARGV[i])\n" +
+            "    end\n" +
+            "    table.insert(result, tostring(id))\n" +
+            "end\n" +
+            "return result", List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 本地字典快照，整体替换
+    private volatile Snapshot snapshot = new Snapshot(null, new String[0]);
+
+    /**
+     * 获取权限字符对应的编号，未登记的权限字符追加到字典。
+     * 每次调用都会向Redis确认字典代次，字典被重建后不会继续使用本地的旧编号。
+     * @param perms 权限字符集合
+     * @return 字典快照，包含代次、版本与编号映射
+     */
+    public Snapshot intern(Collection<String> perms) {
+        Snapshot current = snapshot;
+        List<String> missing = new ArrayList<>();
+        for (String perm : perms) {
+            if (current.idOf(perm) < 0) {
+                missing.add(perm);
+            }
+        }
+        List<Object> result = runIntern(missing);
+        String epoch = String.valueOf(result.get(0));
+        if (!epoch.equals(current.epoch) && missing.size() < perms.size()) {
+            // 字典已重建，本地编号作废，全部重新登记
+            result = runIntern(perms);
+        }
+        int maxId = -1;
+        for (int i = 1; i < result.size(); i++) {
+            maxId = Math.max(maxId, Integer.parseInt(String.valueOf(result.get(i))));
+        }
+        return sync(epoch, maxId + 1);
+    }
+
+    /**
+     * 获取本地字典快照，不访问Redis。
+     * @return 字典快照
+     */
+    public Snapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * 获取可以解码指定代次与版本的字典快照。
+     * @param epoch 字典代次
+     * @param version 字典版本
+     * @return 字典快照，字典已被重建时返回null
+     */
+    public Snapshot resolve(String epoch, int version) {
+        Snapshot current = snapshot;
+        if (current.covers(epoch, version)) {
+            return current;
+        }
+        current = sync(epoch, version);
+        return current.covers(epoch, version) ? current : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> runIntern(Collection<String> perms) {
+        List<String> args = new ArrayList<>(perms.size() + 1);
+        args.add(IdUtils.fastSimpleUUID());
+        args.addAll(perms);
+        return stringRedisTemplate.execute(INTERN_SCRIPT,
+                Collections.singletonList(CacheConstants.PERMISSION_DICT_KEY), args.toArray());
+    }
+
+    /**
+     * 本地字典落后于所需代次或版本时从Redis重新加载
+     */
+    private synchronized Snapshot sync(String epoch, int version) {
+        Snapshot current = snapshot;
+        if (current.covers(epoch, version)) {
+            return current;
+        }
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(CacheConstants.PERMISSION_DICT_KEY);
+        Object loadedEpoch = entries.get(EPOCH_FIELD);
+        int size = entries.containsKey(SIZE_FIELD) ? Integer.parseInt(entries.get(SIZE_FIELD).toString()) : 0;
+        String[] perms = new String[size];
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = entry.getKey().toString();
+            if (field.startsWith(ID_PREFIX)) {
+                int id = Integer.parseInt(field.substring(ID_PREFIX.length()));
+                if (id < size) {
+                    perms[id] = entry.getValue().toString();
+                }
+            }
+        }
+        snapshot = new Snapshot(loadedEpoch == null ? null : loadedEpoch.toString(), perms);
+        log.debug("加载权限字典，代次 {}，条目 {}", snapshot.epoch, size);
+        return snapshot;
+    }
+
+    /**
+     * 字典快照，创建后不再修改
+     */
+    public static class Snapshot {
+        private final String epoch;
+        private final String[] perms;
+        private final Map<String, Integer> ids;
+
+        Snapshot(String epoch, String[] perms) {
+            this.epoch = epoch;
+            this.perms = perms;
+            this.ids = new HashMap<>(perms.length * 2);
+            for (int i = 0; i < perms.length; i++) {
+                if (perms[i] != null) {
+                    ids.put(perms[i], i);
+                }
+            }
+        }
+
+        private boolean covers(String epoch, int version) {
+            return this.epoch != null && this.epoch.equals(epoch) && perms.length >= version;
+        }
+
+        public String getEpoch() {
+            return epoch;
+        }
+
+        public int getVersion() {
+            return perms.length;
+        }
+
+        /**
+         * @return 权限字符的编号，未登记时返回-1
+         */
+        public int idOf(String perm) {
+            Integer id = ids.get(perm);
+            return id == null ? -1 : id;
+        }
+
+        /**
+         * @return 编号对应的权限字符，不存在时返回null
+         */
+        public String permOf(int id) {
+            return id >= 0 && id < perms.length ? perms[id] : null;
+        }
+    }
+}
@@ -2,22 +2,78 @@ package com.cms.framework.web.service;
 
 import com.cms.common.constant.Constants;
 import com.cms.common.core.domain.entity.SysRole;
+import com.cms.common.core.domain.entity.SysUser;
 import com.cms.common.core.domain.model.LoginUser;
 import com.cms.common.utils.SecurityUtils;
 import com.cms.common.utils.StringUtils;
+import com.cms.common.utils.text.Convert;
 import com.cms.framework.security.context.PermissionContextHolder;
+import com.cms.system.service.ISysMenuService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 /**
  * 自定义权限验证服务类：（是权限校验的“逻辑执行层”，利用已加载的权限数据完成权限校验。）（ss取自SpringSecurity首字母）
  * 提供了验证用户权限和角色的功能，包括检查单个或多个权限/角色的拥有情况，并支持与 Spring Security 集成。
+ * 用户的权限集合在首次校验时按 PermissionDictionary 编号编译为位图并挂在 LoginUser 上，
+ * 注解中的权限表达式解析为编号后缓存，校验只做位图测试；字典代次变化时回退为字符串比较。
  * @author quoteZZZ
  */
 @Service("ss")
 public class PermissionService {
+    private static final Logger log = LoggerFactory.getLogger(PermissionService.class);
+
+    // 权限字典不可用时的编译代次，与任何字典代次都不相等
+    private static final String UNRESOLVED = "";
+
+    // 单类表达式缓存的条目上限，超过后不再缓存新的表达式
+    private static final int MAX_CACHED_EXPRESSIONS = 2048;
+
+    @Autowired
+    private PermissionDictionary permissionDictionary;
+
+    @Autowired
+    private ISysMenuService menuService;
+
+    @Resource(name = "threadPoolTaskExecutor")
+    private ThreadPoolTaskExecutor threadPoolTaskExecutor;
+
+    // 权限表达式到字典编号的缓存，与字典快照绑定，字典更新后整体重建
+    private volatile ExpressionCache expressionCache = new ExpressionCache(null);
+
+    // 角色表达式拆分结果缓存
+    private final Map<String, String[]> roleExpressions = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时把菜单中的权限字符登记到权限字典
+     */
+    @PostConstruct
+    public void init() {
+        threadPoolTaskExecutor.execute(() -> {
+            try {
+                permissionDictionary.intern(menuService.selectMenuPerms());
+            } catch (Exception e) {
+                log.warn("预加载权限字典失败'{}'", e.getMessage());
+            }
+        });
+    }
 
     /**
      * 验证用户是否具备某权限
@@ -37,8 +93,13 @@ public class PermissionService {
         }
         // 将权限信息设置到当前权限上下文，用于后续操作
         PermissionContextHolder.setContext(permission);
-        // 判断用户权限集合中是否包含指定的权限
-        return hasPermissions(loginUser.getPermissions(), permission);
+        // 判断用户权限位图中是否包含指定的权限
+        CompiledPermissions compiled = compile(loginUser);
+        if (compiled.all) {
+            return true;
+        }
+        int[] ids = resolve(compiled, ExpressionType.SINGLE, permission);
+        return ids != null ? compiled.matches(compiled.bits, ids) : hasPermissions(loginUser.getPermissions(), permission);
     }
 
     /**
@@ -69,6 +130,12 @@ public class PermissionService {
         }
         // 设置当前权限上下文
         PermissionContextHolder.setContext(permissions);
+        CompiledPermissions compiled = compile(loginUser);
+        int[] ids = resolve(compiled, ExpressionType.ANY, permissions);
+        if (ids != null) {
+            // 拥有所有权限时，表达式拆分后至少有一个权限即通过（如 "," 拆分为空，不通过）
+            return compiled.all ? ids.length > 0 : compiled.matches(compiled.bits, ids);
+        }
         // 获取用户权限集合
         Set<String> authorities = loginUser.getPermissions();
         // 遍历权限列表，判断用户是否拥有其中任意一个权限
@@ -96,15 +163,9 @@ public class PermissionService {
         if (StringUtils.isNull(loginUser) || CollectionUtils.isEmpty(loginUser.getUser().getRoles())) {
             return false;
         }
-        // 遍历用户角色集合，判断是否包含指定角色
-        for (SysRole sysRole : loginUser.getUser().getRoles()) {
-            String roleKey = sysRole.getRoleKey();
-            // 如果是超级管理员角色或与指定角色匹配，则返回 true
-            if (Constants.SUPER_ADMIN.equals(roleKey) || roleKey.equals(StringUtils.trim(role))) {
-                return true;
-            }
-        }
-        return false; // 如果遍历完用户角色集合后，仍然没有找到匹配的角色，则返回 false
+        // 超级管理员角色或包含指定角色，则返回 true
+        CompiledPermissions compiled = compile(loginUser);
+        return compiled.superAdmin || compiled.roleKeys.contains(StringUtils.trim(role));
     }
 
     /**
@@ -133,15 +194,41 @@ public class PermissionService {
         if (StringUtils.isNull(loginUser) || CollectionUtils.isEmpty(loginUser.getUser().getRoles())) {
             return false;
         }
+        String[] roleArray = roleExpressions.get(roles);
+        if (roleArray == null) {
+            roleArray = roles.split(Constants.ROLE_DELIMETER);
+            if (roleExpressions.size() < MAX_CACHED_EXPRESSIONS) {
+                roleExpressions.putIfAbsent(roles, roleArray);
+            }
+        }
         // 遍历角色列表，判断用户是否具备其中任意一个角色
-        for (String role : roles.split(Constants.ROLE_DELIMETER)) {
-            if (hasRole(role)) {
+        CompiledPermissions compiled = compile(loginUser);
+        for (String role : roleArray) {
+            if (StringUtils.isNotEmpty(role) && (compiled.superAdmin || compiled.roleKeys.contains(StringUtils.trim(role)))) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * 构建判断角色是否具备任意一个权限的匹配器（数据权限过滤使用，权限字符以逗号分隔）
+     * @param loginUser 登录用户
+     * @param permission 权限字符串
+     * @return 角色匹配器
+     */
+    public Predicate<SysRole> roleMatcher(LoginUser loginUser, String permission) {
+        CompiledPermissions compiled = compile(loginUser);
+        int[] ids = StringUtils.isEmpty(permission) ? new int[0] : resolve(compiled, ExpressionType.DATA_SCOPE, permission);
+        if (ids == null) {
+            return role -> StringUtils.containsAny(role.getPermissions(), Convert.toStrArray(permission));
+        }
+        return role -> {
+            BitSet bits = compiled.roleBits.get(role.getRoleId());
+            return bits != null && compiled.matches(bits, ids);
+        };
+    }
+
     /**
      * 判断是否包含权限
      * @param permissions 权限列表
@@ -152,5 +239,174 @@ public class PermissionService {
         // 判断权限集合中是否包含指定权限或拥有所有权限的标志
         return permissions.contains(Constants.ALL_PERMISSION) || permissions.contains(StringUtils.trim(permission));
     }
+
+    /**
+     * 获取登录用户编译后的权限，字典代次变化或尚未编译时重新编译
+     * @param loginUser 登录用户
+     * @return 编译后的权限
+     */
+    private CompiledPermissions compile(LoginUser loginUser) {
+        PermissionDictionary.Snapshot dict = permissionDictionary.current();
+        Object cached = loginUser.getCompiledPermissions();
+        if (cached instanceof CompiledPermissions && Objects.equals(((CompiledPermissions) cached).epoch, dict.getEpoch())) {
+            return (CompiledPermissions) cached;
+        }
+        Set<String> perms = loginUser.getPermissions() == null ? Collections.emptySet() : loginUser.getPermissions();
+        SysUser user = loginUser.getUser();
+        List<SysRole> roles = user == null || user.getRoles() == null ? Collections.emptyList() : user.getRoles();
+        // 本地字典缺少编号时向Redis登记并同步
+        Set<String> all = new HashSet<>(perms);
+        for (SysRole role : roles) {
+            if (role.getPermissions() != null) {
+                all.addAll(role.getPermissions());
+            }
+        }
+        boolean complete = containsAll(dict, all);
+        if (!complete) {
+            try {
+                dict = permissionDictionary.intern(all);
+                complete = containsAll(dict, all);
+            } catch (Exception e) {
+                log.warn("登记权限字典失败'{}'", e.getMessage());
+            }
+        }
+        // 字典不完整时不使用位图，本次校验回退为字符串比较
+        CompiledPermissions compiled = new CompiledPermissions(complete ? dict.getEpoch() : UNRESOLVED, dict, perms, roles);
+        if (complete) {
+            loginUser.setCompiledPermissions(compiled);
+        }
+        return compiled;
+    }
+
+    private static boolean containsAll(PermissionDictionary.Snapshot dict, Set<String> perms) {
+        for (String perm : perms) {
+            if (dict.idOf(perm) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将权限表达式解析为字典编号，未登记的权限字符编号为-1
+     * @param compiled 编译后的权限
+     * @param type 表达式类型
+     * @param expression 权限表达式
+     * @return 字典编号，字典代次与编译时不一致时返回null
+     */
+    private int[] resolve(CompiledPermissions compiled, ExpressionType type, String expression) {
+        PermissionDictionary.Snapshot dict = permissionDictionary.current();
+        if (!Objects.equals(dict.getEpoch(), compiled.epoch)) {
+            return null;
+        }
+        ExpressionCache cache = expressionCache;
+        if (cache.dict != dict) {
+            cache = new ExpressionCache(dict);
+            expressionCache = cache;
+        }
+        Map<String, int[]> map = cache.maps.get(type);
+        int[] ids = map.get(expression);
+        if (ids == null) {
+            String[] perms;
+            switch (type) {
+                case SINGLE:
+                    perms = new String[] { StringUtils.trim(expression) };
+                    break;
+                case ANY:
+                    perms = expression.split(Constants.PERMISSION_DELIMETER);
+                    for (int i = 0; i < perms.length; i++) {
+                        perms[i] = StringUtils.trim(perms[i]);
+                    }
+                    break;
+                default:
+                    perms = Convert.toStrArray(expression);
+                    break;
+            }
+            ids = new int[perms.length];
+            for (int i = 0; i < perms.length; i++) {
+                ids[i] = dict.idOf(perms[i]);
+            }
+            if (map.size() < MAX_CACHED_EXPRESSIONS) {
+                map.putIfAbsent(expression, ids);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 权限表达式类型
+     */
+    private enum ExpressionType {
+        // 单个权限，去除首尾空白
+        SINGLE,
+        // 逗号分隔的任意权限，逐个去除首尾空白
+        ANY,
+        // 数据权限注解中逗号分隔的权限
+        DATA_SCOPE
+    }
+
+    /**
+     * 与字典快照绑定的表达式缓存
+     */
+    private static final class ExpressionCache {
+        private final PermissionDictionary.Snapshot dict;
+        private final Map<ExpressionType, Map<String, int[]>> maps = new HashMap<>();
+
+        private ExpressionCache(PermissionDictionary.Snapshot dict) {
+            this.dict = dict;
+            for (ExpressionType type : ExpressionType.values()) {
+                maps.put(type, new ConcurrentHashMap<>());
+            }
+        }
+    }
+
+    /**
+     * 登录用户编译后的权限：用户权限位图、各角色权限位图与角色标识
+     */
+    private static final class CompiledPermissions {
+        private final String epoch;
+        private final boolean all;
+        private final BitSet bits;
+        private final Map<Long, BitSet> roleBits = new HashMap<>();
+        private final Set<String> roleKeys = new HashSet<>();
+        private final boolean superAdmin;
+
+        private CompiledPermissions(String epoch, PermissionDictionary.Snapshot dict, Set<String> perms, List<SysRole> roles) {
+            this.epoch = epoch;
+            this.all = perms.contains(Constants.ALL_PERMISSION);
+            this.bits = toBits(dict, perms);
+            boolean admin = false;
+            for (SysRole role : roles) {
+                if (role.getPermissions() != null) {
+                    roleBits.put(role.getRoleId(), toBits(dict, role.getPermissions()));
+                }
+                if (role.getRoleKey() != null) {
+                    roleKeys.add(role.getRoleKey());
+                    admin |= Constants.SUPER_ADMIN.equals(role.getRoleKey());
+                }
+            }
+            this.superAdmin = admin;
+        }
+
+        private static BitSet toBits(PermissionDictionary.Snapshot dict, Set<String> perms) {
+            BitSet bits = new BitSet(dict.getVersion());
+            for (String perm : perms) {
+                int id = dict.idOf(perm);
+                if (id >= 0) {
+                    bits.set(id);
+                }
+            }
+            return bits;
+        }
+
+        private boolean matches(BitSet bits, int[] ids) {
+            for (int id : ids) {
+                if (id >= 0 && bits.get(id)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
 
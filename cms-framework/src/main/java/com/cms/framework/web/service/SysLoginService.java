@@ -12,8 +12,7 @@ import com.cms.common.utils.DateUtils;
 import com.cms.common.utils.MessageUtils;
 import com.cms.common.utils.StringUtils;
 import com.cms.common.utils.ip.IpUtils;
-import com.cms.framework.manager.AsyncManager;
-import com.cms.framework.manager.factory.AsyncFactory;
+import com.cms.framework.manager.LoginLogWriter;
 import com.cms.framework.security.context.AuthenticationContextHolder;
 import com.cms.system.service.ISysConfigService;
 import com.cms.system.service.ISysUserService;
@@ -59,6 +58,10 @@ public class SysLoginService
     @Autowired
     private ISysConfigService configService;
 
+    // 注入登录日志写入器，批量记录登录日志
+    @Autowired
+    private LoginLogWriter loginLogWriter;
+
     /**
      * 登录验证
      * 验证用户的用户名、密码、验证码，校验通过后生成并返回访问令牌。
@@ -91,13 +94,13 @@ public class SysLoginService
             if (e instanceof BadCredentialsException)
             {
                 // 记录登录失败信息
-                AsyncManager.me().execute(AsyncFactory.recordLogininfor(username, Constants.LOGIN_FAIL, MessageUtils.message("user.password.not.match")));
+                loginLogWriter.record(username, null, null, Constants.LOGIN_FAIL, MessageUtils.message("user.password.not.match"));
                 throw new UserPasswordNotMatchException();//抛出自定义异常（用户名或密码不匹配异常）
             }
             else
             {
                 // 记录失败的错误信息
-                AsyncManager.me().execute(AsyncFactory.recordLogininfor(username, Constants.LOGIN_FAIL, e.getMessage()));
+                loginLogWriter.record(username, null, null, Constants.LOGIN_FAIL, e.getMessage());
                 throw new ServiceException(e.getMessage());//抛出自定义异常（系统异常）
             }
         }
@@ -106,10 +109,10 @@ public class SysLoginService
             // 无论登录成功还是失败，都清理认证上下文（用户密码）
             AuthenticationContextHolder.clearContext();
         }
-        // 登录成功后，记录登录信息日志（调用异步线程，传入用户名，登录状态：成功）
-        AsyncManager.me().execute(AsyncFactory.recordLogininfor(username, Constants.LOGIN_SUCCESS, MessageUtils.message("user.login.success")));
         // 获取登录用户的详细信息（通过spring security）
         LoginUser loginUser = (LoginUser) authentication.getPrincipal();
+        // 登录成功后，记录登录信息日志（带上已认证用户的用户ID、部门ID，不再回查用户表）
+        loginLogWriter.record(username, loginUser.getUserId(), loginUser.getDeptId(), Constants.LOGIN_SUCCESS, MessageUtils.message("user.login.success"));
         // 更新用户的登录信息
         recordLoginInfo(loginUser.getUserId());
         // 生成访问令牌token并返回前端
@@ -136,7 +139,7 @@ public class SysLoginService
             if (captcha == null)
             {
                 // 记录验证码过期信息
-                AsyncManager.me().execute(AsyncFactory.recordLogininfor(username, Constants.LOGIN_FAIL, MessageUtils.message("user.jcaptcha.expire")));
+                loginLogWriter.record(username, null, null, Constants.LOGIN_FAIL, MessageUtils.message("user.jcaptcha.expire"));
                 throw new CaptchaExpireException();// 抛出验证码过期异常
             }
             // 删除验证码缓存
@@ -145,7 +148,7 @@ public class SysLoginService
             if (!code.equalsIgnoreCase(captcha))
             {
                 // 记录验证码错误信息（不匹配）
-                AsyncManager.me().execute(AsyncFactory.recordLogininfor(username, Constants.LOGIN_FAIL, MessageUtils.message("user.jcaptcha.error")));
+                loginLogWriter.record(username, null, null, Constants.LOGIN_FAIL, MessageUtils.message("user.jcaptcha.error"));
                 throw new CaptchaException();// 抛出验证码不匹配异常
             }
         }
@@ -163,7 +166,7 @@ public class SysLoginService
         if (StringUtils.isEmpty(username) || StringUtils.isEmpty(password))
         {
             // 记录用户名或密码为空的错误信息
-            AsyncManager.me().execute(AsyncFactory.recordLogininfor(username, Constants.LOGIN_FAIL, MessageUtils.message("not.null")));
+            loginLogWriter.record(username, null, null, Constants.LOGIN_FAIL, MessageUtils.message("not.null"));
             throw new UserNotExistsException();// 抛出用户名或密码不存在异常
         }
 
@@ -172,7 +175,7 @@ public class SysLoginService
                 || password.length() > UserConstants.PASSWORD_MAX_LENGTH)
         {
             // 记录密码不匹配的错误日志信息
-            AsyncManager.me().execute(AsyncFactory.recordLogininfor(username, Constants.LOGIN_FAIL, MessageUtils.message("user.password.not.match")));
+            loginLogWriter.record(username, null, null, Constants.LOGIN_FAIL, MessageUtils.message("user.password.not.match"));
             throw new UserPasswordNotMatchException();//抛出用户密码不正确或不符合规范异常
         }
 
@@ -181,7 +184,7 @@ public class SysLoginService
                 || username.length() > UserConstants.USERNAME_MAX_LENGTH)
         {
             // 记录用户名不匹配的错误信息
-            AsyncManager.me().execute(AsyncFactory.recordLogininfor(username, Constants.LOGIN_FAIL, MessageUtils.message("user.password.not.match")));
+            loginLogWriter.record(username, null, null, Constants.LOGIN_FAIL, MessageUtils.message("user.password.not.match"));
             throw new UserPasswordNotMatchException();// 抛出用户名或密码不正确或不符合规范异常
         }
 
@@ -192,7 +195,7 @@ public class SysLoginService
         if (IpUtils.isMatchedIp(blackStr, IpUtils.getIpAddr()))
         {
             // 记录黑名单 IP 登录失败的信息（记录访问IP以列入系统黑名单日志信息）
-            AsyncManager.me().execute(AsyncFactory.recordLogininfor(username, Constants.LOGIN_FAIL, MessageUtils.message("login.blocked")));
+            loginLogWriter.record(username, null, null, Constants.LOGIN_FAIL, MessageUtils.message("login.blocked"));
             // 抛出黑名单异常
             throw new BlackListException();
         }
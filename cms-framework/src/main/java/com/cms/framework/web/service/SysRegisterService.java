@@ -11,8 +11,7 @@ import com.cms.common.exception.user.CaptchaExpireException;
 import com.cms.common.utils.MessageUtils;
 import com.cms.common.utils.SecurityUtils;
 import com.cms.common.utils.StringUtils;
-import com.cms.framework.manager.AsyncManager;
-import com.cms.framework.manager.factory.AsyncFactory;
+import com.cms.framework.manager.LoginLogWriter;
 import com.cms.system.service.ISysConfigService;
 import com.cms.system.service.ISysUserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +34,9 @@ public class SysRegisterService
     @Autowired
     private RedisCache redisCache;
 
+    @Autowired
+    private LoginLogWriter loginLogWriter;
+
     /**
      * 注册
      */
@@ -84,7 +86,7 @@ public class SysRegisterService
             }
             else
             {
-                AsyncManager.me().execute(AsyncFactory.recordLogininfor(username, Constants.REGISTER, MessageUtils.message("user.register.success")));
+                loginLogWriter.record(username, sysUser.getUserId(), sysUser.getDeptId(), Constants.REGISTER, MessageUtils.message("user.register.success"));
             }
         }
         return msg;
@@ -2,24 +2,32 @@ package com.cms.framework.web.service;
 
 import com.cms.common.constant.CacheConstants;
 import com.cms.common.constant.Constants;
+import com.cms.common.core.cache.LocalCache;
 import com.cms.common.core.domain.model.LoginUser;
 import com.cms.common.core.redis.RedisCache;
 import com.cms.common.utils.ServletUtils;
 import com.cms.common.utils.StringUtils;
+import com.cms.common.utils.http.UserAgentUtils;
 import com.cms.common.utils.ip.AddressUtils;
 import com.cms.common.utils.ip.IpUtils;
 import com.cms.common.utils.uuid.IdUtils;
-import eu.bitwalker.useragentutils.UserAgent;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -30,6 +38,11 @@ import java.util.concurrent.TimeUnit;
  * Token验证：从HTTP请求中提取并解析Token，获取用户身份信息。
  * Token创建与刷新：生成新的Token，并在接近过期时自动刷新Token的有效期。
  * 用户信息管理：将用户登录信息存储到Redis缓存中，并提供设置和删除用户信息的功能。
+ * 会话存储：login_tokens:{uuid} 以 LoginUserCodec 的二进制格式保存用户身份与权限（仅在登录或用户信息变更时整体写入），
+ * login_session:{uuid} 保存 lastSeen/expireAt，滑动续期只对两个键执行 EXPIRE 并改写小哈希。
+ * 在线会话：创建、刷新、续期、删除时同步维护 OnlineSessionRegistry，在线用户查询不再扫描令牌键。
+ * 本地缓存：同一会话的重复请求直接命中进程内缓存，不访问Redis；删除、刷新用户信息时通过Redisson主题通知其他节点清除，
+ * 通知丢失时由本地缓存的短存活时间兜底，吊销最迟在该时间后全局生效。
  * @author quoteZZZ
  */
 @Component
@@ -54,10 +67,62 @@ public class TokenService {
     protected static final long MILLIS_MINUTE = 60 * MILLIS_SECOND;// 分钟
     private static final Long MILLIS_MINUTE_TEN = 20 * 60 * 1000L;// 20分钟
 
+    // 本地缓存存活时间（秒），即吊销在其他节点生效的最大延迟
+    @Value("${token.localCacheSeconds:10}")
+    private int localCacheSeconds;
+
+    // 本地缓存容量
+    private static final int LOCAL_CACHE_SIZE = 10000;
+
+    // 本地缓存失效通知主题
+    private static final String EVICT_TOPIC = CacheConstants.LOGIN_TOKEN_KEY + "evict";
+
+    // 当前节点标识，忽略自己发出的失效通知
+    private static final String NODE_ID = IdUtils.fastSimpleUUID();
+
     // Redis缓存实例，用于存储用户登录信息
     @Autowired
     private RedisCache redisCache;
 
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 登录用户会话编码
+    @Autowired
+    private LoginUserCodec loginUserCodec;
+
+    // 在线会话索引，供在线用户查询使用
+    @Autowired
+    private OnlineSessionRegistry onlineSessionRegistry;
+
+    // 令牌UUID到登录用户的本地缓存
+    private LocalCache<String, LoginUser> localLoginUsers;
+
+    // 已验签令牌到数据声明的缓存，以完整令牌字符串为键（哈希定位后逐字符比较，不会把伪造令牌当作已验证）
+    private LocalCache<String, Claims> verifiedTokens;
+
+    private RTopic evictTopic;
+
+    /**
+     * 初始化本地缓存并订阅失效通知（消息格式为 节点标识:令牌UUID）
+     */
+    @PostConstruct
+    public void init() {
+        localLoginUsers = new LocalCache<>(LOCAL_CACHE_SIZE, Math.max(1, localCacheSeconds) * MILLIS_SECOND);
+        // 令牌本身不带过期声明，验签结果最多保留一个会话有效期
+        verifiedTokens = new LocalCache<>(LOCAL_CACHE_SIZE, expireTime * MILLIS_MINUTE);
+        evictTopic = redissonClient.getTopic(EVICT_TOPIC);
+        evictTopic.addListener(String.class, (channel, message) -> {
+            int idx = message.indexOf(':');
+            if (idx > 0 && !NODE_ID.equals(message.substring(0, idx))) {
+                localLoginUsers.remove(message.substring(idx + 1));
+            }
+        });
+    }
+
     /**
      * 根据请求中的token，获取用户身份信息。
      * 从请求中提取Token并解析出用户信息，如果Token有效则返回用户信息，否则返回null。
@@ -74,10 +139,23 @@ public class TokenService {
                 Claims claims = parseToken(token);
                 // 获取用户唯一标识UUID，用于构建Redis键。
                 String uuid = (String) claims.get(Constants.LOGIN_USER_KEY);
+                // 优先从本地缓存获取，已过期的用户信息视为未命中
+                LoginUser user = localLoginUsers.get(uuid);
+                if (user != null && user.getExpireTime() != null && user.getExpireTime() > System.currentTimeMillis()) {
+                    return user;
+                }
                 // 构建Redis键，用于在Redis中存储用户信息。
                 String userKey = getTokenKey(uuid);
                 // 从Redis中获取用户信息，如果存在则返回用户信息，否则返回null。
-                LoginUser user = redisCache.getCacheObject(userKey);
+                user = readLoginUser(userKey);
+                if (user != null) {
+                    // 过期时间以会话状态为准，身份数据中的值只在整体写入时更新
+                    Object expireAt = stringRedisTemplate.opsForHash().get(getSessionKey(uuid), "expireAt");
+                    if (expireAt != null) {
+                        user.setExpireTime(Long.valueOf(expireAt.toString()));
+                    }
+                }
+                cacheLocally(uuid, user);
                 return user;// 返回用户信息对象
             } catch (Exception e) {
                 // 记录错误日志
@@ -112,6 +190,11 @@ public class TokenService {
             String userKey = getTokenKey(token);
             // 删除Redis中的用户信息
             redisCache.deleteObject(userKey);
+            stringRedisTemplate.delete(getSessionKey(token));
+            onlineSessionRegistry.unregister(token);
+            // 清除本地缓存并通知其他节点
+            localLoginUsers.remove(token);
+            publishEvict(token);
         }
     }
 
@@ -140,7 +223,7 @@ public class TokenService {
 
     /**
      * 验证令牌有效期。
-     * 如果Token距离过期时间不足20分钟，则自动刷新Token有效期。
+     * 如果Token距离过期时间不足20分钟，则滑动续期（不重写用户信息）。
      * @param loginUser 用户信息对象
      */
     public void verifyToken(LoginUser loginUser) {
@@ -148,11 +231,35 @@ public class TokenService {
         long currentTime = System.currentTimeMillis();
         // 判断是否需要刷新Token
         if (expireTime - currentTime <= MILLIS_MINUTE_TEN) {
-            // 刷新Token有效期
-            refreshToken(loginUser);
+            // 延长会话有效期
+            extendSession(loginUser);
         }
     }
 
+    /**
+     * 滑动续期。
+     * 只对身份数据与会话状态执行 EXPIRE 并改写会话状态中的时间字段，不重新序列化用户信息。
+     * @param loginUser 用户信息对象
+     */
+    public void extendSession(LoginUser loginUser) {
+        long now = System.currentTimeMillis();
+        long expireAt = now + expireTime * MILLIS_MINUTE;
+        String token = loginUser.getToken();
+        String sessionKey = getSessionKey(token);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.expire(getTokenKey(token), expireTime * 60L);
+            conn.hSet(sessionKey, "lastSeen", String.valueOf(now));
+            conn.hSet(sessionKey, "expireAt", String.valueOf(expireAt));
+            conn.expire(sessionKey, expireTime * 60L);
+            return null;
+        });
+        onlineSessionRegistry.touch(token, now);
+        // 本节点缓存的副本直接更新，其他节点从会话状态读取新的过期时间
+        loginUser.setExpireTime(expireAt);
+        cacheLocally(token, loginUser);
+    }
+
     /**
      * 刷新令牌有效期。
      * 更新用户的登录时间和过期时间，并将用户信息存入Redis缓存。
@@ -166,7 +273,74 @@ public class TokenService {
         // 构建Redis键
         String userKey = getTokenKey(loginUser.getToken());
         // 使用新的有效期重新缓存用户对象
-        redisCache.setCacheObject(userKey, loginUser, expireTime, TimeUnit.MINUTES);
+        writeLoginUser(userKey, loginUser);
+        // 写入会话状态
+        String sessionKey = getSessionKey(loginUser.getToken());
+        Map<String, String> session = new HashMap<>();
+        session.put("lastSeen", String.valueOf(loginUser.getLoginTime()));
+        session.put("expireAt", String.valueOf(loginUser.getExpireTime()));
+        stringRedisTemplate.opsForHash().putAll(sessionKey, session);
+        stringRedisTemplate.expire(sessionKey, expireTime, TimeUnit.MINUTES);
+        // 登记在线会话摘要
+        onlineSessionRegistry.register(loginUser);
+        // 更新本地缓存，其他节点的旧副本需重新从Redis读取
+        cacheLocally(loginUser.getToken(), loginUser);
+        publishEvict(loginUser.getToken());
+    }
+
+    /**
+     * 以二进制格式写入用户身份信息。
+     * @param userKey Redis键
+     * @param loginUser 用户信息对象
+     */
+    private void writeLoginUser(String userKey, LoginUser loginUser) {
+        byte[] key = userKey.getBytes(StandardCharsets.UTF_8);
+        byte[] value = loginUserCodec.encode(loginUser);
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> connection.setEx(key, expireTime * 60L, value));
+    }
+
+    /**
+     * 读取并解码用户身份信息。
+     * @param userKey Redis键
+     * @return 用户信息对象，不存在时返回null
+     */
+    private LoginUser readLoginUser(String userKey) {
+        byte[] key = userKey.getBytes(StandardCharsets.UTF_8);
+        byte[] value = stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(key));
+        return loginUserCodec.decode(value);
+    }
+
+    /**
+     * 按令牌UUID读取会话中的用户信息（不经过本地缓存，供缓存监控展示）。
+     * @param uuid 令牌UUID
+     * @return 用户信息对象，不存在时返回null
+     */
+    public LoginUser getLoginUserByUuid(String uuid) {
+        return readLoginUser(getTokenKey(uuid));
+    }
+
+    /**
+     * 写入本地缓存，存活时间不超过用户信息的过期时间。
+     * @param uuid 令牌UUID
+     * @param loginUser 用户信息对象
+     */
+    private void cacheLocally(String uuid, LoginUser loginUser) {
+        if (loginUser == null || loginUser.getExpireTime() == null) {
+            return;
+        }
+        localLoginUsers.put(uuid, loginUser, loginUser.getExpireTime() - System.currentTimeMillis());
+    }
+
+    /**
+     * 发布本地缓存失效通知。
+     * @param uuid 令牌UUID
+     */
+    private void publishEvict(String uuid) {
+        try {
+            evictTopic.publish(NODE_ID + ":" + uuid);
+        } catch (Exception e) {
+            log.warn("发布登录用户缓存失效通知失败'{}'", e.getMessage());
+        }
     }
 
     /**
@@ -176,14 +350,14 @@ public class TokenService {
      */
     public void setUserAgent(LoginUser loginUser) {
         // 获取User-Agent信息，解析HTTP请求头中的User-Agent字符串，获取用户代理对象
-        UserAgent userAgent = UserAgent.parseUserAgentString(ServletUtils.getRequest().getHeader("User-Agent"));
+        UserAgentUtils.Client userAgent = UserAgentUtils.parse(ServletUtils.getRequest().getHeader("User-Agent"));
         // 获取IP地址
         String ip = IpUtils.getIpAddr();
         // 设置用户信息
         loginUser.setIpaddr(ip);// 设置登录用户的IP地址
         loginUser.setLoginLocation(AddressUtils.getRealAddressByIP(ip));//通过IP地址获取真实地理位置，将登录地点设置到登录用户对象中
-        loginUser.setBrowser(userAgent.getBrowser().getName());//获取并设置登录用户的浏览器信息
-        loginUser.setOs(userAgent.getOperatingSystem().getName());//获取并设置登录用户的操作系统信息
+        loginUser.setBrowser(userAgent.getBrowser());//获取并设置登录用户的浏览器信息
+        loginUser.setOs(userAgent.getOs());//获取并设置登录用户的操作系统信息
     }
 
     /**
@@ -202,16 +376,22 @@ public class TokenService {
 
     /**
      * 从令牌中获取数据声明。
-     * 解析Token并返回其中的Claims。
+     * 同一令牌在会话内会被反复提交，验签成功的结果缓存后直接返回，跳过HMAC计算。
      * @param token 令牌字符串
      * @return 数据声明对象
      */
     private Claims parseToken(String token) {
+        Claims claims = verifiedTokens.get(token);
+        if (claims != null) {
+            return claims;
+        }
         // 解析Token并验证签名
-        return Jwts.parser()
+        claims = Jwts.parser()
                 .setSigningKey(secret)
                 .parseClaimsJws(token)
                 .getBody();
+        verifiedTokens.put(token, claims);
+        return claims;
     }
 
     /**
@@ -251,4 +431,13 @@ public class TokenService {
     private String getTokenKey(String uuid) {
         return CacheConstants.LOGIN_TOKEN_KEY + uuid;
     }
+
+    /**
+     * 构建会话状态的Redis键。
+     * @param uuid 用户唯一标识
+     * @return Redis键字符串
+     */
+    private String getSessionKey(String uuid) {
+        return CacheConstants.LOGIN_SESSION_KEY + uuid;
+    }
 }
@@ -0,0 +1,284 @@
+package com.cms.framework.web.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cms.common.constant.Constants;
+import com.cms.common.core.domain.entity.SysRole;
+import com.cms.common.core.domain.entity.SysUser;
+import com.cms.common.core.domain.model.LoginUser;
+import com.cms.common.utils.StringUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * PermissionService 位图校验与原字符串校验的一致性测试
+ *
+ * 原实现：用户权限集合为空时不具备任何权限，包含 *:*:* 时具备全部权限，否则按去除首尾空白后的权限字符精确匹配，
+ * hasAnyPermi 按逗号拆分后任意一个匹配即可。分别在字典可用、字典不可用、字典重建三种情况下比较。
+ *
+ * @author quoteZZZ
+ */
+class PermissionServiceTest {
+    /** 用户权限集合 */
+    private static final List<Set<String>> PERMISSION_SETS = Arrays.asList(
+            Collections.emptySet(),
+            set(Constants.ALL_PERMISSION),
+            set(Constants.ALL_PERMISSION, "system:user:list"),
+            set("system:user:list"),
+            set("system:user:list", "system:user:add", "monitor:online:list"),
+            set("system:user:*"),
+            set(" system:user:list "));
+
+    /** 注解中的权限表达式 */
+    private static final List<String> EXPRESSIONS = Arrays.asList(
+            "",
+            " ",
+            "system:user:list",
+            " system:user:list ",
+            "system:user:edit",
+            "system:user:*",
+            "system:*:*",
+            Constants.ALL_PERMISSION,
+            "monitor:online:list",
+            "unknown:perm",
+            ",",
+            "system:user:edit,system:user:add",
+            "system:user:edit, system:user:add ",
+            "system:user:edit,,unknown:perm",
+            "unknown:perm,*:*:*");
+
+    private FakeDictionary dictionary;
+
+    private PermissionService service;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new FakeDictionary();
+        service = new PermissionService();
+        ReflectionTestUtils.setField(service, "permissionDictionary", dictionary);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void compiledMatchesLegacy() {
+        assertAllMatchLegacy();
+    }
+
+    @Test
+    void fallbackMatchesLegacyWhenDictionaryUnavailable() {
+        dictionary.available = false;
+        assertAllMatchLegacy();
+    }
+
+    @Test
+    void compiledMatchesLegacyAfterDictionaryRebuild() {
+        for (Set<String> perms : PERMISSION_SETS) {
+            login(perms, Collections.emptyList());
+            // 先按当前代次编译，再重建字典，已编译的位图需按新代次重新编译
+            service.hasPermi("system:user:list");
+            dictionary.rebuild();
+            for (String expression : EXPRESSIONS) {
+                assertEquals(legacyHasPermi(perms, expression), service.hasPermi(expression),
+                        () -> "hasPermi " + perms + " " + expression);
+                assertEquals(legacyHasAnyPermi(perms, expression), service.hasAnyPermi(expression),
+                        () -> "hasAnyPermi " + perms + " " + expression);
+            }
+        }
+    }
+
+    @Test
+    void superAdminRoleMatchesLegacy() {
+        SysRole admin = role(1L, Constants.SUPER_ADMIN, set(Constants.ALL_PERMISSION));
+        SysRole judge = role(3L, "judge", set("system:score:add"));
+        // 超级管理员的权限集合为 *:*:*，非空的权限都通过；角色判断中 admin 角色具备任何角色
+        Set<String> perms = set(Constants.ALL_PERMISSION);
+        login(perms, Arrays.asList(admin));
+        for (String expression : EXPRESSIONS) {
+            assertEquals(StringUtils.isNotEmpty(expression), service.hasPermi(expression), expression);
+            assertEquals(legacyHasAnyPermi(perms, expression), service.hasAnyPermi(expression), expression);
+        }
+        assertFalse(service.hasAnyPermi(","));
+        assertTrue(service.hasRole("judge"));
+        assertTrue(service.hasAnyRoles("x,judge"));
+        assertFalse(service.hasRole(""));
+
+        // 非超级管理员只按自身权限与角色标识判断
+        login(set("system:score:add"), Arrays.asList(judge));
+        assertTrue(service.hasPermi("system:score:add"));
+        assertFalse(service.hasPermi("system:score:remove"));
+        assertTrue(service.hasRole(" judge "));
+        assertFalse(service.hasRole(Constants.SUPER_ADMIN));
+        assertTrue(service.hasAnyRoles("admin,judge"));
+        assertFalse(service.hasAnyRoles("admin,common"));
+    }
+
+    @Test
+    void roleMatcherMatchesLegacy() {
+        SysRole judge = role(3L, "judge", set("system:score:add", "system:score:list"));
+        SysRole common = role(2L, "common", set("system:registr:add"));
+        LoginUser loginUser = login(set("system:score:add", "system:score:list", "system:registr:add"),
+                Arrays.asList(judge, common));
+        for (String expression : Arrays.asList("system:score:add", "system:registr:add", "system:score:edit,system:registr:add", "unknown")) {
+            for (SysRole role : Arrays.asList(judge, common)) {
+                assertEquals(StringUtils.containsAny(role.getPermissions(), expression.split(",")),
+                        service.roleMatcher(loginUser, expression).test(role), () -> role.getRoleKey() + " " + expression);
+            }
+        }
+    }
+
+    /**
+     * 位图校验与原字符串校验的耗时对比，默认不执行
+     * 运行方式：mvn -pl cms-framework test -Dtest=PermissionServiceTest#compareWithLegacy -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void compareWithLegacy() {
+        Set<String> perms = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            perms.add("module" + (i % 20) + ":entity" + i + ":list");
+        }
+        login(perms, Collections.emptyList());
+        String single = "module5:entity105:list";
+        String any = "module1:entity1:edit,module2:entity2:edit,module5:entity105:list";
+        int calls = 2_000_000;
+        for (int round = 0; round < 5; round++) {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sink += service.hasPermi(single) ? 1 : 0;
+                sink += service.hasAnyPermi(any) ? 1 : 0;
+            }
+            long compiled = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sink += legacyHasPermi(perms, single) ? 1 : 0;
+                sink += legacyHasAnyPermi(perms, any) ? 1 : 0;
+            }
+            long legacy = System.nanoTime() - start;
+            assertEquals(calls * 4L, sink);
+            System.out.printf("位图 %.1fns，字符串 %.1fns（hasPermi 与 hasAnyPermi 各一次，位图一侧含获取登录用户与设置权限上下文）%n",
+                    (double) compiled / calls, (double) legacy / calls);
+        }
+    }
+
+    private void assertAllMatchLegacy() {
+        for (Set<String> perms : PERMISSION_SETS) {
+            login(perms, Collections.emptyList());
+            for (String expression : EXPRESSIONS) {
+                assertEquals(legacyHasPermi(perms, expression), service.hasPermi(expression),
+                        () -> "hasPermi " + perms + " " + expression);
+                assertEquals(legacyHasAnyPermi(perms, expression), service.hasAnyPermi(expression),
+                        () -> "hasAnyPermi " + perms + " " + expression);
+                assertEquals(!legacyHasPermi(perms, expression), service.lacksPermi(expression),
+                        () -> "lacksPermi " + perms + " " + expression);
+            }
+        }
+    }
+
+    /**
+     * 原 hasPermi 的判断
+     */
+    private static boolean legacyHasPermi(Set<String> perms, String permission) {
+        if (StringUtils.isEmpty(permission) || perms.isEmpty()) {
+            return false;
+        }
+        return perms.contains(Constants.ALL_PERMISSION) || perms.contains(StringUtils.trim(permission));
+    }
+
+    /**
+     * 原 hasAnyPermi 的判断
+     */
+    private static boolean legacyHasAnyPermi(Set<String> perms, String permissions) {
+        if (StringUtils.isEmpty(permissions) || perms.isEmpty()) {
+            return false;
+        }
+        for (String permission : permissions.split(Constants.PERMISSION_DELIMETER)) {
+            if (perms.contains(Constants.ALL_PERMISSION) || perms.contains(StringUtils.trim(permission))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static LoginUser login(Set<String> perms, List<SysRole> roles) {
+        SysUser user = new SysUser(1L);
+        user.setRoles(new ArrayList<>(roles));
+        LoginUser loginUser = new LoginUser(1L, 1L, user, perms);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(loginUser, null, Collections.emptyList()));
+        return loginUser;
+    }
+
+    private static SysRole role(Long roleId, String roleKey, Set<String> perms) {
+        SysRole role = new SysRole();
+        role.setRoleId(roleId);
+        role.setRoleKey(roleKey);
+        role.setPermissions(perms);
+        return role;
+    }
+
+    private static Set<String> set(String... perms) {
+        return new HashSet<>(Arrays.asList(perms));
+    }
+
+    /**
+     * 内存中的权限字典，available 为 false 时模拟 Redis 不可用
+     */
+    private static final class FakeDictionary extends PermissionDictionary {
+        private final List<String> perms = new ArrayList<>();
+        private int epoch = 1;
+        private boolean available = true;
+        private volatile Snapshot snapshot = new Snapshot(null, new String[0]);
+
+        @Override
+        public synchronized Snapshot intern(Collection<String> values) {
+            if (!available) {
+                throw new IllegalStateException("字典不可用");
+            }
+            for (String value : values) {
+                if (!perms.contains(value)) {
+                    perms.add(value);
+                }
+            }
+            snapshot = new Snapshot(String.valueOf(epoch), perms.toArray(new String[0]));
+            return snapshot;
+        }
+
+        @Override
+        public Snapshot current() {
+            return snapshot;
+        }
+
+        /**
+         * 以新的代次重建字典，编号顺序与原字典不同
+         */
+        private synchronized void rebuild() {
+            epoch++;
+            Collections.reverse(perms);
+            snapshot = new Snapshot(String.valueOf(epoch), perms.toArray(new String[0]));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.cms.RabbitMQ;
 
+import com.alibaba.fastjson2.JSON;
 import com.cms.common.constant.MqConstants;
+import java.util.Date;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.MessagePostProcessor;
@@ -78,4 +80,43 @@ public class MQMessagePublisher {
             logger.error("发送延时消息失败, payload: {}", payload, e);
         }
     }
+
+    /**
+     * 发送报名评分事件
+     * 消息体仅包含重算成绩所需的标识，序列化为紧凑的 JSON 字符串，由评分消费者按批合并处理。
+     *
+     * @param event 报名评分事件
+     * @return 是否成功投递到 RabbitMQ
+     */
+    public boolean sendRegistrScoredEvent(RegistrScoredEvent event) {
+        try {
+            rabbitTemplate.convertAndSend(MqConstants.SCORE_EXCHANGE, MqConstants.SCORE_ROUTING_KEY, JSON.toJSONString(event));
+            logger.debug("发送评分事件, event: {}", event);
+            return true;
+        } catch (Exception e) {
+            logger.error("发送评分事件失败, event: {}", event, e);
+            return false;
+        }
+    }
+
+    /**
+     * 发送缓冲报名消息
+     * 消息携带入队时间戳，用于统计排队延迟。
+     *
+     * @param payload 报名信息（通常为 SysRegistr 实体）
+     * @return 是否成功投递到 RabbitMQ
+     */
+    public boolean sendBufferedRegistr(Object payload) {
+        try {
+            MessagePostProcessor mpp = message -> {
+                message.getMessageProperties().setTimestamp(new Date());
+                return message;
+            };
+            rabbitTemplate.convertAndSend(MqConstants.REGISTR_EXCHANGE, MqConstants.REGISTR_ROUTING_KEY, JSON.toJSONString(payload), mpp);
+            return true;
+        } catch (Exception e) {
+            logger.error("发送缓冲报名消息失败, payload: {}", payload, e);
+            return false;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+package com.cms.RabbitMQ;
+
+import com.alibaba.fastjson2.JSON;
+import com.cms.common.core.domain.entity.SysRegistr;
+import com.cms.system.service.ISysRegistrService;
+import com.rabbitmq.client.Channel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareBatchMessageListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 该工具类用于批量消费缓冲报名消息，一个批次只开启一次事务完成重复检查、多值插入和用户部门批量更新。
+ * 适用场景：竞赛报名高峰期开启缓冲写入模式后，将大量单条报名事务合并为少量批量事务。
+ * 整批写入失败时，首次投递的消息重新入队；已重投过的消息逐条写入，定位并标记失败的报名。
+ * 同时统计吞吐量与排队延迟，供监控接口查询。
+ */
+@Component
+public class MQRegistrConsumerHelper implements ChannelAwareBatchMessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MQRegistrConsumerHelper.class);
+
+    private static final String DUPLICATE_REASON = "重复报名或用户信息无效";
+
+    private static final String FAILED_REASON = "报名写入失败，请稍后重试";
+
+    @Autowired
+    private ISysRegistrService sysRegistrService;
+
+    private final long startTime = System.currentTimeMillis();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong lastBatchMillis = new AtomicLong();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    @Override
+    public void onMessageBatch(List<Message> messages, Channel channel) {
+        long begin = System.currentTimeMillis();
+        List<SysRegistr> registrs = new ArrayList<>(messages.size());
+        List<Message> accepted = new ArrayList<>(messages.size());
+        long oldest = begin;
+        for (Message message : messages) {
+            SysRegistr registr = parseRegistr(message);
+            if (registr == null || registr.getRegistrId() == null) {
+                reject(message, channel, false);
+                continue;
+            }
+            Date timestamp = message.getMessageProperties().getTimestamp();
+            if (timestamp != null) {
+                oldest = Math.min(oldest, timestamp.getTime());
+            }
+            registrs.add(registr);
+            accepted.add(message);
+        }
+        received.addAndGet(messages.size());
+        if (registrs.isEmpty()) {
+            return;
+        }
+
+        try {
+            Set<Long> insertedIds = sysRegistrService.insertSysRegistrBatch(registrs);
+            sysRegistrService.completeBufferedRegistrs(registrs, insertedIds, DUPLICATE_REASON);
+            record(insertedIds.size(), registrs.size() - insertedIds.size());
+            ackAll(accepted, channel);
+        } catch (Exception e) {
+            logger.error("缓冲报名批量写入失败, 批次数: {}, 错误信息: {}", registrs.size(), e.getMessage());
+            for (int i = 0; i < accepted.size(); i++) {
+                Message message = accepted.get(i);
+                if (!message.getMessageProperties().isRedelivered()) {
+                    reject(message, channel, true);
+                } else {
+                    writeOne(registrs.get(i));
+                    ack(message, channel);
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        long lag = now - oldest;
+        batches.incrementAndGet();
+        lastBatchSize.set(registrs.size());
+        lastBatchMillis.set(now - begin);
+        lastLagMillis.set(lag);
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+    }
+
+    /**
+     * 获取缓冲写入统计
+     *
+     * @return 吞吐量、批次与排队延迟统计
+     */
+    public Map<String, Object> getMetrics() {
+        long uptimeSeconds = Math.max(1, (System.currentTimeMillis() - startTime) / 1000);
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("received", received.get());
+        metrics.put("written", written.get());
+        metrics.put("failed", failed.get());
+        metrics.put("batches", batches.get());
+        metrics.put("writtenPerSecond", written.get() / (double) uptimeSeconds);
+        metrics.put("lastBatchSize", lastBatchSize.get());
+        metrics.put("lastBatchMillis", lastBatchMillis.get());
+        metrics.put("lastLagMillis", lastLagMillis.get());
+        metrics.put("maxLagMillis", maxLagMillis.get());
+        return metrics;
+    }
+
+    private void writeOne(SysRegistr registr) {
+        List<SysRegistr> single = Collections.singletonList(registr);
+        try {
+            Set<Long> insertedIds = sysRegistrService.insertSysRegistrBatch(single);
+            sysRegistrService.completeBufferedRegistrs(single, insertedIds, DUPLICATE_REASON);
+            record(insertedIds.size(), 1 - insertedIds.size());
+        } catch (Exception e) {
+            logger.error("缓冲报名写入失败, registrId: {}, 错误信息: {}", registr.getRegistrId(), e.getMessage());
+            sysRegistrService.completeBufferedRegistrs(single, Collections.emptySet(), FAILED_REASON);
+            record(0, 1);
+        }
+    }
+
+    private void record(int writtenCount, int failedCount) {
+        written.addAndGet(writtenCount);
+        failed.addAndGet(failedCount);
+    }
+
+    private SysRegistr parseRegistr(Message message) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            return JSON.parseObject(body, SysRegistr.class);
+        } catch (Exception e) {
+            logger.error("缓冲报名消息解析失败, 消息内容: {}, 错误信息: {}", body, e.getMessage());
+            return null;
+        }
+    }
+
+    private void ackAll(List<Message> messages, Channel channel) {
+        for (Message message : messages) {
+            ack(message, channel);
+        }
+    }
+
+    private void ack(Message message, Channel channel) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (Exception e) {
+            logger.error("确认缓冲报名消息失败, deliveryTag: {}, 错误信息: {}", deliveryTag, e.getMessage());
+        }
+    }
+
+    private void reject(Message message, Channel channel, boolean requeue) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            channel.basicNack(deliveryTag, false, requeue);
+        } catch (Exception e) {
+            logger.error("拒绝缓冲报名消息失败, deliveryTag: {}, 错误信息: {}", deliveryTag, e.getMessage());
+        }
+    }
+}
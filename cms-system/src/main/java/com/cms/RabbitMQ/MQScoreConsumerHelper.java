@@ -0,0 +1,86 @@
+package com.cms.RabbitMQ;
+
+import com.alibaba.fastjson2.JSON;
+import com.cms.system.service.ISysResultService;
+import com.rabbitmq.client.Channel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareBatchMessageListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 该工具类用于批量消费报名评分事件，在一个批次窗口内按报名ID合并事件，每个报名只重算一次成绩。
+ * 适用场景：评审集中打分时，同一报名的多次评分变更会被合并，避免逐条同步重算带来的重复查询与写入。
+ * 成绩重算以当前有效评分为准且幂等，因此重复投递或乱序到达都不会影响最终结果。
+ */
+@Component
+public class MQScoreConsumerHelper implements ChannelAwareBatchMessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MQScoreConsumerHelper.class);
+
+    @Autowired
+    private ISysResultService sysResultService;
+
+    @Override
+    public void onMessageBatch(List<Message> messages, Channel channel) {
+        Map<Long, List<Message>> grouped = new LinkedHashMap<>();
+        for (Message message : messages) {
+            RegistrScoredEvent event = parseEvent(message);
+            if (event == null || event.getRegistrId() == null) {
+                // 无法解析的消息重投也无意义，直接丢弃
+                reject(message, channel, false);
+                continue;
+            }
+            grouped.computeIfAbsent(event.getRegistrId(), k -> new ArrayList<>()).add(message);
+        }
+
+        int failed = 0;
+        for (Map.Entry<Long, List<Message>> entry : grouped.entrySet()) {
+            try {
+                sysResultService.recalculateResult(entry.getKey());
+                for (Message message : entry.getValue()) {
+                    channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
+                }
+            } catch (Exception e) {
+                failed++;
+                logger.error("重算成绩失败, registrId: {}, 合并事件数: {}, 错误信息: {}",
+                        entry.getKey(), entry.getValue().size(), e.getMessage());
+                for (Message message : entry.getValue()) {
+                    // 首次失败重新入队，已重投过的消息丢弃，后续同一报名的评分事件会再次触发重算
+                    reject(message, channel, !message.getMessageProperties().isRedelivered());
+                }
+            }
+        }
+        logger.debug("评分事件批次处理完成, 消息数: {}, 合并报名数: {}, 失败数: {}", messages.size(), grouped.size(), failed);
+    }
+
+    private RegistrScoredEvent parseEvent(Message message) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            return JSON.parseObject(body, RegistrScoredEvent.class);
+        } catch (Exception e) {
+            logger.error("评分事件解析失败, 消息内容: {}, 错误信息: {}", body, e.getMessage());
+            return null;
+        }
+    }
+
+    private void reject(Message message, Channel channel, boolean requeue) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            channel.basicNack(deliveryTag, false, requeue);
+            if (!requeue) {
+                logger.error("评分事件已丢弃, deliveryTag: {}, 消息内容: {}", deliveryTag,
+                        new String(message.getBody(), StandardCharsets.UTF_8));
+            }
+        } catch (Exception e) {
+            logger.error("拒绝评分事件失败, deliveryTag: {}, 错误信息: {}", deliveryTag, e.getMessage());
+        }
+    }
+}
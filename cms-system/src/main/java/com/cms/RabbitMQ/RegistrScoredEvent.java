@@ -0,0 +1,79 @@
+package com.cms.RabbitMQ;
+
+import java.io.Serializable;
+
+/**
+ * 报名评分事件：评分新增、修改、删除并提交后发布，只携带重算成绩所需的标识。
+ * 适用场景：评分写入与成绩计算解耦，由 MQScoreConsumerHelper 按报名合并后统一重算。
+ */
+public class RegistrScoredEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 评分新增 */
+    public static final String ACTION_INSERT = "insert";
+    /** 评分修改 */
+    public static final String ACTION_UPDATE = "update";
+    /** 评分删除 */
+    public static final String ACTION_DELETE = "delete";
+
+    /** 报名ID */
+    private Long registrId;
+
+    /** 赛事ID（可为空，仅用于日志与排查） */
+    private Long compId;
+
+    /** 触发动作 */
+    private String action;
+
+    /** 事件产生时间（毫秒） */
+    private Long eventTime;
+
+    public RegistrScoredEvent() {
+    }
+
+    public RegistrScoredEvent(Long registrId, Long compId, String action) {
+        this.registrId = registrId;
+        this.compId = compId;
+        this.action = action;
+        this.eventTime = System.currentTimeMillis();
+    }
+
+    public Long getRegistrId() {
+        return registrId;
+    }
+
+    public void setRegistrId(Long registrId) {
+        this.registrId = registrId;
+    }
+
+    public Long getCompId() {
+        return compId;
+    }
+
+    public void setCompId(Long compId) {
+        this.compId = compId;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public Long getEventTime() {
+        return eventTime;
+    }
+
+    public void setEventTime(Long eventTime) {
+        this.eventTime = eventTime;
+    }
+
+    @Override
+    public String toString() {
+        return "RegistrScoredEvent{registrId=" + registrId + ", compId=" + compId
+                + ", action=" + action + ", eventTime=" + eventTime + "}";
+    }
+}
@@ -1,5 +1,6 @@
 package com.cms.system.mapper;
 
+import java.util.Collection;
 import java.util.List;
 import com.cms.common.core.domain.entity.SysComp;
 
@@ -18,6 +19,14 @@ public interface SysCompMapper {
      */
     SysComp selectSysCompByCompId(Long compId);
 
+    /**
+     * 根据竞赛ID批量查询竞赛信息（仅未删除的竞赛）
+     *
+     * @param compIds 竞赛ID集合
+     * @return 竞赛信息集合
+     */
+    List<SysComp> selectSysCompByCompIds(@Param("compIds") Collection<Long> compIds);
+
     /**
      * 查询竞赛信息列表（支持多种排序方式）
      *
@@ -98,4 +107,13 @@ public interface SysCompMapper {
      */
     int incrementAccessFrequency(Long compId);
 
+    /**
+     * 按增量累加竞赛访问频率
+     *
+     * @param compId 竞赛ID
+     * @param delta 增量
+     * @return 更新结果
+     */
+    int addAccessFrequency(@Param("compId") Long compId, @Param("delta") long delta);
+
 }
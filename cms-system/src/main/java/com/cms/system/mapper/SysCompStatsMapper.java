@@ -0,0 +1,27 @@
+package com.cms.system.mapper;
+
+import com.cms.common.core.domain.entity.SysCompStats;
+
+/**
+ * 竞赛统计计数Mapper接口
+ *
+ * @author quoteZZZ
+ */
+public interface SysCompStatsMapper
+{
+    /**
+     * 新增或更新竞赛统计计数
+     *
+     * @param stats 竞赛统计计数
+     * @return 结果
+     */
+    public int upsertSysCompStats(SysCompStats stats);
+
+    /**
+     * 从业务表统计竞赛计数
+     *
+     * @param compId 竞赛ID
+     * @return 竞赛统计计数
+     */
+    public SysCompStats selectCompStatsFromSource(Long compId);
+}
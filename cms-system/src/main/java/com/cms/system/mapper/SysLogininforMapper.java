@@ -18,6 +18,14 @@ public interface SysLogininforMapper
      */
     public void insertLogininfor(SysLogininfor logininfor);
 
+    /**
+     * 批量新增系统登录日志
+     * 
+     * @param logininfors 访问日志集合
+     * @return 结果
+     */
+    public int insertLogininforBatch(List<SysLogininfor> logininfors);
+
     /**
      * 查询系统登录日志集合
      * 
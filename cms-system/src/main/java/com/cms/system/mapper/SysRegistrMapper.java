@@ -62,7 +62,15 @@ public interface SysRegistrMapper
     public int updateSysRegistr(SysRegistr sysRegistr);
 
     /**
-     * 删除报名信息
+     * 查询未删除的报名信息并加行锁（需在事务中调用，锁持有到事务结束）
+     * 
+     * @param registrIds 报名信息主键集合
+     * @return 未删除的报名信息
+     */
+    public List<SysRegistr> selectLiveRegistrsForUpdate(List<Long> registrIds);
+
+    /**
+     * 删除报名信息（只删除未删除的记录）
      * 
      * @param registrId 报名信息主键
      * @return 结果
@@ -70,10 +78,42 @@ public interface SysRegistrMapper
     public int deleteSysRegistrByRegistrId(Long registrId);
 
     /**
-     * 批量删除报名信息
+     * 批量删除报名信息（只删除未删除的记录）
      * 
      * @param registrIds 需要删除的数据主键集合
      * @return 结果
      */
     public int deleteSysRegistrByRegistrIds(List<Long> registrIds);
+
+    /**
+     * 原子增减报名评分计数
+     * 
+     * @param registrId 报名信息主键
+     * @param delta 增量（可为负数，结果不小于0）
+     * @return 结果
+     */
+    public int incrementScoreCount(@Param("registrId") Long registrId, @Param("delta") int delta);
+
+    /**
+     * 按有效评分记录批量校正报名评分计数
+     * 
+     * @return 被校正的报名记录数
+     */
+    public int reconcileScoreCount();
+
+    /**
+     * 批量新增报名信息（单条多值插入）
+     * 
+     * @param registrList 报名信息集合
+     * @return 结果
+     */
+    public int batchInsertSysRegistr(List<SysRegistr> registrList);
+
+    /**
+     * 按 (竞赛ID, 用户ID) 批量查询已存在的报名
+     * 
+     * @param registrList 待检查的报名信息集合（仅使用 compId、userId）
+     * @return 已存在的报名信息（仅包含 compId、userId）
+     */
+    public List<SysRegistr> selectExistingRegistrs(List<SysRegistr> registrList);
 }
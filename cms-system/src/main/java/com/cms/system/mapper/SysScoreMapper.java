@@ -84,7 +84,15 @@ public interface SysScoreMapper
     public int updateSysScore(SysScore sysScore);
 
     /**
-     * 删除评分信息
+     * 查询未删除的评分并加行锁（需在事务中调用，锁持有到事务结束）
+     * 
+     * @param scoreIds 评分信息主键集合
+     * @return 未删除的评分信息
+     */
+    public List<SysScore> selectLiveScoresForUpdate(List<Long> scoreIds);
+
+    /**
+     * 删除评分信息（只删除未删除的记录）
      * 
      * @param scoreId 评分信息主键
      * @return 结果
@@ -92,7 +100,7 @@ public interface SysScoreMapper
     public int deleteSysScoreByScoreId(Long scoreId);
 
     /**
-     * 批量删除评分信息
+     * 批量删除评分信息（只删除未删除的记录）
      * 
      * @param scoreIds 需要删除的数据主键集合
      * @return 结果
@@ -3,6 +3,7 @@ package com.cms.system.mapper;
 import com.cms.common.core.domain.entity.SysUserComp;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -68,4 +69,31 @@ public interface SysUserCompMapper
      * @return 用户ID列表
      */
     public List<Long> selectUserIdsByCompId(Long compId);
+
+    /**
+     * 查询竞赛中具有评委角色的未删除用户ID列表
+     * @param compId 竞赛ID
+     * @return 用户ID列表
+     */
+    public List<Long> selectJudgeIdsByCompId(Long compId);
+
+    /**
+     * 查询用户被授权的竞赛ID列表（仅未删除的竞赛）
+     * @param userId 用户ID
+     * @return 竞赛ID列表
+     */
+    public List<Long> selectCompIdsByUserId(Long userId);
+
+    /**
+     * 查询全部用户竞赛关联（仅未删除的竞赛），用于重建成员索引
+     * @return 用户竞赛关联列表
+     */
+    public List<SysUserComp> selectAllUserComps();
+
+    /**
+     * 批量查询用户竞赛关联（仅未删除的竞赛）
+     * @param userIds 用户ID集合
+     * @return 用户竞赛关联列表
+     */
+    public List<SysUserComp> selectUserCompsByUserIds(@Param("userIds") Collection<Long> userIds);
 }
@@ -3,6 +3,7 @@ package com.cms.system.mapper;
 import com.cms.common.core.domain.entity.SysUser;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -144,4 +145,28 @@ public interface SysUserMapper
      * @return 用户列表
      */
     public List<SysUser> selectUsersByIds(List<Long> userIds);
+
+    /**
+     * 根据用户名批量查询未删除的用户（仅返回用户ID与用户名）
+     *
+     * @param userNames 用户名集合
+     * @return 用户列表
+     */
+    public List<SysUser> selectUsersByUserNames(@Param("userNames") Collection<String> userNames);
+
+    /**
+     * 批量新增用户（导入）
+     *
+     * @param users 用户列表
+     * @return 新增的记录数
+     */
+    public int batchInsertUser(List<SysUser> users);
+
+    /**
+     * 批量更新用户基本信息（导入），空值字段保持原值
+     *
+     * @param users 用户列表
+     * @return 更新的记录数
+     */
+    public int batchUpdateImportUser(List<SysUser> users);
 }
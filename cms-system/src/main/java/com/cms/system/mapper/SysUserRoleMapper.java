@@ -4,6 +4,7 @@ import com.cms.common.core.domain.entity.SysUserRole;
 import com.cms.common.core.domain.entity.SysRole;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -79,4 +80,20 @@ public interface SysUserRoleMapper
      * @return 角色列表
      */
     List<SysRole> selectRolesByUserId(Long userId);
+
+    /**
+     * 批量查询用户与角色关联
+     *
+     * @param userIds 用户ID集合
+     * @return 用户与角色关联列表
+     */
+    List<SysUserRole> selectUserRolesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 批量查询角色信息
+     *
+     * @param roleIds 角色ID集合
+     * @return 角色列表
+     */
+    List<SysRole> selectRolesByRoleIds(@Param("roleIds") Collection<Long> roleIds);
 }
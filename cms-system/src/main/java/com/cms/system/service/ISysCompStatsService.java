@@ -0,0 +1,72 @@
+package com.cms.system.service;
+
+import java.util.List;
+import com.cms.common.core.domain.entity.SysComp;
+import com.cms.common.core.domain.entity.SysCompStats;
+
+/**
+ * 竞赛统计计数Service接口
+ * 
+ * @author quoteZZZ
+ */
+public interface ISysCompStatsService
+{
+    /** 计数字段：报名人数 */
+    public static final String REGISTRATIONS = "registrations";
+
+    /** 计数字段：审核通过人数 */
+    public static final String APPROVED = "approved";
+
+    /** 计数字段：评分次数 */
+    public static final String SCORED = "scored";
+
+    /** 计数字段：评委人数 */
+    public static final String JUDGES = "judges";
+
+    /**
+     * 增减竞赛计数（在当前事务提交后执行）
+     * 
+     * @param compId 竞赛ID
+     * @param field 计数字段
+     * @param delta 增量
+     */
+    public void increment(Long compId, String field, long delta);
+
+    /**
+     * 累加竞赛访问频率增量，由定时任务合并写入 sys_comp
+     * 
+     * @param compId 竞赛ID
+     * @param delta 增量
+     */
+    public void incrementAccess(Long compId, long delta);
+
+    /**
+     * 查询竞赛计数
+     * 
+     * @param compId 竞赛ID
+     * @return 竞赛统计计数
+     */
+    public SysCompStats selectCompStats(Long compId);
+
+    /**
+     * 为竞赛对象填充计数（不影响竞赛实体缓存）
+     * 
+     * @param comps 竞赛集合
+     */
+    public void fillCompStats(List<SysComp> comps);
+
+    /**
+     * 从业务表重建竞赛计数
+     * 
+     * @param compId 竞赛ID
+     * @return 竞赛统计计数
+     */
+    public SysCompStats rebuildCompStats(Long compId);
+
+    /**
+     * 将有变化的计数写入统计表
+     * 
+     * @return 写入的竞赛数
+     */
+    public int flushCompStats();
+}
@@ -0,0 +1,68 @@
+package com.cms.system.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 评审工作队列Service接口
+ * 
+ * @author quoteZZZ
+ */
+public interface ISysJudgeQueueService
+{
+    /**
+     * 根据报名记录初始化竞赛的评审工作队列
+     * 
+     * @param compId 竞赛ID
+     * @param requiredScores 每条报名需要的评分次数
+     * @return 进入队列的报名数
+     */
+    public int seedQueue(Long compId, int requiredScores);
+
+    /**
+     * 评委领取待评报名（带租约）
+     * 
+     * @param compId 竞赛ID
+     * @param judgeId 评委ID
+     * @param count 领取数量
+     * @return 领取到的报名ID集合
+     */
+    public List<Long> claim(Long compId, Long judgeId, int count);
+
+    /**
+     * 评分完成后确认租约
+     * 
+     * @param compId 竞赛ID
+     * @param judgeId 评委ID
+     * @param registrId 报名ID
+     * @return 是否为首次确认
+     */
+    public boolean ack(Long compId, Long judgeId, Long registrId);
+
+    /**
+     * 评分删除后重新开放评委对该报名的评分
+     * 
+     * @param compId 竞赛ID
+     * @param judgeId 评委ID
+     * @param registrId 报名ID
+     * @return 是否重新开放
+     */
+    public boolean reopen(Long compId, Long judgeId, Long registrId);
+
+    /**
+     * 将队列初始化后审核通过的报名加入待评队列
+     * 
+     * @param compId 竞赛ID
+     * @param registrId 报名ID
+     * @return 是否加入
+     */
+    public boolean enqueue(Long compId, Long registrId);
+
+    /**
+     * 查询队列状态
+     * 
+     * @param compId 竞赛ID
+     * @return 待评数、租约数、已评数等
+     */
+    public Map<String, Object> getQueueStatus(Long compId);
+}
@@ -18,6 +18,13 @@ public interface ISysLogininforService
      */
     public void insertLogininfor(SysLogininfor logininfor);
 
+    /**
+     * 批量新增系统登录日志
+     * 
+     * @param logininfors 访问日志集合
+     */
+    public void insertLogininforBatch(List<SysLogininfor> logininfors);
+
     /**
      * 查询系统登录日志集合
      * 
@@ -39,6 +39,12 @@ public interface ISysMenuService
      */
     public Set<String> selectMenuPermsByUserId(Long userId);
 
+    /**
+     * 查询所有菜单的权限字符
+     * @return 权限列表
+     */
+    public Set<String> selectMenuPerms();
+
     /**
      * 根据角色ID查询权限
      * @param roleId 角色ID
@@ -0,0 +1,67 @@
+package com.cms.system.service;
+
+import java.util.Map;
+
+/**
+ * 报名准入控制Service接口
+ * 
+ * @author quoteZZZ
+ */
+public interface ISysRegistrAdmissionService
+{
+    /** 准入成功，已预留名额 */
+    public static final int ADMITTED = 1;
+
+    /** 用户已报名 */
+    public static final int DUPLICATE = 0;
+
+    /** 名额已满 */
+    public static final int QUOTA_EXHAUSTED = -1;
+
+    /** 报名未开放 */
+    public static final int CLOSED = -2;
+
+    /** 竞赛未启用准入控制 */
+    public static final int NOT_ENABLED = -3;
+
+    /**
+     * 开放竞赛报名并初始化准入数据
+     * 
+     * @param compId 竞赛ID
+     * @param quota 报名名额上限，小于等于0表示不限
+     * @return 当前已报名人数
+     */
+    public int openAdmission(Long compId, int quota);
+
+    /**
+     * 关闭竞赛报名
+     * 
+     * @param compId 竞赛ID
+     */
+    public void closeAdmission(Long compId);
+
+    /**
+     * 尝试准入并预留名额
+     * 
+     * @param compId 竞赛ID
+     * @param userId 用户ID
+     * @return 准入结果
+     */
+    public int tryAdmit(Long compId, Long userId);
+
+    /**
+     * 释放已预留的名额
+     * 
+     * @param compId 竞赛ID
+     * @param userId 用户ID
+     */
+    public void release(Long compId, Long userId);
+
+    /**
+     * 查询准入状态
+     * 
+     * @param compId 竞赛ID
+     * @return 开关、剩余名额、已报名人数
+     */
+    public Map<String, Object> getAdmissionStatus(Long compId);
+}
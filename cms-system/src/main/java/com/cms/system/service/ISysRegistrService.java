@@ -1,6 +1,8 @@
 package com.cms.system.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import com.cms.common.core.domain.entity.SysRegistr;
 
 /**
@@ -35,6 +37,48 @@ public interface ISysRegistrService
      */
     public int insertSysRegistr(SysRegistr sysRegistr);
 
+    /**
+     * 提交报名
+     * 开启缓冲写入模式时报名入队后立即返回，由批量写入器落库；否则直接写入
+     * 
+     * @param sysRegistr 报名信息
+     * @return 报名ID与处理状态
+     */
+    public Map<String, Object> submitSysRegistr(SysRegistr sysRegistr);
+
+    /**
+     * 批量写入缓冲报名
+     * 
+     * @param registrList 报名信息集合
+     * @return 实际写入的报名ID集合
+     */
+    public Set<Long> insertSysRegistrBatch(List<SysRegistr> registrList);
+
+    /**
+     * 记录缓冲报名的处理结果，未写入的报名释放准入名额
+     * 
+     * @param registrList 报名信息集合
+     * @param insertedIds 实际写入的报名ID集合
+     * @param failReason 未写入的原因
+     */
+    public void completeBufferedRegistrs(List<SysRegistr> registrList, Set<Long> insertedIds, String failReason);
+
+    /**
+     * 查询提交报名的处理状态
+     * 
+     * @param registrId 报名ID
+     * @param userId 查询用户ID，只返回该用户的报名状态；为null时不校验归属
+     * @return 处理状态
+     */
+    public Map<String, Object> selectSubmitStatus(Long registrId, Long userId);
+
+    /**
+     * 是否开启缓冲写入模式
+     * 
+     * @return 结果
+     */
+    public boolean isRegistrBuffered();
+
     /**
      * 修改报名信息
      * 
@@ -58,4 +58,13 @@ public interface ISysResultService
      * @return 结果
      */
     public int deleteSysResultByResultId(Long resultId);
+
+    /**
+     * 按报名重算成绩结果
+     * 以当前有效评分重新计算平均分并写入成绩表，重复执行结果一致
+     * 
+     * @param registrId 报名ID
+     * @return 结果
+     */
+    public int recalculateResult(Long registrId);
 }
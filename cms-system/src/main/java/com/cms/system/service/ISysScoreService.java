@@ -58,4 +58,11 @@ public interface ISysScoreService
      * @return 结果
      */
     public int deleteSysScoreByScoreId(Long scoreId);
+
+    /**
+     * 校正报名评分计数
+     * 
+     * @return 被校正的报名记录数
+     */
+    public int reconcileScoreCount();
 }
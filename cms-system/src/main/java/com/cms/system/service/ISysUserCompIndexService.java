@@ -0,0 +1,92 @@
+package com.cms.system.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户-竞赛成员索引Service接口
+ * 
+ * @author quoteZZZ
+ */
+public interface ISysUserCompIndexService
+{
+    /**
+     * 判断用户是否属于竞赛
+     * 
+     * @param userId 用户ID
+     * @param compId 竞赛ID
+     * @return 结果
+     */
+    public boolean isMember(Long userId, Long compId);
+
+    /**
+     * 查询用户所属的竞赛ID集合
+     * 
+     * @param userId 用户ID
+     * @return 竞赛ID集合
+     */
+    public Set<Long> selectCompIds(Long userId);
+
+    /**
+     * 批量查询多个用户所属的竞赛ID集合
+     * 
+     * @param userIds 用户ID集合
+     * @return 用户ID到竞赛ID集合的映射，无竞赛的用户映射为空集合
+     */
+    public Map<Long, Set<Long>> selectCompIds(Collection<Long> userIds);
+
+    /**
+     * 查询竞赛的成员用户ID集合
+     * 
+     * @param compId 竞赛ID
+     * @return 用户ID集合
+     */
+    public Set<Long> selectUserIds(Long compId);
+
+    /**
+     * 统计竞赛成员数
+     * 
+     * @param compId 竞赛ID
+     * @return 成员数
+     */
+    public long countUsers(Long compId);
+
+    /**
+     * 查询多个竞赛共同的成员（交集）
+     * 
+     * @param compIds 竞赛ID集合
+     * @return 用户ID集合
+     */
+    public Set<Long> selectSharedUserIds(Collection<Long> compIds);
+
+    /**
+     * 新增成员关系（在当前事务提交后执行）
+     * 
+     * @param compId 竞赛ID
+     * @param userIds 用户ID集合
+     */
+    public void addMembers(Long compId, Collection<Long> userIds);
+
+    /**
+     * 移除成员关系（在当前事务提交后执行）
+     * 
+     * @param compId 竞赛ID
+     * @param userIds 用户ID集合
+     */
+    public void removeMembers(Long compId, Collection<Long> userIds);
+
+    /**
+     * 移除竞赛的全部成员关系（在当前事务提交后执行）
+     * 
+     * @param compId 竞赛ID
+     */
+    public void removeComp(Long compId);
+
+    /**
+     * 从 sys_user_comp 重建索引
+     * 
+     * @return 关联记录数
+     */
+    public int rebuildIndex();
+}
@@ -37,7 +37,7 @@ public interface ISysUserCompService {
     public List<Long> selectUserCompetitions(Long userId);
 
     /**
-     * 查询竞赛的参与用户
+     * 查询竞赛的评委用户
      *
      * @param compId 竞赛ID
      * @return 用户ID列表
@@ -0,0 +1,46 @@
+package com.cms.system.service;
+
+import java.util.Collection;
+import java.util.Map;
+import com.cms.common.core.domain.entity.SysUser;
+
+/**
+ * 用户目录缓存Service接口
+ * 
+ * 提供按用户ID、用户名查询用户基本信息的两级缓存（本地 + Redis），
+ * 返回的是不含密码、角色的精简副本，只用于读取，需要完整信息或修改后保存时应使用 {@link ISysUserService}。
+ * 
+ * @author quoteZZZ
+ */
+public interface ISysUserDirectoryService
+{
+    /**
+     * 通过用户ID查询用户基本信息
+     * 
+     * @param userId 用户ID
+     * @return 用户基本信息副本，不存在时返回null
+     */
+    public SysUser selectUserById(Long userId);
+
+    /**
+     * 通过用户名查询未删除用户的基本信息
+     * 
+     * @param userName 用户名
+     * @return 用户基本信息副本，不存在时返回null
+     */
+    public SysUser selectUserByUserName(String userName);
+
+    /**
+     * 失效用户缓存（在当前事务提交后执行，并通知其他节点）
+     * 
+     * @param userIds 用户ID集合
+     */
+    public void evict(Collection<Long> userIds);
+
+    /**
+     * 查询缓存命中统计
+     * 
+     * @return 统计信息
+     */
+    public Map<String, Object> getMetrics();
+}
@@ -0,0 +1,40 @@
+package com.cms.system.service;
+
+import java.util.List;
+import java.util.Map;
+import com.cms.common.core.domain.entity.SysUser;
+
+/**
+ * 用户异步导入Service接口
+ * 
+ * @author quoteZZZ
+ */
+public interface ISysUserImportService
+{
+    /**
+     * 提交用户导入任务
+     * 
+     * @param data Excel文件内容
+     * @param updateSupport 是否更新已存在的用户
+     * @param operName 操作用户
+     * @return 任务ID
+     */
+    public String submitImport(byte[] data, boolean updateSupport, String operName);
+
+    /**
+     * 查询导入任务进度
+     * 
+     * @param taskId 任务ID
+     * @return 进度信息，任务不存在时返回空集合
+     */
+    public Map<String, Object> selectImportProgress(String taskId);
+
+    /**
+     * 在一个事务内批量写入一批导入用户
+     * 
+     * @param inserts 新增的用户
+     * @param updates 更新的用户
+     * @return 写入的记录数
+     */
+    public int saveImportBatch(List<SysUser> inserts, List<SysUser> updates);
+}
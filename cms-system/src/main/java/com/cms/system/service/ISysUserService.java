@@ -212,16 +212,6 @@ public interface ISysUserService
      */
     public int deleteUserByIds(Long[] userIds);
 
-    /**
-     * 导入用户数据
-     * 
-     * @param userList 用户数据列表
-     * @param isUpdateSupport 是否更新支持，如果已存在，则进行更新数据
-     * @param operName 操作用户
-     * @return 结果
-     */
-    public String importUser(List<SysUser> userList, Boolean isUpdateSupport, String operName);
-
     /**
      * 批量更新用户部门
      *
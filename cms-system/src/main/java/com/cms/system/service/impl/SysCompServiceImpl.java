@@ -19,6 +19,7 @@ import org.springframework.stereotype.Service;
 import com.cms.system.mapper.SysCompMapper;
 import com.cms.common.core.domain.entity.SysComp;
 import com.cms.system.service.ISysCompService;
+import com.cms.system.service.ISysCompStatsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.cms.common.redis.RedisCacheUtil;
@@ -33,6 +34,8 @@ import com.cms.common.core.domain.entity.SysRoleDept;
 import com.cms.system.service.ISysUserService;
 import com.cms.common.core.domain.entity.SysUser;
 import com.cms.system.service.ISysUserCompService;
+import com.cms.system.service.ISysUserCompIndexService;
+import com.cms.system.service.ISysUserDirectoryService;
 
 /**
  * 竞赛信息Service业务层处理
@@ -67,6 +70,15 @@ public class SysCompServiceImpl implements ISysCompService {
     @Resource
     private ISysUserCompService userCompService; // 注入ISysUserCompService
 
+    @Resource
+    private ISysCompStatsService compStatsService; // 注入竞赛计数服务
+
+    @Resource
+    private ISysUserCompIndexService userCompIndexService; // 注入用户竞赛成员索引服务
+
+    @Resource
+    private ISysUserDirectoryService userDirectoryService; // 注入用户目录缓存服务
+
     // 定义日志记录器
     Logger logger = LoggerFactory.getLogger(SysCompServiceImpl.class);
 
@@ -655,7 +667,7 @@ public class SysCompServiceImpl implements ISysCompService {
         // 尝试从负责人获取电话和邮箱
         try {
             if (leaderUsername != null && !leaderUsername.isEmpty()) {
-                SysUser leader = sysUserService.selectUserByUserName(leaderUsername);
+                SysUser leader = userDirectoryService.selectUserByUserName(leaderUsername);
                 if (leader != null) {
                     dept.setPhone(leader.getPhonenumber());
                     dept.setEmail(leader.getEmail());
@@ -777,6 +789,7 @@ public class SysCompServiceImpl implements ISysCompService {
             // 1. 执行数据库删除操作 (逻辑删除竞赛)
             int result = sysCompMapper.deleteSysCompByCompId(compId);
             logger.info("删除竞赛信息信息结果: {}", result);  // 操作结果日志
+            userCompIndexService.removeComp(compId);
 
             // 2. 逻辑删除关联的部门
             if (deptId != null) {
@@ -821,6 +834,7 @@ public class SysCompServiceImpl implements ISysCompService {
 
             // 1. 执行数据库删除操作
             int result = sysCompMapper.deleteSysCompByCompIds(compIds);
+            compIds.forEach(userCompIndexService::removeComp);
 
             // 2. 批量清理每个竞赛的缓存
             for (Long compId : compIds) clearCompCache(compId);
@@ -870,7 +884,10 @@ public class SysCompServiceImpl implements ISysCompService {
             }
 
             // 删除用户竞赛关联信息
-            return userCompMapper.deleteUserCompInfo(userComp);
+            int rows = userCompMapper.deleteUserCompInfo(userComp);
+            compStatsService.increment(userComp.getCompId(), ISysCompStatsService.JUDGES, -rows);
+            userCompIndexService.removeMembers(userComp.getCompId(), List.of(userComp.getUserId()));
+            return rows;
         } catch (Exception e) {
             logger.error("取消授权用户竞赛失败", e);
             throw new ServiceException("取消授权用户竞赛失败", 500, e.getMessage());
@@ -918,7 +935,10 @@ public class SysCompServiceImpl implements ISysCompService {
             }
 
             // 批量删除用户竞赛关联信息
-            return userCompMapper.deleteUserCompInfos(compId, userIds);
+            int rows = userCompMapper.deleteUserCompInfos(compId, userIds);
+            compStatsService.increment(compId, ISysCompStatsService.JUDGES, -rows);
+            userCompIndexService.removeMembers(compId, Arrays.asList(userIds));
+            return rows;
         } catch (Exception e) {
             logger.error("批量取消授权用户竞赛失败", e);
             throw new ServiceException("批量取消授权用户竞赛失败", 500, e.getMessage());
@@ -1000,7 +1020,10 @@ public class SysCompServiceImpl implements ISysCompService {
         }
 
         // 批量插入用户-竞赛关联
-        return userCompMapper.batchUserComp(list);
+        int rows = userCompMapper.batchUserComp(list);
+        compStatsService.increment(compId, ISysCompStatsService.JUDGES, rows);
+        userCompIndexService.addMembers(compId, Arrays.asList(userIds));
+        return rows;
     }
 
     // ========== 推荐竞赛相关方法 ==========
@@ -0,0 +1,341 @@
+package com.cms.system.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import com.cms.common.constant.CacheConstants;
+import com.cms.common.core.domain.entity.SysComp;
+import com.cms.common.core.domain.entity.SysCompStats;
+import com.cms.common.utils.StringUtils;
+import com.cms.common.utils.spring.TransactionUtils;
+import com.cms.system.mapper.SysCompMapper;
+import com.cms.system.mapper.SysCompStatsMapper;
+import com.cms.system.service.ISysCompStatsService;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+/**
+ * 竞赛统计计数Service业务层处理
+ *
+ * 报名、审核通过、评分、评委人数保存在 Redis 哈希 comp_stats:{compId} 中，由业务写操作在事务提交后原子增减，
+ * 变化的竞赛记入 comp_stats:dirty，由定时任务合并写入 sys_comp_stats。
+ * 计数不存在时从业务表重建，读取计数不会修改或失效竞赛实体缓存。
+ * 写操作在事务内登记未完成变更并递增版本，事务结束后应用增量、撤销登记并再次递增版本；
+ * 重建只在读库前后版本不变且没有未完成变更时写入，计数不存在时增量直接丢弃（业务表已包含该变更），
+ * 因此重建与增量不会重复计入或遗漏。计数哈希重建后定时过期，异常造成的偏差在过期后从业务表纠正。
+ *
+ * @author quoteZZZ
+ */
+@Service
+public class SysCompStatsServiceImpl implements ISysCompStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SysCompStatsServiceImpl.class);
+
+    private static final String DIRTY_KEY = CacheConstants.COMP_STATS_KEY + "dirty";
+
+    private static final String ACCESS_KEY = CacheConstants.COMP_STATS_KEY + "access";
+
+    private static final String FLUSH_LOCK = CacheConstants.COMP_STATS_KEY + "flush:lock";
+
+    private static final String VERSION_PREFIX = CacheConstants.COMP_STATS_KEY + "ver:";
+
+    private static final String PENDING_PREFIX = CacheConstants.COMP_STATS_KEY + "pending:";
+
+    // 计数哈希存活时间（秒），到期后从业务表重建
+    private static final long STATS_TTL_SECONDS = TimeUnit.HOURS.toSeconds(1);
+
+    // 未完成变更登记的存活时间（秒），进程异常退出未撤销时到期清除
+    private static final long PENDING_TTL_SECONDS = TimeUnit.MINUTES.toSeconds(10);
+
+    // 计数落库间隔（秒）
+    private static final long FLUSH_INTERVAL_SECONDS = 60;
+
+    // 单次落库处理的竞赛数上限
+    private static final int FLUSH_BATCH = 500;
+
+    /**
+     * 登记脚本：登记一个未完成变更并递增版本，KEYS 为登记键与版本键
+     */
+    private static final DefaultRedisScript<Long> BEGIN_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('incr', KEYS[1])\n" +
+            "redis.call('expire', KEYS[1], ARGV[1])\n" +
+            "redis.call('incr', KEYS[2])\n" +
+            "redis.call('expire', KEYS[2], ARGV[1])\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 增量脚本：事务已提交且计数存在时增减字段并标记待落库，随后撤销登记并递增版本
+     * KEYS 为计数键、待落库集合、登记键、版本键；返回是否应用了增量
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local applied = 0\n" +
+            "if ARGV[4] == '1' and redis.call('exists', KEYS[1]) == 1 then\n" +
+            "    redis.call('hincrby', KEYS[1], ARGV[1], ARGV[2])\n" +
+            "    redis.call('sadd', KEYS[2], ARGV[3])\n" +
+            "    applied = 1\n" +
+            "end\n" +
+            "if redis.call('decr', KEYS[3]) <= 0 then redis.call('del', KEYS[3]) end\n" +
+            "redis.call('incr', KEYS[4])\n" +
+            "redis.call('expire', KEYS[4], ARGV[5])\n" +
+            "return applied",
+            Long.class);
+
+    /**
+     * 重建脚本：版本与读库前一致且没有未完成变更时写入计数并设置过期时间
+     * KEYS 为计数键、待落库集合、版本键、登记键；ARGV 为读库前版本、过期秒数、竞赛ID、四个计数
+     */
+    private static final DefaultRedisScript<Long> REBUILD_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('get', KEYS[3]) or '0') ~= ARGV[1] then return 0 end\n" +
+            "if tonumber(redis.call('get', KEYS[4]) or '0') > 0 then return 0 end\n" +
+            "if redis.call('exists', KEYS[1]) == 1 then return 1 end\n" +
+            "redis.call('hmset', KEYS[1], '" + REGISTRATIONS + "', ARGV[4], '" + APPROVED + "', ARGV[5], '" +
+                    SCORED + "', ARGV[6], '" + JUDGES + "', ARGV[7])\n" +
+            "redis.call('expire', KEYS[1], ARGV[2])\n" +
+            "redis.call('sadd', KEYS[2], ARGV[3])\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 取出并清零访问频率增量
+     */
+    private static final DefaultRedisScript<Long> TAKE_ACCESS_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('hget', KEYS[1], ARGV[1])\n" +
+            "if not v then return 0 end\n" +
+            "redis.call('hdel', KEYS[1], ARGV[1])\n" +
+            "return tonumber(v)",
+            Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private SysCompStatsMapper compStatsMapper;
+
+    @Resource
+    private SysCompMapper sysCompMapper;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource(name = "scheduledExecutorService")
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * 注册计数落库任务
+     */
+    @PostConstruct
+    public void scheduleFlush() {
+        scheduledExecutorService.scheduleWithFixedDelay(() -> {
+            RLock lock = redissonClient.getLock(FLUSH_LOCK);
+            if (!lock.tryLock()) {
+                return;
+            }
+            try {
+                flushCompStats();
+            } catch (Exception e) {
+                logger.error("竞赛计数落库失败", e);
+            } finally {
+                lock.unlock();
+            }
+        }, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 增减竞赛计数（在当前事务提交后执行）
+     * 调用时登记未完成变更，阻止事务结束前的重建写入；计数不存在时不增减，由之后的读取从业务表重建
+     * 应在写业务表的事务中调用，无事务时登记晚于写库，期间的重建偏差由计数过期纠正
+     *
+     * @param compId 竞赛ID
+     * @param field 计数字段
+     * @param delta 增量
+     */
+    @Override
+    public void increment(Long compId, String field, long delta) {
+        if (compId == null || delta == 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(BEGIN_SCRIPT, Arrays.asList(pendingKey(compId), versionKey(compId)),
+                    String.valueOf(PENDING_TTL_SECONDS));
+        } catch (Exception e) {
+            logger.error("竞赛计数变更登记失败, compId: {}, field: {}, delta: {}", compId, field, delta, e);
+            return;
+        }
+        TransactionUtils.runAfterCompletion(committed -> {
+            try {
+                stringRedisTemplate.execute(INCREMENT_SCRIPT,
+                        Arrays.asList(statsKey(compId), DIRTY_KEY, pendingKey(compId), versionKey(compId)),
+                        field, String.valueOf(delta), String.valueOf(compId), committed ? "1" : "0",
+                        String.valueOf(PENDING_TTL_SECONDS));
+            } catch (Exception e) {
+                logger.error("竞赛计数更新失败, compId: {}, field: {}, delta: {}", compId, field, delta, e);
+            }
+        });
+    }
+
+    /**
+     * 累加竞赛访问频率增量，由定时任务合并写入 sys_comp
+     *
+     * @param compId 竞赛ID
+     * @param delta 增量
+     */
+    @Override
+    public void incrementAccess(Long compId, long delta) {
+        if (compId == null || delta == 0) {
+            return;
+        }
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                stringRedisTemplate.opsForHash().increment(ACCESS_KEY, String.valueOf(compId), delta);
+            } catch (Exception e) {
+                logger.error("竞赛访问频率增量更新失败, compId: {}", compId, e);
+            }
+        });
+    }
+
+    /**
+     * 查询竞赛计数
+     *
+     * @param compId 竞赛ID
+     * @return 竞赛统计计数
+     */
+    @Override
+    public SysCompStats selectCompStats(Long compId) {
+        Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(statsKey(compId));
+        return hash.isEmpty() ? rebuildCompStats(compId) : toStats(compId, hash);
+    }
+
+    /**
+     * 为竞赛对象填充计数（不影响竞赛实体缓存）
+     * 一次管道批量读取，缺失的计数逐个重建
+     *
+     * @param comps 竞赛集合
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void fillCompStats(List<SysComp> comps) {
+        if (comps == null || comps.isEmpty()) {
+            return;
+        }
+        List<Object> hashes = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (SysComp comp : comps) {
+                conn.hGetAll(statsKey(comp.getCompId()));
+            }
+            return null;
+        });
+        for (int i = 0; i < comps.size(); i++) {
+            SysComp comp = comps.get(i);
+            Map<Object, Object> hash = i < hashes.size() ? (Map<Object, Object>) hashes.get(i) : null;
+            comp.setStats(hash == null || hash.isEmpty() ? rebuildCompStats(comp.getCompId()) : toStats(comp.getCompId(), hash));
+        }
+    }
+
+    /**
+     * 从业务表重建竞赛计数
+     * 读库前记录版本，读库期间有计数变更开始或结束时不写入，只返回读库结果，由之后的读取再次重建
+     *
+     * @param compId 竞赛ID
+     * @return 竞赛统计计数
+     */
+    @Override
+    public SysCompStats rebuildCompStats(Long compId) {
+        String version = StringUtils.nvl(stringRedisTemplate.opsForValue().get(versionKey(compId)), "0");
+        SysCompStats stats = compStatsMapper.selectCompStatsFromSource(compId);
+        if (stats == null) {
+            stats = new SysCompStats(compId, 0L, 0L, 0L, 0L, null);
+        }
+        Long saved = stringRedisTemplate.execute(REBUILD_SCRIPT,
+                Arrays.asList(statsKey(compId), DIRTY_KEY, versionKey(compId), pendingKey(compId)),
+                version, String.valueOf(STATS_TTL_SECONDS), String.valueOf(compId),
+                String.valueOf(nvl(stats.getRegistrCount())), String.valueOf(nvl(stats.getApprovedCount())),
+                String.valueOf(nvl(stats.getScoredCount())), String.valueOf(nvl(stats.getJudgeCount())));
+        if (saved == null || saved == 0L) {
+            logger.debug("竞赛计数重建期间有并发变更，本次不写入, compId: {}", compId);
+        } else {
+            logger.debug("竞赛计数已重建, compId: {}, stats: {}", compId, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * 将有变化的计数写入统计表，并合并写入访问频率增量
+     *
+     * @return 写入的竞赛数
+     */
+    @Override
+    public int flushCompStats() {
+        int flushed = 0;
+        List<String> dirty;
+        do {
+            dirty = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, FLUSH_BATCH);
+            if (dirty == null) {
+                dirty = Collections.emptyList();
+            }
+            for (String compId : dirty) {
+                Long id = Long.valueOf(compId);
+                Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(statsKey(id));
+                if (!hash.isEmpty()) {
+                    compStatsMapper.upsertSysCompStats(toStats(id, hash));
+                    flushed++;
+                }
+            }
+        } while (dirty.size() >= FLUSH_BATCH);
+
+        for (Object field : new ArrayList<>(stringRedisTemplate.opsForHash().keys(ACCESS_KEY))) {
+            Long delta = stringRedisTemplate.execute(TAKE_ACCESS_SCRIPT, Collections.singletonList(ACCESS_KEY), field.toString());
+            if (delta != null && delta != 0L) {
+                sysCompMapper.addAccessFrequency(Long.valueOf(field.toString()), delta);
+            }
+        }
+        if (flushed > 0) {
+            logger.debug("竞赛计数落库完成, 竞赛数: {}", flushed);
+        }
+        return flushed;
+    }
+
+    private SysCompStats toStats(Long compId, Map<Object, Object> hash) {
+        SysCompStats stats = new SysCompStats();
+        stats.setCompId(compId);
+        stats.setRegistrCount(toLong(hash.get(REGISTRATIONS)));
+        stats.setApprovedCount(toLong(hash.get(APPROVED)));
+        stats.setScoredCount(toLong(hash.get(SCORED)));
+        stats.setJudgeCount(toLong(hash.get(JUDGES)));
+        return stats;
+    }
+
+    private long toLong(Object value) {
+        return value == null ? 0L : Math.max(0L, Long.parseLong(value.toString()));
+    }
+
+    private long nvl(Long value) {
+        return value == null ? 0L : value;
+    }
+
+    private String statsKey(Long compId) {
+        return CacheConstants.COMP_STATS_KEY + compId;
+    }
+
+    private String versionKey(Long compId) {
+        return VERSION_PREFIX + compId;
+    }
+
+    private String pendingKey(Long compId) {
+        return PENDING_PREFIX + compId;
+    }
+}
@@ -0,0 +1,399 @@
+package com.cms.system.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Resource;
+
+import com.cms.common.constant.CacheConstants;
+import com.cms.common.core.domain.entity.SysRegistr;
+import com.cms.common.core.domain.entity.SysScore;
+import com.cms.common.exception.ServiceException;
+import com.cms.system.mapper.SysRegistrMapper;
+import com.cms.system.mapper.SysScoreMapper;
+import com.cms.system.service.ISysJudgeQueueService;
+import com.cms.system.service.ISysUserCompIndexService;
+import com.cms.system.service.ISysUserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+/**
+ * 评审工作队列Service业务层处理
+ *
+ * 每个竞赛在 Redis 中维护四个 key：
+ * 1. pending：ZSET，成员为报名ID，分值为已占用的评分次数（已评 + 租约中），分值低的优先领取
+ * 2. leases：ZSET，成员为 "报名ID:评委ID"，分值为租约到期时间戳
+ * 3. done：SET，成员为 "报名ID:评委ID"，记录评委已完成的评分
+ * 4. meta：HASH，保存每条报名需要的评分次数
+ * 领取、确认、重新开放与补充入队均由 Lua 脚本完成，一次往返内原子执行；过期租约在每次领取时回收，归还到待评队列。
+ * 只有分配到该竞赛的评委可以领取。评分删除后重新开放对应的已评记录，队列初始化后审核通过的报名补充入队。
+ * 租约与其他 key 使用相同的过期时间。
+ *
+ * @author quoteZZZ
+ */
+@Service
+public class SysJudgeQueueServiceImpl implements ISysJudgeQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SysJudgeQueueServiceImpl.class);
+
+    // 租约时长（毫秒），评委领取后需在此时间内完成评分
+    private static final long LEASE_MILLIS = 15 * 60 * 1000L;
+
+    // 领取时每页扫描的候选数，逐页向后扫描直到领满或扫完
+    private static final int CLAIM_PAGE_SIZE = 500;
+
+    // 单次领取数量上限
+    private static final int MAX_CLAIM_COUNT = 50;
+
+    // 队列数据保留天数，重新初始化时刷新
+    private static final long QUEUE_TTL_DAYS = 7;
+
+    /**
+     * 领取脚本：回收过期租约，再按分值从低到高分页挑选评委未评且未持有租约的报名
+     * 扫描期间不修改待评队列，分页偏移不会因分值变化而跳过候选，挑选完成后再统一占用
+     */
+    private static final DefaultRedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local pending, leases, done, meta = KEYS[1], KEYS[2], KEYS[3], KEYS[4]\n" +
+            "local judge = ARGV[1]\n" +
+            "local n = tonumber(ARGV[2])\n" +
+            "local now = tonumber(ARGV[3])\n" +
+            "local ttl = tonumber(ARGV[4])\n" +
+            "local page = tonumber(ARGV[5])\n" +
+            "local target = redis.call('hget', meta, 'target')\n" +
+            "if not target then return {} end\n" +
+            "local expired = redis.call('zrangebyscore', leases, '-inf', now)\n" +
+            "for _, m in ipairs(expired) do\n" +
+            "    redis.call('zrem', leases, m)\n" +
+            "    local rid = string.match(m, '^([^:]+):')\n" +
+            "    if redis.call('zscore', pending, rid) then redis.call('zincrby', pending, -1, rid) end\n" +
+            "end\n" +
+            "local claimed = {}\n" +
+            "local offset = 0\n" +
+            "while #claimed < n do\n" +
+            "    local candidates = redis.call('zrangebyscore', pending, '-inf', '(' .. target, 'LIMIT', offset, page)\n" +
+            "    for _, rid in ipairs(candidates) do\n" +
+            "        local m = rid .. ':' .. judge\n" +
+            "        if redis.call('sismember', done, m) == 0 and not redis.call('zscore', leases, m) then\n" +
+            "            table.insert(claimed, rid)\n" +
+            "            if #claimed >= n then break end\n" +
+            "        end\n" +
+            "    end\n" +
+            "    if #candidates < page then break end\n" +
+            "    offset = offset + page\n" +
+            "end\n" +
+            "for _, rid in ipairs(claimed) do\n" +
+            "    redis.call('zincrby', pending, 1, rid)\n" +
+            "    redis.call('zadd', leases, now + ttl, rid .. ':' .. judge)\n" +
+            "end\n" +
+            "local keep = redis.call('pttl', meta)\n" +
+            "if #claimed > 0 and keep > 0 then redis.call('pexpire', leases, keep) end\n" +
+            "return claimed",
+            List.class);
+
+    /**
+     * 确认脚本：记录已评并释放租约；未经领取直接评分的也计入占用；达到评分次数后移出待评队列
+     */
+    private static final DefaultRedisScript<Long> ACK_SCRIPT = new DefaultRedisScript<>(
+            "local pending, leases, done, meta = KEYS[1], KEYS[2], KEYS[3], KEYS[4]\n" +
+            "local rid = ARGV[2]\n" +
+            "local m = rid .. ':' .. ARGV[1]\n" +
+            "local target = redis.call('hget', meta, 'target')\n" +
+            "if not target then return -1 end\n" +
+            "if redis.call('sadd', done, m) == 0 then return 0 end\n" +
+            "local leased = redis.call('zrem', leases, m)\n" +
+            "local score = redis.call('zscore', pending, rid)\n" +
+            "if score then\n" +
+            "    if leased == 0 then score = redis.call('zincrby', pending, 1, rid) end\n" +
+            "    if tonumber(score) >= tonumber(target) then redis.call('zrem', pending, rid) end\n" +
+            "end\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 重新开放脚本：评分删除后移除已评记录，释放一次占用；已移出待评队列的报名按剩余已评与租约数重新入队
+     */
+    private static final DefaultRedisScript<Long> REOPEN_SCRIPT = new DefaultRedisScript<>(
+            "local pending, leases, done, meta = KEYS[1], KEYS[2], KEYS[3], KEYS[4]\n" +
+            "local rid = ARGV[2]\n" +
+            "local target = redis.call('hget', meta, 'target')\n" +
+            "if not target then return -1 end\n" +
+            "if redis.call('srem', done, rid .. ':' .. ARGV[1]) == 0 then return 0 end\n" +
+            "if redis.call('zscore', pending, rid) then\n" +
+            "    redis.call('zincrby', pending, -1, rid)\n" +
+            "    return 1\n" +
+            "end\n" +
+            "local used = 0\n" +
+            "local cursor = '0'\n" +
+            "repeat\n" +
+            "    local r = redis.call('sscan', done, cursor, 'MATCH', rid .. ':*', 'COUNT', 1000)\n" +
+            "    cursor = r[1]\n" +
+            "    used = used + #r[2]\n" +
+            "until cursor == '0'\n" +
+            "cursor = '0'\n" +
+            "repeat\n" +
+            "    local r = redis.call('zscan', leases, cursor, 'MATCH', rid .. ':*', 'COUNT', 1000)\n" +
+            "    cursor = r[1]\n" +
+            "    used = used + #r[2] / 2\n" +
+            "until cursor == '0'\n" +
+            "if used < tonumber(target) then redis.call('zadd', pending, used, rid) end\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 入队脚本：队列已初始化、报名不在待评队列且已评次数未达到要求时加入待评队列，ARGV 为报名ID与已评次数
+     */
+    private static final DefaultRedisScript<Long> ENQUEUE_SCRIPT = new DefaultRedisScript<>(
+            "local pending, meta = KEYS[1], KEYS[2]\n" +
+            "local rid = ARGV[1]\n" +
+            "local target = redis.call('hget', meta, 'target')\n" +
+            "if not target then return -1 end\n" +
+            "if redis.call('zscore', pending, rid) then return 0 end\n" +
+            "if tonumber(ARGV[2]) >= tonumber(target) then return 0 end\n" +
+            "redis.call('zadd', pending, ARGV[2], rid)\n" +
+            "local keep = redis.call('pttl', meta)\n" +
+            "if keep > 0 then redis.call('pexpire', pending, keep) end\n" +
+            "return 1",
+            Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private SysRegistrMapper sysRegistrMapper;
+
+    @Resource
+    private SysScoreMapper sysScoreMapper;
+
+    @Resource
+    private ISysUserService userService;
+
+    @Resource
+    private ISysUserCompIndexService userCompIndexService;
+
+    /**
+     * 根据报名记录初始化竞赛的评审工作队列
+     * 已有评分会计入占用次数并写入已评记录；重复初始化时保留未到期且尚未评分的租约并计入占用，其余数据覆盖
+     *
+     * @param compId 竞赛ID
+     * @param requiredScores 每条报名需要的评分次数
+     * @return 进入队列的报名数
+     */
+    @Override
+    public int seedQueue(Long compId, int requiredScores) {
+        if (compId == null) {
+            throw new ServiceException("竞赛ID不能为空", 400);
+        }
+        if (requiredScores <= 0) {
+            throw new ServiceException("评分次数必须大于0", 400);
+        }
+        logger.info("初始化评审工作队列, compId: {}, 每条报名评分次数: {}", compId, requiredScores);
+
+        // 统计每条报名已有的评委评分
+        Set<String> doneMembers = new HashSet<>();
+        Map<Long, Integer> scoredCounts = new HashMap<>();
+        List<SysScore> scores = sysScoreMapper.selectScoresByCompId(compId);
+        for (SysScore score : scores) {
+            if (score.getRegistrId() == null || score.getJudgeId() == null) {
+                continue;
+            }
+            if (doneMembers.add(member(score.getRegistrId(), score.getJudgeId()))) {
+                scoredCounts.merge(score.getRegistrId(), 1, Integer::sum);
+            }
+        }
+
+        // 保留仍有效的租约：到期的与已评分的租约移除，其余按报名计入占用
+        String leasesKey = leasesKey(compId);
+        Map<Long, Integer> leasedCounts = new HashMap<>();
+        stringRedisTemplate.opsForZSet().removeRangeByScore(leasesKey, 0, System.currentTimeMillis());
+        Set<String> leases = stringRedisTemplate.opsForZSet().range(leasesKey, 0, -1);
+        List<String> staleLeases = new ArrayList<>();
+        if (leases != null) {
+            for (String lease : leases) {
+                if (doneMembers.contains(lease)) {
+                    staleLeases.add(lease);
+                } else {
+                    leasedCounts.merge(Long.valueOf(lease.substring(0, lease.indexOf(':'))), 1, Integer::sum);
+                }
+            }
+        }
+        if (!staleLeases.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(leasesKey, staleLeases.toArray());
+        }
+
+        // 未达到评分次数的报名进入待评队列
+        Set<ZSetOperations.TypedTuple<String>> pending = new HashSet<>();
+        List<SysRegistr> registrs = sysRegistrMapper.selectSysRegistrListByCompId(compId);
+        for (SysRegistr registr : registrs) {
+            int scored = scoredCounts.getOrDefault(registr.getRegistrId(), 0);
+            if (scored < requiredScores) {
+                int used = scored + leasedCounts.getOrDefault(registr.getRegistrId(), 0);
+                pending.add(new DefaultTypedTuple<>(String.valueOf(registr.getRegistrId()), (double) used));
+            }
+        }
+
+        String pendingKey = pendingKey(compId);
+        String doneKey = doneKey(compId);
+        String metaKey = metaKey(compId);
+        stringRedisTemplate.delete(Arrays.asList(pendingKey, doneKey, metaKey));
+        if (!pending.isEmpty()) {
+            stringRedisTemplate.opsForZSet().add(pendingKey, pending);
+            stringRedisTemplate.expire(pendingKey, QUEUE_TTL_DAYS, TimeUnit.DAYS);
+        }
+        if (!doneMembers.isEmpty()) {
+            stringRedisTemplate.opsForSet().add(doneKey, doneMembers.toArray(new String[0]));
+            stringRedisTemplate.expire(doneKey, QUEUE_TTL_DAYS, TimeUnit.DAYS);
+        }
+        stringRedisTemplate.opsForHash().put(metaKey, "target", String.valueOf(requiredScores));
+        stringRedisTemplate.expire(metaKey, QUEUE_TTL_DAYS, TimeUnit.DAYS);
+        stringRedisTemplate.expire(leasesKey, QUEUE_TTL_DAYS, TimeUnit.DAYS);
+
+        logger.info("评审工作队列初始化完成, compId: {}, 报名总数: {}, 待评数: {}, 已有评分数: {}",
+                compId, registrs.size(), pending.size(), doneMembers.size());
+        return pending.size();
+    }
+
+    /**
+     * 评委领取待评报名（带租约），只有分配到该竞赛的评委可以领取
+     *
+     * @param compId 竞赛ID
+     * @param judgeId 评委ID
+     * @param count 领取数量
+     * @return 领取到的报名ID集合
+     */
+    @Override
+    public List<Long> claim(Long compId, Long judgeId, int count) {
+        if (compId == null || judgeId == null) {
+            throw new ServiceException("竞赛ID和评委ID不能为空", 400);
+        }
+        if (!userService.isJudge(judgeId) || !userCompIndexService.isMember(judgeId, compId)) {
+            throw new ServiceException("当前用户不是该竞赛的评委", 403);
+        }
+        int n = Math.max(1, Math.min(count, MAX_CLAIM_COUNT));
+        List<?> claimed = stringRedisTemplate.execute(CLAIM_SCRIPT, queueKeys(compId),
+                String.valueOf(judgeId), String.valueOf(n), String.valueOf(System.currentTimeMillis()),
+                String.valueOf(LEASE_MILLIS), String.valueOf(CLAIM_PAGE_SIZE));
+        List<Long> registrIds = new ArrayList<>();
+        if (claimed != null) {
+            for (Object registrId : claimed) {
+                registrIds.add(Long.valueOf(registrId.toString()));
+            }
+        }
+        logger.debug("评委领取待评报名, compId: {}, judgeId: {}, 请求数: {}, 领取数: {}", compId, judgeId, n, registrIds.size());
+        return registrIds;
+    }
+
+    /**
+     * 评分完成后确认租约
+     * 队列未初始化时直接忽略
+     *
+     * @param compId 竞赛ID
+     * @param judgeId 评委ID
+     * @param registrId 报名ID
+     * @return 是否为首次确认
+     */
+    @Override
+    public boolean ack(Long compId, Long judgeId, Long registrId) {
+        if (compId == null || judgeId == null || registrId == null) {
+            return false;
+        }
+        Long result = stringRedisTemplate.execute(ACK_SCRIPT, queueKeys(compId),
+                String.valueOf(judgeId), String.valueOf(registrId));
+        logger.debug("评审租约确认, compId: {}, judgeId: {}, registrId: {}, 结果: {}", compId, judgeId, registrId, result);
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 评分删除后重新开放评委对该报名的评分
+     * 队列未初始化或没有对应的已评记录时直接忽略
+     *
+     * @param compId 竞赛ID
+     * @param judgeId 评委ID
+     * @param registrId 报名ID
+     * @return 是否重新开放
+     */
+    @Override
+    public boolean reopen(Long compId, Long judgeId, Long registrId) {
+        if (compId == null || judgeId == null || registrId == null) {
+            return false;
+        }
+        Long result = stringRedisTemplate.execute(REOPEN_SCRIPT, queueKeys(compId),
+                String.valueOf(judgeId), String.valueOf(registrId));
+        logger.debug("评审记录重新开放, compId: {}, judgeId: {}, registrId: {}, 结果: {}", compId, judgeId, registrId, result);
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 将队列初始化后审核通过的报名加入待评队列，已有评分计入占用
+     * 队列未初始化、报名已在队列中或评分次数已满时直接忽略
+     *
+     * @param compId 竞赛ID
+     * @param registrId 报名ID
+     * @return 是否加入
+     */
+    @Override
+    public boolean enqueue(Long compId, Long registrId) {
+        if (compId == null || registrId == null) {
+            return false;
+        }
+        long scored = sysScoreMapper.selectScoresByRegistrId(registrId).stream()
+                .map(SysScore::getJudgeId).filter(Objects::nonNull).distinct().count();
+        Long result = stringRedisTemplate.execute(ENQUEUE_SCRIPT,
+                Arrays.asList(pendingKey(compId), metaKey(compId)), String.valueOf(registrId), String.valueOf(scored));
+        logger.debug("报名加入评审工作队列, compId: {}, registrId: {}, 结果: {}", compId, registrId, result);
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 查询队列状态
+     *
+     * @param compId 竞赛ID
+     * @return 待评数、租约数、已评数等
+     */
+    @Override
+    public Map<String, Object> getQueueStatus(Long compId) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("compId", compId);
+        status.put("requiredScores", stringRedisTemplate.opsForHash().get(metaKey(compId), "target"));
+        status.put("pending", stringRedisTemplate.opsForZSet().zCard(pendingKey(compId)));
+        status.put("leased", stringRedisTemplate.opsForZSet().zCard(leasesKey(compId)));
+        status.put("expiredLeases", stringRedisTemplate.opsForZSet().count(leasesKey(compId), 0, System.currentTimeMillis()));
+        status.put("done", stringRedisTemplate.opsForSet().size(doneKey(compId)));
+        return status;
+    }
+
+    private List<String> queueKeys(Long compId) {
+        return Arrays.asList(pendingKey(compId), leasesKey(compId), doneKey(compId), metaKey(compId));
+    }
+
+    private String member(Long registrId, Long judgeId) {
+        return registrId + ":" + judgeId;
+    }
+
+    private String pendingKey(Long compId) {
+        return CacheConstants.JUDGE_QUEUE_KEY + compId + ":pending";
+    }
+
+    private String leasesKey(Long compId) {
+        return CacheConstants.JUDGE_QUEUE_KEY + compId + ":leases";
+    }
+
+    private String doneKey(Long compId) {
+        return CacheConstants.JUDGE_QUEUE_KEY + compId + ":done";
+    }
+
+    private String metaKey(Long compId) {
+        return CacheConstants.JUDGE_QUEUE_KEY + compId + ":meta";
+    }
+}
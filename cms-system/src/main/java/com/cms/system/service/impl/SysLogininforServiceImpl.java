@@ -31,6 +31,20 @@ public class SysLogininforServiceImpl implements ISysLogininforService
         logininforMapper.insertLogininfor(logininfor);
     }
 
+    /**
+     * 批量新增系统登录日志
+     * @param logininfors 访问日志集合
+     */
+    @Override
+    public void insertLogininforBatch(List<SysLogininfor> logininfors)
+    {
+        if (logininfors == null || logininfors.isEmpty())
+        {
+            return;
+        }
+        logininforMapper.insertLogininforBatch(logininfors);
+    }
+
     /**
      * 查询系统登录日志集合
      * @param logininfor 访问日志对象
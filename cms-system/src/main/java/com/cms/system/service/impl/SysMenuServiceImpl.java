@@ -88,6 +88,22 @@ public class SysMenuServiceImpl implements ISysMenuService
         return permsSet;// 返回权限集合
     }
 
+    /**
+     * 查询所有菜单的权限字符
+     * @return 权限集合
+     */
+    @Override
+    public Set<String> selectMenuPerms() {
+        List<String> perms = menuMapper.selectMenuPerms();
+        Set<String> permsSet = new HashSet<>();
+        for (String perm : perms) {
+            if (StringUtils.isNotEmpty(perm)) {
+                permsSet.addAll(Arrays.asList(perm.trim().split(",")));
+            }
+        }
+        return permsSet;
+    }
+
     /**
      * 根据角色ID查询权限
      * @param roleId 角色ID
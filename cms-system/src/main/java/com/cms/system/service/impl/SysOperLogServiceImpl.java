@@ -30,6 +30,21 @@ public class SysOperLogServiceImpl implements ISysOperLogService
         operLogMapper.insertOperlog(operLog);
     }
 
+    /**
+     * 批量新增操作日志
+     * 
+     * @param operLogs 操作日志集合
+     */
+    @Override
+    public void insertOperlogBatch(List<SysOperLog> operLogs)
+    {
+        if (operLogs == null || operLogs.isEmpty())
+        {
+            return;
+        }
+        operLogMapper.insertOperlogBatch(operLogs);
+    }
+
     /**
      * 查询系统操作日志集合
      * 
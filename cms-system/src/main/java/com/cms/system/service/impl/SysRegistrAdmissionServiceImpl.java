@@ -0,0 +1,211 @@
+package com.cms.system.service.impl;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Resource;
+
+import com.cms.common.constant.CacheConstants;
+import com.cms.common.core.domain.entity.SysRegistr;
+import com.cms.common.exception.ServiceException;
+import com.cms.common.utils.uuid.IdUtils;
+import com.cms.system.mapper.SysRegistrMapper;
+import com.cms.system.service.ISysRegistrAdmissionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+/**
+ * 报名准入控制Service业务层处理
+ *
+ * 每个竞赛在 Redis 中维护三个 key：
+ * 1. users：SET，已报名（含已预留）的用户ID
+ * 2. quota：剩余名额计数，不存在表示不限名额
+ * 3. open：报名开关，"1" 开放，"0" 关闭；不存在表示该竞赛未启用准入控制
+ * "是否已报名、是否有名额、是否开放" 的判断与名额预留由一个 Lua 脚本原子完成，
+ * 被拒绝的请求不会访问数据库。
+ * 开放报名时先把数据库中的报名写入临时集合，再由一个脚本并入现有预留（含未提交与缓冲中的报名）后替换 users 并重算名额，
+ * 不会清除正在进行的预留，也不会与准入脚本交错执行。
+ *
+ * @author quoteZZZ
+ */
+@Service
+public class SysRegistrAdmissionServiceImpl implements ISysRegistrAdmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SysRegistrAdmissionServiceImpl.class);
+
+    /**
+     * 准入脚本：检查开关、重复报名与名额，通过后预留名额
+     */
+    private static final DefaultRedisScript<Long> ADMIT_SCRIPT = new DefaultRedisScript<>(
+            "local users, quota, open = KEYS[1], KEYS[2], KEYS[3]\n" +
+            "local flag = redis.call('get', open)\n" +
+            "if not flag then return -3 end\n" +
+            "if flag ~= '1' then return -2 end\n" +
+            "if redis.call('sismember', users, ARGV[1]) == 1 then return 0 end\n" +
+            "local left = redis.call('get', quota)\n" +
+            "if left then\n" +
+            "    if tonumber(left) <= 0 then return -1 end\n" +
+            "    redis.call('decr', quota)\n" +
+            "end\n" +
+            "redis.call('sadd', users, ARGV[1])\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 释放脚本：移除用户并归还名额
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "local users, quota = KEYS[1], KEYS[2]\n" +
+            "if redis.call('srem', users, ARGV[1]) == 0 then return 0 end\n" +
+            "if redis.call('exists', quota) == 1 then redis.call('incr', quota) end\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 开放脚本：临时集合并入现有预留后替换 users，按合并后的人数重算剩余名额并打开开关
+     * KEYS 为 users、quota、open、临时集合；ARGV 为名额上限（小于等于0表示不限）；返回已报名人数
+     */
+    private static final DefaultRedisScript<Long> OPEN_SCRIPT = new DefaultRedisScript<>(
+            "local users, quota, open, staging = KEYS[1], KEYS[2], KEYS[3], KEYS[4]\n" +
+            "redis.call('sunionstore', staging, staging, users)\n" +
+            "local count = redis.call('scard', staging)\n" +
+            "if count > 0 then\n" +
+            "    redis.call('rename', staging, users)\n" +
+            "else\n" +
+            "    redis.call('del', users)\n" +
+            "end\n" +
+            "local limit = tonumber(ARGV[1])\n" +
+            "if limit > 0 then\n" +
+            "    redis.call('set', quota, tostring(math.max(limit - count, 0)))\n" +
+            "else\n" +
+            "    redis.call('del', quota)\n" +
+            "end\n" +
+            "redis.call('set', open, '1')\n" +
+            "return count",
+            Long.class);
+
+    // 临时集合单次写入的用户数
+    private static final int STAGING_BATCH = 1000;
+
+    // 临时集合存活时间（分钟），开放失败时自动清除
+    private static final long STAGING_TTL_MINUTES = 10;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private SysRegistrMapper sysRegistrMapper;
+
+    /**
+     * 开放竞赛报名并初始化准入数据
+     * 已报名用户从数据库加载并与 Redis 中现有的预留合并，剩余名额 = 名额上限 - 合并后人数
+     *
+     * @param compId 竞赛ID
+     * @param quota 报名名额上限，小于等于0表示不限
+     * @return 当前已报名人数
+     */
+    @Override
+    public int openAdmission(Long compId, int quota) {
+        if (compId == null) {
+            throw new ServiceException("竞赛ID不能为空", 400);
+        }
+        List<SysRegistr> registrs = sysRegistrMapper.selectSysRegistrListByCompId(compId);
+        String[] userIds = registrs.stream()
+                .filter(r -> r.getUserId() != null)
+                .map(r -> String.valueOf(r.getUserId()))
+                .distinct()
+                .toArray(String[]::new);
+
+        String stagingKey = usersKey(compId) + ":staging:" + IdUtils.fastSimpleUUID();
+        for (int from = 0; from < userIds.length; from += STAGING_BATCH) {
+            stringRedisTemplate.opsForSet().add(stagingKey, Arrays.copyOfRange(userIds, from, Math.min(from + STAGING_BATCH, userIds.length)));
+            stringRedisTemplate.expire(stagingKey, STAGING_TTL_MINUTES, TimeUnit.MINUTES);
+        }
+        Long result = stringRedisTemplate.execute(OPEN_SCRIPT,
+                Arrays.asList(usersKey(compId), quotaKey(compId), openKey(compId), stagingKey), String.valueOf(quota));
+        int registered = result == null ? userIds.length : result.intValue();
+
+        logger.info("竞赛报名已开放, compId: {}, 名额上限: {}, 已报名人数: {}（数据库 {}）", compId, quota > 0 ? quota : "不限", registered, userIds.length);
+        return registered;
+    }
+
+    /**
+     * 关闭竞赛报名
+     *
+     * @param compId 竞赛ID
+     */
+    @Override
+    public void closeAdmission(Long compId) {
+        stringRedisTemplate.opsForValue().set(openKey(compId), "0");
+        logger.info("竞赛报名已关闭, compId: {}", compId);
+    }
+
+    /**
+     * 尝试准入并预留名额
+     *
+     * @param compId 竞赛ID
+     * @param userId 用户ID
+     * @return 准入结果
+     */
+    @Override
+    public int tryAdmit(Long compId, Long userId) {
+        Long result = stringRedisTemplate.execute(ADMIT_SCRIPT,
+                Arrays.asList(usersKey(compId), quotaKey(compId), openKey(compId)), String.valueOf(userId));
+        int code = result == null ? NOT_ENABLED : result.intValue();
+        logger.debug("报名准入检查, compId: {}, userId: {}, 结果: {}", compId, userId, code);
+        return code;
+    }
+
+    /**
+     * 释放已预留的名额
+     *
+     * @param compId 竞赛ID
+     * @param userId 用户ID
+     */
+    @Override
+    public void release(Long compId, Long userId) {
+        if (compId == null || userId == null) {
+            return;
+        }
+        try {
+            Long result = stringRedisTemplate.execute(RELEASE_SCRIPT,
+                    Arrays.asList(usersKey(compId), quotaKey(compId)), String.valueOf(userId));
+            logger.info("释放报名名额, compId: {}, userId: {}, 结果: {}", compId, userId, result);
+        } catch (Exception e) {
+            logger.error("释放报名名额失败, compId: {}, userId: {}", compId, userId, e);
+        }
+    }
+
+    /**
+     * 查询准入状态
+     *
+     * @param compId 竞赛ID
+     * @return 开关、剩余名额、已报名人数
+     */
+    @Override
+    public Map<String, Object> getAdmissionStatus(Long compId) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("compId", compId);
+        status.put("open", stringRedisTemplate.opsForValue().get(openKey(compId)));
+        status.put("quotaLeft", stringRedisTemplate.opsForValue().get(quotaKey(compId)));
+        status.put("registered", stringRedisTemplate.opsForSet().size(usersKey(compId)));
+        return status;
+    }
+
+    private String usersKey(Long compId) {
+        return CacheConstants.REGISTR_ADMISSION_KEY + compId + ":users";
+    }
+
+    private String quotaKey(Long compId) {
+        return CacheConstants.REGISTR_ADMISSION_KEY + compId + ":quota";
+    }
+
+    private String openKey(Long compId) {
+        return CacheConstants.REGISTR_ADMISSION_KEY + compId + ":open";
+    }
+}
@@ -1,6 +1,22 @@
 package com.cms.system.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.cms.RabbitMQ.MQMessagePublisher;
+import com.cms.common.constant.CacheConstants;
+import com.cms.common.core.redis.RedisCache;
+import com.cms.common.exception.ServiceException;
+import com.cms.common.utils.spring.SpringUtils;
+import com.cms.common.utils.spring.TransactionUtils;
 
 import com.cms.common.annotation.DataScope;
 import com.cms.common.core.domain.entity.SysUser;
@@ -8,15 +24,22 @@ import com.cms.common.utils.DateUtils;
 import com.cms.common.utils.uuid.IdGenerator;
 import com.cms.common.core.domain.entity.SysComp;
 import com.cms.system.service.ISysCompService;
+import com.cms.system.service.ISysCompStatsService;
+import com.cms.system.service.ISysJudgeQueueService;
+import com.cms.system.service.ISysRegistrAdmissionService;
+import com.cms.system.service.ISysUserDirectoryService;
 import com.cms.system.service.ISysUserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.cms.system.mapper.SysRegistrMapper;
 import com.cms.common.core.domain.entity.SysRegistr;
 import com.cms.system.service.ISysRegistrService;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * 报名信息Service业务层处理
@@ -33,9 +56,46 @@ public class SysRegistrServiceImpl implements ISysRegistrService
     @Autowired
     private ISysUserService sysUserService;
 
+    @Autowired
+    private ISysUserDirectoryService userDirectoryService;
+
     @Autowired
     private ISysCompService sysCompService;
 
+    @Autowired
+    private ISysRegistrAdmissionService admissionService;
+
+    @Autowired
+    private ISysCompStatsService compStatsService;
+
+    @Autowired
+    private ISysJudgeQueueService judgeQueueService;
+
+    @Autowired
+    private RedisCache redisCache;
+
+    @Autowired
+    private MQMessagePublisher mqMessagePublisher;
+
+    // 是否开启缓冲写入模式（报名入队后由批量写入器落库）
+    @Value("${cms.registrBuffered:false}")
+    private boolean registrBuffered;
+
+    // 缓冲报名处理状态保留时间（分钟）
+    private static final int REGISTR_STATUS_TTL_MINUTES = 60;
+
+    /** 缓冲报名处理状态：排队中 */
+    private static final String STATUS_PENDING = "PENDING";
+
+    /** 缓冲报名处理状态：已写入 */
+    private static final String STATUS_SUCCESS = "SUCCESS";
+
+    /** 缓冲报名处理状态：失败 */
+    private static final String STATUS_FAILED = "FAILED";
+
+    /** 缓冲报名处理状态：未知 */
+    private static final String STATUS_UNKNOWN = "UNKNOWN";
+
     // 定义日志记录器
     Logger logger = LoggerFactory.getLogger(SysRegistrServiceImpl.class);
 
@@ -72,7 +132,7 @@ public class SysRegistrServiceImpl implements ISysRegistrService
                 }
             }
             if (registr.getUserId() != null) {
-                SysUser sysUser = sysUserService.selectUserById(registr.getUserId());
+                SysUser sysUser = userDirectoryService.selectUserById(registr.getUserId());
                 if (sysUser != null) {
                     registr.setUserName(sysUser.getUserName());
                 }
@@ -110,6 +170,9 @@ public class SysRegistrServiceImpl implements ISysRegistrService
                 throw new IllegalArgumentException("用户编码不能为空");
             }
 
+            // 准入控制：重复报名、名额、开关检查在 Redis 中完成，被拒绝的请求不访问数据库
+            admit(sysRegistr.getCompId(), sysRegistr.getUserId());
+
             // 检查是否重复报名
             SysRegistr existingRegistr = selectSysRegistrByUserIdAndCompId(sysRegistr.getUserId(), sysRegistr.getCompId());
             if (existingRegistr != null) {
@@ -167,9 +230,10 @@ public class SysRegistrServiceImpl implements ISysRegistrService
             // 插入报名信息，并返回受影响的行数
             int rows = sysRegistrMapper.insertSysRegistr(sysRegistr);
 
-            // 如果报名成功，竞赛的访问频率+1
-            if (rows > 0 && sysComp != null) {
-                updateCompAccessFrequency(sysComp);
+            // 如果报名成功，更新竞赛计数与访问频率（写入计数服务，不改写竞赛记录、不清理竞赛缓存）
+            if (rows > 0) {
+                compStatsService.increment(sysRegistr.getCompId(), ISysCompStatsService.REGISTRATIONS, 1);
+                compStatsService.incrementAccess(sysRegistr.getCompId(), 1);
             }
 
             logger.info("新增报名信息结果: {}", rows);
@@ -185,6 +249,234 @@ public class SysRegistrServiceImpl implements ISysRegistrService
         }
     }
 
+    /**
+     * 提交报名
+     * 缓冲写入模式下只做参数校验、准入检查和竞赛信息补全（均不访问数据库），随后入队立即返回；
+     * 用户信息补全、重复检查、插入与部门更新由批量写入器统一完成
+     *
+     * @param sysRegistr 报名信息
+     * @return 报名ID与处理状态
+     */
+    @Override
+    public Map<String, Object> submitSysRegistr(SysRegistr sysRegistr) {
+        if (!registrBuffered) {
+            int rows = SpringUtils.getAopProxy(this).insertSysRegistr(sysRegistr);
+            return submitStatus(sysRegistr.getRegistrId(), sysRegistr.getUserId(), rows > 0 ? STATUS_SUCCESS : STATUS_FAILED, null);
+        }
+        if (sysRegistr == null || sysRegistr.getCompId() == null || sysRegistr.getUserId() == null) {
+            throw new IllegalArgumentException("竞赛编码和用户编码不能为空");
+        }
+
+        boolean reserved = admit(sysRegistr.getCompId(), sysRegistr.getUserId());
+        try {
+            SysComp sysComp = validateAndGetSysComp(sysRegistr.getCompId());
+            sysRegistr.setRegistrId(IdGenerator.generateId(0));
+            sysRegistr.setCompName(sysComp.getCompName());
+            sysRegistr.setDeptId(sysComp.getDeptId());
+            sysRegistr.setCreateTime(DateUtils.getNowDate());
+            if (sysRegistr.getRegistrStatus() == null) {
+                sysRegistr.setRegistrStatus('0');
+            }
+            if (sysRegistr.getStatus() == null) {
+                sysRegistr.setStatus('0');
+            }
+            sysRegistr.setDelFlag('0');
+            sysRegistr.setScoreCount(0);
+
+            Map<String, Object> status = submitStatus(sysRegistr.getRegistrId(), sysRegistr.getUserId(), STATUS_PENDING, null);
+            redisCache.setCacheObject(CacheConstants.REGISTR_STATUS_KEY + sysRegistr.getRegistrId(), status,
+                    REGISTR_STATUS_TTL_MINUTES, TimeUnit.MINUTES);
+            if (!mqMessagePublisher.sendBufferedRegistr(sysRegistr)) {
+                redisCache.deleteObject(CacheConstants.REGISTR_STATUS_KEY + sysRegistr.getRegistrId());
+                throw new ServiceException("系统繁忙，请稍后重试");
+            }
+            logger.debug("报名已入队, registrId: {}, compId: {}, userId: {}",
+                    sysRegistr.getRegistrId(), sysRegistr.getCompId(), sysRegistr.getUserId());
+            return status;
+        } catch (RuntimeException e) {
+            if (reserved) {
+                admissionService.release(sysRegistr.getCompId(), sysRegistr.getUserId());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 批量写入缓冲报名
+     * 一次查询完成批内重复检查，一次批量查询用户，一条多值插入写入报名，一条语句批量更新用户部门
+     *
+     * @param registrList 报名信息集合
+     * @return 实际写入的报名ID集合
+     */
+    @Override
+    @Transactional
+    public Set<Long> insertSysRegistrBatch(List<SysRegistr> registrList) {
+        Set<Long> insertedIds = new HashSet<>();
+        if (registrList == null || registrList.isEmpty()) {
+            return insertedIds;
+        }
+
+        // 批内去重，同一用户对同一竞赛只保留第一条
+        Map<String, SysRegistr> candidates = new LinkedHashMap<>();
+        for (SysRegistr registr : registrList) {
+            candidates.putIfAbsent(registr.getCompId() + ":" + registr.getUserId(), registr);
+        }
+
+        // 排除数据库中已存在的报名
+        for (SysRegistr existing : sysRegistrMapper.selectExistingRegistrs(new ArrayList<>(candidates.values()))) {
+            candidates.remove(existing.getCompId() + ":" + existing.getUserId());
+        }
+        if (candidates.isEmpty()) {
+            return insertedIds;
+        }
+
+        // 批量补全用户信息
+        List<Long> userIds = candidates.values().stream().map(SysRegistr::getUserId).distinct().collect(Collectors.toList());
+        Map<Long, SysUser> users = sysUserService.selectUsersByIds(userIds).stream()
+                .collect(Collectors.toMap(SysUser::getUserId, u -> u, (a, b) -> a));
+
+        List<SysRegistr> toInsert = new ArrayList<>();
+        Map<Long, SysUser> deptUpdates = new LinkedHashMap<>();
+        Map<Long, Long> compCounts = new HashMap<>();
+        for (SysRegistr registr : candidates.values()) {
+            SysUser user = users.get(registr.getUserId());
+            if (user == null) {
+                logger.warn("缓冲报名的用户不存在, registrId: {}, userId: {}", registr.getRegistrId(), registr.getUserId());
+                continue;
+            }
+            registr.setUserName(user.getUserName());
+            if (registr.getCreateBy() == null) {
+                registr.setCreateBy(user.getUserName());
+            }
+            if (registr.getDeptId() == null) {
+                registr.setDeptId(user.getDeptId());
+            } else if (!registr.getDeptId().equals(user.getDeptId())) {
+                SysUser deptUser = new SysUser();
+                deptUser.setUserId(user.getUserId());
+                deptUser.setDeptId(registr.getDeptId());
+                deptUser.setUpdateBy(registr.getCreateBy());
+                deptUpdates.put(user.getUserId(), deptUser);
+            }
+            toInsert.add(registr);
+            compCounts.merge(registr.getCompId(), 1L, Long::sum);
+        }
+        if (toInsert.isEmpty()) {
+            return insertedIds;
+        }
+
+        sysRegistrMapper.batchInsertSysRegistr(toInsert);
+        if (!deptUpdates.isEmpty()) {
+            sysUserService.batchUpdateUserDept(new ArrayList<>(deptUpdates.values()));
+        }
+        for (Map.Entry<Long, Long> entry : compCounts.entrySet()) {
+            compStatsService.increment(entry.getKey(), ISysCompStatsService.REGISTRATIONS, entry.getValue());
+            compStatsService.incrementAccess(entry.getKey(), entry.getValue());
+        }
+        for (SysRegistr registr : toInsert) {
+            insertedIds.add(registr.getRegistrId());
+        }
+        logger.info("缓冲报名批量写入完成, 批次数: {}, 写入数: {}, 部门更新数: {}",
+                registrList.size(), toInsert.size(), deptUpdates.size());
+        return insertedIds;
+    }
+
+    /**
+     * 记录缓冲报名的处理结果，未写入的报名释放准入名额
+     *
+     * @param registrList 报名信息集合
+     * @param insertedIds 实际写入的报名ID集合
+     * @param failReason 未写入的原因
+     */
+    @Override
+    public void completeBufferedRegistrs(List<SysRegistr> registrList, Set<Long> insertedIds, String failReason) {
+        for (SysRegistr registr : registrList) {
+            boolean inserted = insertedIds.contains(registr.getRegistrId());
+            Map<String, Object> status = submitStatus(registr.getRegistrId(), registr.getUserId(),
+                    inserted ? STATUS_SUCCESS : STATUS_FAILED, inserted ? null : failReason);
+            redisCache.setCacheObject(CacheConstants.REGISTR_STATUS_KEY + registr.getRegistrId(), status,
+                    REGISTR_STATUS_TTL_MINUTES, TimeUnit.MINUTES);
+            if (!inserted) {
+                admissionService.release(registr.getCompId(), registr.getUserId());
+            }
+        }
+    }
+
+    /**
+     * 查询提交报名的处理状态
+     * 不属于指定用户的报名按状态不存在返回，不暴露其他用户的报名
+     *
+     * @param registrId 报名ID
+     * @param userId 查询用户ID，为null时不校验归属
+     * @return 处理状态
+     */
+    @Override
+    public Map<String, Object> selectSubmitStatus(Long registrId, Long userId) {
+        Map<String, Object> status = redisCache.getCacheObject(CacheConstants.REGISTR_STATUS_KEY + registrId);
+        if (status == null || (userId != null && !String.valueOf(userId).equals(String.valueOf(status.get("userId"))))) {
+            return submitStatus(registrId, null, STATUS_UNKNOWN, "处理状态不存在或已过期");
+        }
+        return status;
+    }
+
+    /**
+     * 是否开启缓冲写入模式
+     *
+     * @return 结果
+     */
+    @Override
+    public boolean isRegistrBuffered() {
+        return registrBuffered;
+    }
+
+    private Map<String, Object> submitStatus(Long registrId, Long userId, String status, String message) {
+        Map<String, Object> result = new HashMap<>(8);
+        result.put("registrId", registrId);
+        if (userId != null) {
+            result.put("userId", userId);
+        }
+        result.put("status", status);
+        if (message != null) {
+            result.put("message", message);
+        }
+        return result;
+    }
+
+    /**
+     * 报名准入检查
+     * 准入成功后预留名额，若事务最终未提交则释放名额；竞赛未启用准入控制时直接放行
+     *
+     * @param compId 竞赛ID
+     * @param userId 用户ID
+     * @return 是否预留了名额
+     */
+    private boolean admit(Long compId, Long userId) {
+        int code = admissionService.tryAdmit(compId, userId);
+        switch (code) {
+            case ISysRegistrAdmissionService.ADMITTED:
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status != STATUS_COMMITTED) {
+                                admissionService.release(compId, userId);
+                            }
+                        }
+                    });
+                }
+                return true;
+            case ISysRegistrAdmissionService.NOT_ENABLED:
+                return false;
+            case ISysRegistrAdmissionService.DUPLICATE:
+                throw new IllegalArgumentException("您已经报名该竞赛，请勿重复报名");
+            case ISysRegistrAdmissionService.QUOTA_EXHAUSTED:
+                throw new IllegalArgumentException("报名名额已满");
+            case ISysRegistrAdmissionService.CLOSED:
+                throw new IllegalArgumentException("该竞赛报名未开放");
+            default:
+                throw new IllegalStateException("报名准入检查结果未知: " + code);
+        }
+    }
+
     private SysComp validateAndGetSysComp(Long compId) {
         logger.info("验证并获取竞赛信息, compId: {}", compId);
         SysComp sysComp = sysCompService.selectSysCompByCompId(compId);
@@ -196,29 +488,13 @@ public class SysRegistrServiceImpl implements ISysRegistrService
 
     private SysUser validateAndGetSysUser(Long userId) {
         logger.info("验证并获取用户信息, userId: {}", userId);
-        SysUser sysUser = sysUserService.selectUserById(userId);
+        SysUser sysUser = userDirectoryService.selectUserById(userId);
         if (sysUser == null) {
             throw new IllegalArgumentException("用户编码无效");
         }
         return sysUser;
     }
 
-    private void updateCompAccessFrequency(SysComp sysComp) {
-        logger.info("更新竞赛访问频率, sysComp: {}", sysComp);
-        if (sysComp == null) {
-            logger.error("竞赛对象为空，无法更新访问频率");
-            throw new IllegalArgumentException("竞赛对象为空");
-        }
-
-        if (sysComp.getAccessFrequency() == null) {
-            logger.warn("竞赛访问频率字段为空，初始化为0");
-            sysComp.setAccessFrequency(0);
-        }
-
-        sysComp.setAccessFrequency(sysComp.getAccessFrequency() + 1);
-        sysCompService.updateSysComp(sysComp);
-    }
-
     /**
      * 修改报名信息
      * 
@@ -245,8 +521,19 @@ public class SysRegistrServiceImpl implements ISysRegistrService
                 sysRegistr.setUserName(sysUser.getUserName());
             }
 
+            // 审核状态变更时需要原状态来维护审核通过计数
+            SysRegistr original = sysRegistr.getRegistrStatus() != null
+                    ? sysRegistrMapper.selectSysRegistrByRegistrId(sysRegistr.getRegistrId()) : null;
+
             sysRegistr.setUpdateTime(DateUtils.getNowDate());
             int result = sysRegistrMapper.updateSysRegistr(sysRegistr);
+            if (result > 0 && original != null) {
+                long delta = (isApproved(sysRegistr) ? 1 : 0) - (isApproved(original) ? 1 : 0);
+                compStatsService.increment(original.getCompId(), ISysCompStatsService.APPROVED, delta);
+                if (delta > 0) {
+                    enqueueAfterCommit(original.getCompId(), original.getRegistrId());
+                }
+            }
             logger.info("修改报名信息结果: {}", result);
             return result;
         } catch (IllegalArgumentException e) {
@@ -260,16 +547,30 @@ public class SysRegistrServiceImpl implements ISysRegistrService
 
     /**
      * 批量删除报名信息
+     * 在事务内一次查询并锁定仍未删除的报名，只删除这些记录；并发删除同一报名的请求在此等待，
+     * 提交后查不到已删除的行，名额归还与计数扣减只针对本次实际删除的报名，并在事务提交后执行
      * 
      * @param registrIds 需要删除的报名信息主键
      * @return 结果
      */
     @Override
+    @Transactional
     public int deleteSysRegistrByRegistrIds(List<Long> registrIds)
     {
         logger.info("批量删除报名信息, registrIds: {}", registrIds);
         try {
-            int result = sysRegistrMapper.deleteSysRegistrByRegistrIds(registrIds);
+            if (registrIds == null || registrIds.isEmpty()) {
+                return 0;
+            }
+            List<SysRegistr> registrs = sysRegistrMapper.selectLiveRegistrsForUpdate(registrIds);
+            if (registrs.isEmpty()) {
+                logger.info("报名信息不存在或已删除, registrIds: {}", registrIds);
+                return 0;
+            }
+            List<Long> liveIds = registrs.stream().map(SysRegistr::getRegistrId).collect(Collectors.toList());
+            int result = sysRegistrMapper.deleteSysRegistrByRegistrIds(liveIds);
+            // 归还准入名额，允许用户重新报名，并扣减竞赛计数
+            releaseAfterCommit(registrs);
             logger.info("批量删除报名信息结果: {}", result);
             return result;
         } catch (Exception e) {
@@ -285,11 +586,21 @@ public class SysRegistrServiceImpl implements ISysRegistrService
      * @return 结果
      */
     @Override
+    @Transactional
     public int deleteSysRegistrByRegistrId(Long registrId)
     {
         logger.info("删除报名信息信息, registrId: {}", registrId);
         try {
+            List<SysRegistr> registrs = sysRegistrMapper.selectLiveRegistrsForUpdate(Collections.singletonList(registrId));
+            if (registrs.isEmpty()) {
+                logger.info("报名信息不存在或已删除, registrId: {}", registrId);
+                return 0;
+            }
             int result = sysRegistrMapper.deleteSysRegistrByRegistrId(registrId);
+            // 归还准入名额，允许用户重新报名
+            if (result > 0) {
+                releaseAfterCommit(registrs);
+            }
             logger.info("删除报名信息信息结果: {}", result);
             return result;
         } catch (Exception e) {
@@ -298,6 +609,51 @@ public class SysRegistrServiceImpl implements ISysRegistrService
         }
     }
 
+    /**
+     * 扣减已删除报名的竞赛计数（计数服务在事务提交后生效），事务提交后归还准入名额
+     */
+    private void releaseAfterCommit(List<SysRegistr> deleted) {
+        for (SysRegistr registr : deleted) {
+            decrementRegistrStats(registr);
+        }
+        TransactionUtils.runAfterCommit(() -> {
+            for (SysRegistr registr : deleted) {
+                admissionService.release(registr.getCompId(), registr.getUserId());
+            }
+        });
+    }
+
+    /**
+     * 审核通过的报名在事务提交后加入评审工作队列（队列初始化后的报名不在初始队列中）
+     */
+    private void enqueueAfterCommit(Long compId, Long registrId) {
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                judgeQueueService.enqueue(compId, registrId);
+            } catch (Exception e) {
+                logger.error("报名加入评审工作队列失败, compId: {}, registrId: {}", compId, registrId, e);
+                // 这里不抛出异常，重新初始化队列时会加入
+            }
+        });
+    }
+
+    /**
+     * 删除报名后扣减竞赛计数
+     */
+    private void decrementRegistrStats(SysRegistr registr) {
+        compStatsService.increment(registr.getCompId(), ISysCompStatsService.REGISTRATIONS, -1);
+        if (isApproved(registr)) {
+            compStatsService.increment(registr.getCompId(), ISysCompStatsService.APPROVED, -1);
+        }
+    }
+
+    /**
+     * 报名是否已审核通过
+     */
+    private boolean isApproved(SysRegistr registr) {
+        return registr.getRegistrStatus() != null && registr.getRegistrStatus() == '1';
+    }
+
     /**
      * 根据用户ID和竞赛ID查询参赛者信息
      * 
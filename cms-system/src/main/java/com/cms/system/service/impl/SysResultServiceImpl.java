@@ -594,10 +594,18 @@ public class SysResultServiceImpl implements ISysResultService
     }
 
     /**
-     * 计算参赛者的成绩并更新
+     * 按报名重算成绩结果
+     * 以当前有效评分为准重新计算平均分，并通过 insertSysResult 按报名ID新增或更新，
+     * 因此重复执行、乱序执行都得到相同结果，可用于评分事件的异步合并重算。
+     * 失败时抛出异常，由调用方决定重试或回退。
      */
-    private void calculateAndUpdateResult(Long registrId) {
+    @Override
+    @Transactional
+    public int recalculateResult(Long registrId) {
         logger.info("【开始】触发成绩计算, registrId: {}", registrId);
+        if (registrId == null) {
+            throw new ServiceException("报名ID不能为空", 400);
+        }
         try {
             // 获取所有该参赛者的评分记录
             logger.debug("【处理】查询参赛者的所有评分记录, registrId={}", registrId);
@@ -605,7 +613,7 @@ public class SysResultServiceImpl implements ISysResultService
 
             if (scoreList == null || scoreList.isEmpty()) {
                 logger.warn("【提示】没有找到评分记录，无法计算成绩, registrId: {}", registrId);
-                return;
+                return 0;
             }
             logger.debug("【处理】找到{}条评分记录", scoreList.size());
 
@@ -628,7 +636,7 @@ public class SysResultServiceImpl implements ISysResultService
 
             if (validScoreCount == 0) {
                 logger.warn("【提示】没有有效的评分记录, registrId: {}, 无效评分数={}", registrId, invalidCount);
-                return;
+                return 0;
             }
 
             // 计算平均分
@@ -642,7 +650,7 @@ public class SysResultServiceImpl implements ISysResultService
             SysRegistr sysRegistr = sysRegistrMapper.selectSysRegistrByRegistrId(registrId);
             if (sysRegistr == null) {
                 logger.error("【错误】报名信息不存在, registrId: {}", registrId);
-                return;
+                return 0;
             }
             logger.debug("【处理】报名信息获取成功: userId={}, compId={}", sysRegistr.getUserId(), sysRegistr.getCompId());
 
@@ -655,11 +663,14 @@ public class SysResultServiceImpl implements ISysResultService
             logger.debug("【处理】构建成绩结果对象: {}", sysResult);
 
             // 调用结果服务保存成绩
-            insertSysResult(sysResult);
+            int rows = insertSysResult(sysResult);
             logger.info("【结束】成绩更新完成, registrId: {}", registrId);
+            return rows;
+        } catch (ServiceException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("【异常】计算更新成绩失败:", e);
-            // 这里不抛出异常，避免影响主流程
+            throw new ServiceException("计算更新成绩失败", 500, e.getMessage());
         }
     }
 
@@ -1,23 +1,26 @@
 package com.cms.system.service.impl;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collections;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
 
+import com.cms.RabbitMQ.MQMessagePublisher;
+import com.cms.RabbitMQ.RegistrScoredEvent;
 import com.cms.common.annotation.DataScope;
 import com.cms.common.utils.DateUtils;
 import com.cms.common.utils.uuid.IdGenerator;
 import com.cms.common.core.domain.entity.SysRegistr;
-import com.cms.common.core.domain.entity.SysResult;
 import com.cms.system.mapper.SysRegistrMapper;
 import com.cms.system.mapper.SysResultMapper;
+import com.cms.system.service.ISysCompStatsService;
+import com.cms.system.service.ISysJudgeQueueService;
 import com.cms.system.service.ISysRegistrService;
 import com.cms.system.service.ISysResultService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +31,8 @@ import com.cms.system.service.ISysScoreService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.cms.common.core.domain.entity.SysUser;
+import com.cms.common.utils.spring.TransactionUtils;
+import com.cms.system.service.ISysUserDirectoryService;
 import com.cms.system.service.ISysUserService;
 import org.springframework.transaction.annotation.Transactional;
 import org.redisson.api.RLock;
@@ -48,6 +53,9 @@ public class SysScoreServiceImpl implements ISysScoreService
     @Autowired
     private ISysUserService sysUserService;
 
+    @Autowired
+    private ISysUserDirectoryService userDirectoryService;
+
     @Autowired
     private ISysRegistrService sysRegistrService;
 
@@ -63,6 +71,63 @@ public class SysScoreServiceImpl implements ISysScoreService
     @Autowired
     private RedissonClient redissonClient;
 
+    @Autowired
+    private MQMessagePublisher mqMessagePublisher;
+
+    @Autowired
+    private ISysJudgeQueueService judgeQueueService;
+
+    @Autowired
+    private ISysCompStatsService compStatsService;
+
+    @Resource(name = "scheduledExecutorService")
+    private ScheduledExecutorService scheduledExecutorService;
+
+    // 评分计数校正任务的执行间隔（分钟）
+    private static final long SCORE_COUNT_RECONCILE_INTERVAL_MINUTES = 30;
+
+    // 评分计数校正任务的分布式锁，多实例部署时只由一个节点执行
+    private static final String SCORE_COUNT_RECONCILE_LOCK = "score:count:reconcile:lock";
+
+    /**
+     * 注册评分计数校正任务
+     * 评分路径上只做原子增减，计数漂移（如历史数据、异常中断）由该低频任务批量修正
+     */
+    @PostConstruct
+    public void scheduleScoreCountReconcile() {
+        scheduledExecutorService.scheduleWithFixedDelay(() -> {
+            RLock lock = redissonClient.getLock(SCORE_COUNT_RECONCILE_LOCK);
+            if (!lock.tryLock()) {
+                logger.debug("评分计数校正任务正在其他节点执行，跳过本次");
+                return;
+            }
+            try {
+                reconcileScoreCount();
+            } catch (Exception e) {
+                logger.error("评分计数校正任务执行失败", e);
+            } finally {
+                lock.unlock();
+            }
+        }, SCORE_COUNT_RECONCILE_INTERVAL_MINUTES, SCORE_COUNT_RECONCILE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 校正报名评分计数
+     * 一次 GROUP BY 统计有效评分数，仅更新与实际不一致的报名记录
+     *
+     * @return 被校正的报名记录数
+     */
+    @Override
+    public int reconcileScoreCount() {
+        int rows = sysRegistrMapper.reconcileScoreCount();
+        if (rows > 0) {
+            logger.warn("评分计数校正完成, 修正报名记录数: {}", rows);
+        } else {
+            logger.debug("评分计数校正完成, 无需修正");
+        }
+        return rows;
+    }
+
     // 定义日志记录器
     Logger logger = LoggerFactory.getLogger(SysScoreServiceImpl.class);
 
@@ -160,7 +225,7 @@ public class SysScoreServiceImpl implements ISysScoreService
             sysScore.setJudgeName(judgeUser.getUserName());
 
             // 获取参赛者用户名称
-            SysUser participantUser = sysUserService.selectUserById(participantUserId);
+            SysUser participantUser = userDirectoryService.selectUserById(participantUserId);
             if (participantUser != null) {
                 sysScore.setUserName(participantUser.getUserName());
             }
@@ -186,10 +251,14 @@ public class SysScoreServiceImpl implements ISysScoreService
                         int rows = sysScoreMapper.insertSysScore(sysScore);
                         if (rows > 0) {
                             // 更新报名记录的评分计数
-                            updateRegistrScoreCount(sysScore.getRegistrId());
+                            updateRegistrScoreCount(sysScore.getRegistrId(), 1);
+                            compStatsService.increment(compId, ISysCompStatsService.SCORED, 1);
+
+                            // 发布评分事件，成绩由消费者异步重算
+                            publishRegistrScored(sysScore.getRegistrId(), compId, RegistrScoredEvent.ACTION_INSERT);
 
-                            // 触发成绩计算（这里可以调用结果服务的方法或者发送消息）
-                            calculateAndUpdateResult(sysScore.getRegistrId());
+                            // 确认评委在工作队列中的租约
+                            ackJudgeQueue(compId, sysScore.getJudgeId(), sysScore.getRegistrId());
                         }
                         return rows;
                     } finally {
@@ -278,7 +347,7 @@ public class SysScoreServiceImpl implements ISysScoreService
      */
     private SysUser validateAndGetSysUser(Long userId) {
         logger.info("验证并获取用户信息, userId: {}", userId);
-        SysUser sysUser = sysUserService.selectUserById(userId);
+        SysUser sysUser = userDirectoryService.selectUserById(userId);
         if (sysUser == null) {
             logger.error("用户不存在, userId: {}", userId);
             throw new IllegalArgumentException("用户不存在或已失效");
@@ -287,84 +356,87 @@ public class SysScoreServiceImpl implements ISysScoreService
     }
 
     /**
-     * 更新报名记录的评分计数
+     * 原子增减报名记录的评分计数
      *
      * @param registrId 报名ID
+     * @param delta     增量（新增评分为1，删除评分为负数）
      */
-    private void updateRegistrScoreCount(Long registrId) {
-        logger.info("更新报名评分计数, registrId: {}", registrId);
+    private void updateRegistrScoreCount(Long registrId, int delta) {
         try {
-            SysRegistr sysRegistr = sysRegistrMapper.selectSysRegistrByRegistrId(registrId);
-            if (sysRegistr != null) {
-                // 设置评分计数加1
-                Integer currentCount = sysRegistr.getScoreCount();
-                sysRegistr.setScoreCount(currentCount == null ? 1 : currentCount + 1);
-                sysRegistrMapper.updateSysRegistr(sysRegistr);
-                logger.info("报名评分计数更新成功, registrId: {}, 新计数: {}", registrId, sysRegistr.getScoreCount());
-            }
+            int rows = sysRegistrMapper.incrementScoreCount(registrId, delta);
+            logger.debug("报名评分计数更新, registrId: {}, 增量: {}, 影响行数: {}", registrId, delta, rows);
         } catch (Exception e) {
-            logger.error("更新报名评分计数失败", e);
-            // 这里不抛出异常，避免影响主流程
+            logger.error("更新报名评分计数失败, registrId: {}, 增量: {}", registrId, delta, e);
+            // 这里不抛出异常，避免影响主流程，计数偏差由校正任务修复
         }
     }
 
     /**
-     * 计算并更新成绩结果
+     * 删除评分后扣减竞赛评分计数，并在评审工作队列中重新开放这些评委的评分
      *
      * @param registrId 报名ID
+     * @param deleted   本次删除的评分
      */
-    private void calculateAndUpdateResult(Long registrId) {
-        logger.info("触发成绩计算, registrId: {}", registrId);
-        try {
-            // 获取所有该参赛者的评分记录
-            List<SysScore> scoreList = sysScoreMapper.selectScoresByRegistrId(registrId);
-
-            if (scoreList == null || scoreList.isEmpty()) {
-                logger.warn("没有找到评分记录，无法计算成绩, registrId: {}", registrId);
-                return;
-            }
-
-            // 计算平均分
-            BigDecimal totalScore = BigDecimal.ZERO;
-            int validScoreCount = 0;
-
-            for (SysScore score : scoreList) {
-                if (score.getScore() != null) {
-                    totalScore = totalScore.add(BigDecimal.valueOf(score.getScore()));
-                    validScoreCount++;
+    private void releaseDeletedScores(Long registrId, List<SysScore> deleted) {
+        SysRegistr registr = sysRegistrMapper.selectSysRegistrByRegistrId(registrId);
+        if (registr == null) {
+            return;
+        }
+        Long compId = registr.getCompId();
+        compStatsService.increment(compId, ISysCompStatsService.SCORED, -deleted.size());
+        TransactionUtils.runAfterCommit(() -> {
+            for (SysScore score : deleted) {
+                try {
+                    judgeQueueService.reopen(compId, score.getJudgeId(), registrId);
+                } catch (Exception e) {
+                    logger.error("评审记录重新开放失败, compId: {}, judgeId: {}, registrId: {}", compId, score.getJudgeId(), registrId, e);
+                    // 这里不抛出异常，评分已删除，重新初始化队列时会恢复
                 }
             }
+        });
+    }
 
-            if (validScoreCount == 0) {
-                logger.warn("没有有效的评分记录, registrId: {}", registrId);
-                return;
-            }
-
-            Double finalScore = totalScore.divide(BigDecimal.valueOf(validScoreCount), 2, RoundingMode.HALF_UP)
-                    .doubleValue();
-
-            logger.info("计算得到的平均分: {}, registrId: {}", finalScore, registrId);
+    /**
+     * 发布报名评分事件，由评分消费者异步合并重算成绩
+     * 事件在事务提交后发送，避免消费者读到未提交的评分；发送失败时回退为同步重算。
+     *
+     * @param registrId 报名ID
+     * @param compId    赛事ID（可为空）
+     * @param action    触发动作
+     */
+    private void publishRegistrScored(Long registrId, Long compId, String action) {
+        RegistrScoredEvent event = new RegistrScoredEvent(registrId, compId, action);
+        TransactionUtils.runAfterCommit(() -> sendRegistrScored(event));
+    }
 
-            // 获取报名信息
-            SysRegistr sysRegistr = sysRegistrMapper.selectSysRegistrByRegistrId(registrId);
-            if (sysRegistr == null) {
-                logger.error("报名信息不存在, registrId: {}", registrId);
-                return;
+    /**
+     * 确认评委在工作队列中的租约，评分提交后执行
+     *
+     * @param compId    竞赛ID
+     * @param judgeId   评委ID
+     * @param registrId 报名ID
+     */
+    private void ackJudgeQueue(Long compId, Long judgeId, Long registrId) {
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                judgeQueueService.ack(compId, judgeId, registrId);
+            } catch (Exception e) {
+                logger.error("评审租约确认失败, compId: {}, judgeId: {}, registrId: {}", compId, judgeId, registrId, e);
+                // 这里不抛出异常，租约到期后会自动回收
             }
+        });
+    }
 
-            // 构建成绩结果对象
-            SysResult sysResult = new SysResult();
-            sysResult.setCompId(sysRegistr.getCompId());
-            sysResult.setUserId(sysRegistr.getUserId());
-            sysResult.setRegistrId(registrId);
-            sysResult.setFinalScore(finalScore);
-
-            // 调用结果服务保存成绩
-            sysResultService.insertSysResult(sysResult);
-            logger.info("成绩更新完成, registrId: {}", registrId);
+    private void sendRegistrScored(RegistrScoredEvent event) {
+        if (mqMessagePublisher.sendRegistrScoredEvent(event)) {
+            return;
+        }
+        logger.warn("评分事件发送失败，回退为同步重算成绩, registrId: {}", event.getRegistrId());
+        try {
+            sysResultService.recalculateResult(event.getRegistrId());
         } catch (Exception e) {
-            logger.error("计算更新成绩失败", e);
-            // 这里不抛出异常，避免影响主流程
+            logger.error("同步重算成绩失败, registrId: {}", event.getRegistrId(), e);
+            // 这里不抛出异常，评分已提交，下一次评分事件会再次触发重算
         }
     }
 
@@ -418,7 +490,7 @@ public class SysScoreServiceImpl implements ISysScoreService
                             // 如果评分值发生变化并且更新成功，需要重新计算和更新成绩
                             if (sysScore.getScore() != null &&
                                 !sysScore.getScore().equals(existingScore.getScore())) {
-                                calculateAndUpdateResult(existingScore.getRegistrId());
+                                publishRegistrScored(existingScore.getRegistrId(), null, RegistrScoredEvent.ACTION_UPDATE);
                             }
                         }
                         return rows;
@@ -445,6 +517,8 @@ public class SysScoreServiceImpl implements ISysScoreService
 
     /**
      * 批量删除评分信息
+     * 在事务内锁定仍未删除的评分行（行锁持有到提交），并发删除同一评分的请求在此等待，
+     * 提交后查不到已删除的行，计数只按本次实际删除的评分扣减
      *
      * @param scoreIds 需要删除的评分信息主键集合
      * @return 结果
@@ -459,52 +533,34 @@ public class SysScoreServiceImpl implements ISysScoreService
                 throw new IllegalArgumentException("评分ID列表不能为空");
             }
 
-            // 获取要删除的所有评分的报名ID，用于后续更新成绩
-            List<SysScore> scoreList = new ArrayList<>();
-            for (Long scoreId : scoreIds) {
-                SysScore score = sysScoreMapper.selectSysScoreByScoreId(scoreId);
-                if (score != null) {
-                    scoreList.add(score);
-                }
+            List<SysScore> scoreList = sysScoreMapper.selectLiveScoresForUpdate(scoreIds);
+            if (scoreList.isEmpty()) {
+                logger.warn("评分信息不存在或已删除, scoreIds: {}", (Object) scoreIds);
+                return 0;
+            }
+            List<Long> liveIds = new ArrayList<>(scoreList.size());
+            for (SysScore score : scoreList) {
+                liveIds.add(score.getScoreId());
             }
 
-            // 使用分布式锁保证批量删除操作的原子性
-            String lockKey = "score:delete:batch:" + scoreIds.toString();
-            RLock lock = redissonClient.getLock(lockKey);
-            try {
-                if (lock.tryLock(10, 5, TimeUnit.SECONDS)) {
-                    try {
-                        // 执行批量删除操作
-                        int rows = sysScoreMapper.deleteSysScoreByScoreIds(scoreIds);
-
-                        // 更新相关报名记录的成绩
-                        if (rows > 0) {
-                            Set<Long> registrIds = new HashSet<>();
-                            for (SysScore score : scoreList) {
-                                if (score.getRegistrId() != null) {
-                                    registrIds.add(score.getRegistrId());
-                                }
-                            }
-
-                            // 对每个受影响的报名记录重新计算成绩
-                            for (Long registrId : registrIds) {
-                                calculateAndUpdateResult(registrId);
-                            }
-                        }
+            // 执行批量删除操作
+            int rows = sysScoreMapper.deleteSysScoreByScoreIds(liveIds);
 
-                        return rows;
-                    } finally {
-                        lock.unlock();
-                    }
-                } else {
-                    logger.warn("获取评分批量删除锁超时");
-                    throw new IllegalStateException("系统繁忙，请稍后重试");
+            // 按报名记录分组实际删除的评分
+            Map<Long, List<SysScore>> deletedScores = new HashMap<>();
+            for (SysScore score : scoreList) {
+                if (score.getRegistrId() != null) {
+                    deletedScores.computeIfAbsent(score.getRegistrId(), k -> new ArrayList<>()).add(score);
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.error("获取评分批量删除锁被中断", e);
-                throw new IllegalStateException("评分删除操作被中断，请稍后重试");
             }
+
+            // 每个受影响的报名记录扣减一次计数、重新开放评审记录并发布评分事件
+            for (Map.Entry<Long, List<SysScore>> entry : deletedScores.entrySet()) {
+                updateRegistrScoreCount(entry.getKey(), -entry.getValue().size());
+                releaseDeletedScores(entry.getKey(), entry.getValue());
+                publishRegistrScored(entry.getKey(), null, RegistrScoredEvent.ACTION_DELETE);
+            }
+            return rows;
         } catch (IllegalArgumentException e) {
             // 接收业务验证异常并直接抛出
             throw e;
@@ -516,6 +572,7 @@ public class SysScoreServiceImpl implements ISysScoreService
 
     /**
      * 删除评分信息信息
+     * 与批量删除相同，在事务内锁定评分行后删除，只有实际删除时扣减计数
      *
      * @param scoreId 评分信息主键
      * @return 结果
@@ -530,43 +587,26 @@ public class SysScoreServiceImpl implements ISysScoreService
                 throw new IllegalArgumentException("评分ID不能为空");
             }
 
-            // 查询要删除的评分信息
-            SysScore score = sysScoreMapper.selectSysScoreByScoreId(scoreId);
-            if (score == null) {
-                logger.warn("评分信息不存在, scoreId: {}", scoreId);
+            // 锁定并查询要删除的评分信息
+            List<SysScore> locked = sysScoreMapper.selectLiveScoresForUpdate(Collections.singletonList(scoreId));
+            if (locked.isEmpty()) {
+                logger.warn("评分信息不存在或已删除, scoreId: {}", scoreId);
                 return 0;
             }
 
             // 获取报名ID，用于后续更新成绩
-            Long registrId = score.getRegistrId();
-
-            // 使用分布式锁保证删除操作的原子性
-            String lockKey = "score:delete:lock:" + scoreId;
-            RLock lock = redissonClient.getLock(lockKey);
-            try {
-                if (lock.tryLock(10, 5, TimeUnit.SECONDS)) {
-                    try {
-                        // 执行删除操作
-                        int rows = sysScoreMapper.deleteSysScoreByScoreId(scoreId);
+            Long registrId = locked.get(0).getRegistrId();
 
-                        // 如果删除成功且报名ID不为空，重新计算和更新成绩
-                        if (rows > 0 && registrId != null) {
-                            calculateAndUpdateResult(registrId);
-                        }
+            // 执行删除操作
+            int rows = sysScoreMapper.deleteSysScoreByScoreId(scoreId);
 
-                        return rows;
-                    } finally {
-                        lock.unlock();
-                    }
-                } else {
-                    logger.warn("获取评分删除锁超时, scoreId: {}", scoreId);
-                    throw new IllegalStateException("系统繁忙，请稍后重试");
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.error("获取评分删除锁被中断", e);
-                throw new IllegalStateException("评分删除操作被中断，请稍后重试");
+            // 如果删除成功且报名ID不为空，重新计算和更新成绩
+            if (rows > 0 && registrId != null) {
+                updateRegistrScoreCount(registrId, -1);
+                releaseDeletedScores(registrId, locked);
+                publishRegistrScored(registrId, null, RegistrScoredEvent.ACTION_DELETE);
             }
+            return rows;
         } catch (IllegalArgumentException e) {
             // 接收业务验证异常并直接抛出
             throw e;
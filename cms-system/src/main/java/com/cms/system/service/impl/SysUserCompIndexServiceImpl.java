@@ -0,0 +1,480 @@
+package com.cms.system.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import com.cms.common.constant.CacheConstants;
+import com.cms.common.core.domain.entity.SysUserComp;
+import com.cms.common.utils.spring.TransactionUtils;
+import com.cms.system.mapper.SysUserCompMapper;
+import com.cms.system.service.ISysUserCompIndexService;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * 用户-竞赛成员索引Service业务层处理
+ *
+ * 成员关系以 Redis 集合双向保存：user:{userId} 为用户所属竞赛，comp:{compId} 为竞赛成员，
+ * 成员判断、列表、计数与多竞赛交集直接由 SISMEMBER/SMEMBERS/SCARD/SINTER 完成，不再查询 sys_comp。
+ * 启动时若 ready 标记不存在则异步从 sys_user_comp 重建，重建完成前读取回退到数据库；已就绪的索引不会因节点重启而重建。
+ * 每次增量写入先递增 generation，重建前后比较 generation，期间有增量写入时重新构建，避免把查询时的旧数据写回索引。
+ * 增量写入失败时撤销 ready 标记并安排重建；重建未能就绪时按指数退避再次安排，直到索引就绪。
+ *
+ * @author quoteZZZ
+ */
+@Service
+public class SysUserCompIndexServiceImpl implements ISysUserCompIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SysUserCompIndexServiceImpl.class);
+
+    private static final String USER_PREFIX = CacheConstants.USER_COMP_INDEX_KEY + "user:";
+
+    private static final String COMP_PREFIX = CacheConstants.USER_COMP_INDEX_KEY + "comp:";
+
+    // 已建立索引的用户与竞赛ID登记集合，重建时据此清理旧键
+    private static final String USERS_KEY = CacheConstants.USER_COMP_INDEX_KEY + "users";
+
+    private static final String COMPS_KEY = CacheConstants.USER_COMP_INDEX_KEY + "comps";
+
+    private static final String READY_KEY = CacheConstants.USER_COMP_INDEX_KEY + "ready";
+
+    private static final String REBUILD_LOCK = CacheConstants.USER_COMP_INDEX_KEY + "rebuild:lock";
+
+    // 增量写入计数，重建前后不一致说明重建期间成员关系有变化
+    private static final String GENERATION_KEY = CacheConstants.USER_COMP_INDEX_KEY + "generation";
+
+    // 重建时单次管道写入的关联数
+    private static final int REBUILD_BATCH = 1000;
+
+    // 重建期间持续有增量写入时的最多构建次数
+    private static final int REBUILD_ATTEMPTS = 5;
+
+    // 重建未就绪时的首次重试间隔与最大间隔（秒）
+    private static final long RETRY_DELAY_SECONDS = 5;
+
+    private static final long MAX_RETRY_DELAY_SECONDS = 300;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private SysUserCompMapper userCompMapper;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource(name = "threadPoolTaskExecutor")
+    private ThreadPoolTaskExecutor threadPoolTaskExecutor;
+
+    @Resource(name = "scheduledExecutorService")
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * 启动时索引未就绪则异步重建，已就绪时不重建
+     */
+    @PostConstruct
+    public void init() {
+        scheduleRebuild();
+    }
+
+    /**
+     * 判断用户是否属于竞赛
+     *
+     * @param userId 用户ID
+     * @param compId 竞赛ID
+     * @return 结果
+     */
+    @Override
+    public boolean isMember(Long userId, Long compId) {
+        if (userId == null || compId == null) {
+            return false;
+        }
+        if (isReady()) {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(USER_PREFIX + userId, String.valueOf(compId)));
+        }
+        return userCompMapper.checkUserCompExists(userId, compId) > 0;
+    }
+
+    /**
+     * 查询用户所属的竞赛ID集合
+     *
+     * @param userId 用户ID
+     * @return 竞赛ID集合
+     */
+    @Override
+    public Set<Long> selectCompIds(Long userId) {
+        if (userId == null) {
+            return Collections.emptySet();
+        }
+        if (isReady()) {
+            return toIds(stringRedisTemplate.opsForSet().members(USER_PREFIX + userId));
+        }
+        return new LinkedHashSet<>(userCompMapper.selectCompIdsByUserId(userId));
+    }
+
+    /**
+     * 批量查询多个用户所属的竞赛ID集合
+     * 索引就绪时以一次管道读取，否则以一条 IN 查询读取
+     *
+     * @param userIds 用户ID集合
+     * @return 用户ID到竞赛ID集合的映射，无竞赛的用户映射为空集合
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Long, Set<Long>> selectCompIds(Collection<Long> userIds) {
+        Map<Long, Set<Long>> result = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        if (isReady()) {
+            List<Object> members = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (Long userId : ids) {
+                    conn.sMembers(USER_PREFIX + userId);
+                }
+                return null;
+            });
+            for (int i = 0; i < ids.size(); i++) {
+                result.put(ids.get(i), toIds(i < members.size() ? (Set<String>) members.get(i) : null));
+            }
+            return result;
+        }
+        for (Long userId : ids) {
+            result.put(userId, new LinkedHashSet<>());
+        }
+        for (SysUserComp row : userCompMapper.selectUserCompsByUserIds(ids)) {
+            result.get(row.getUserId()).add(row.getCompId());
+        }
+        return result;
+    }
+
+    /**
+     * 查询竞赛的成员用户ID集合
+     *
+     * @param compId 竞赛ID
+     * @return 用户ID集合
+     */
+    @Override
+    public Set<Long> selectUserIds(Long compId) {
+        if (compId == null) {
+            return Collections.emptySet();
+        }
+        if (isReady()) {
+            return toIds(stringRedisTemplate.opsForSet().members(COMP_PREFIX + compId));
+        }
+        return new LinkedHashSet<>(userCompMapper.selectUserIdsByCompId(compId));
+    }
+
+    /**
+     * 统计竞赛成员数
+     *
+     * @param compId 竞赛ID
+     * @return 成员数
+     */
+    @Override
+    public long countUsers(Long compId) {
+        if (compId == null) {
+            return 0L;
+        }
+        if (isReady()) {
+            Long size = stringRedisTemplate.opsForSet().size(COMP_PREFIX + compId);
+            return size == null ? 0L : size;
+        }
+        return userCompMapper.countUserCompByCompId(compId);
+    }
+
+    /**
+     * 查询多个竞赛共同的成员（交集）
+     *
+     * @param compIds 竞赛ID集合
+     * @return 用户ID集合
+     */
+    @Override
+    public Set<Long> selectSharedUserIds(Collection<Long> compIds) {
+        if (compIds == null || compIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        if (isReady()) {
+            List<String> keys = new ArrayList<>(compIds.size());
+            for (Long compId : compIds) {
+                keys.add(COMP_PREFIX + compId);
+            }
+            return toIds(stringRedisTemplate.opsForSet().intersect(keys));
+        }
+        Set<Long> shared = null;
+        for (Long compId : compIds) {
+            Set<Long> users = new HashSet<>(userCompMapper.selectUserIdsByCompId(compId));
+            if (shared == null) {
+                shared = users;
+            } else {
+                shared.retainAll(users);
+            }
+            if (shared.isEmpty()) {
+                break;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * 新增成员关系（在当前事务提交后执行）
+     *
+     * @param compId 竞赛ID
+     * @param userIds 用户ID集合
+     */
+    @Override
+    public void addMembers(Long compId, Collection<Long> userIds) {
+        if (compId == null || userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection conn = (StringRedisConnection) connection;
+                    conn.incr(GENERATION_KEY);
+                    String comp = String.valueOf(compId);
+                    for (Long userId : ids) {
+                        conn.sAdd(USER_PREFIX + userId, comp);
+                        conn.sAdd(COMP_PREFIX + compId, String.valueOf(userId));
+                        conn.sAdd(USERS_KEY, String.valueOf(userId));
+                    }
+                    conn.sAdd(COMPS_KEY, comp);
+                    return null;
+                });
+            } catch (Exception e) {
+                logger.error("用户竞赛成员索引新增失败, compId: {}, userIds: {}", compId, ids, e);
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * 移除成员关系（在当前事务提交后执行）
+     *
+     * @param compId 竞赛ID
+     * @param userIds 用户ID集合
+     */
+    @Override
+    public void removeMembers(Long compId, Collection<Long> userIds) {
+        if (compId == null || userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection conn = (StringRedisConnection) connection;
+                    conn.incr(GENERATION_KEY);
+                    String comp = String.valueOf(compId);
+                    for (Long userId : ids) {
+                        conn.sRem(USER_PREFIX + userId, comp);
+                        conn.sRem(COMP_PREFIX + compId, String.valueOf(userId));
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                logger.error("用户竞赛成员索引移除失败, compId: {}, userIds: {}", compId, ids, e);
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * 移除竞赛的全部成员关系（在当前事务提交后执行）
+     *
+     * @param compId 竞赛ID
+     */
+    @Override
+    public void removeComp(Long compId) {
+        if (compId == null) {
+            return;
+        }
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                Set<String> members = stringRedisTemplate.opsForSet().members(COMP_PREFIX + compId);
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection conn = (StringRedisConnection) connection;
+                    conn.incr(GENERATION_KEY);
+                    String comp = String.valueOf(compId);
+                    if (members != null) {
+                        for (String userId : members) {
+                            conn.sRem(USER_PREFIX + userId, comp);
+                        }
+                    }
+                    conn.del(COMP_PREFIX + compId);
+                    conn.sRem(COMPS_KEY, comp);
+                    return null;
+                });
+            } catch (Exception e) {
+                logger.error("用户竞赛成员索引移除竞赛失败, compId: {}", compId, e);
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * 从 sys_user_comp 重建索引
+     * 重建期间撤销 ready 标记，读取回退到数据库；重建期间有增量写入时重新构建，仍有变化时保持未就绪
+     *
+     * @return 关联记录数
+     */
+    @Override
+    public int rebuildIndex() {
+        for (int attempt = 1; ; attempt++) {
+            stringRedisTemplate.delete(READY_KEY);
+            String generation = stringRedisTemplate.opsForValue().get(GENERATION_KEY);
+            clearIndex();
+            List<SysUserComp> rows = userCompMapper.selectAllUserComps();
+            writeIndex(rows);
+            if (Objects.equals(generation, stringRedisTemplate.opsForValue().get(GENERATION_KEY))) {
+                stringRedisTemplate.opsForValue().set(READY_KEY, "1");
+                logger.info("用户竞赛成员索引重建完成, 关联数: {}", rows.size());
+                return rows.size();
+            }
+            if (attempt >= REBUILD_ATTEMPTS) {
+                logger.warn("用户竞赛成员索引重建期间成员关系持续变化，索引保持未就绪, 构建次数: {}", attempt);
+                return rows.size();
+            }
+            logger.info("用户竞赛成员索引重建期间成员关系有变化，重新构建, 第{}次", attempt);
+        }
+    }
+
+    /**
+     * 异步重建索引，多实例下仅一个实例执行；索引已就绪时不重建
+     */
+    private void scheduleRebuild() {
+        scheduleRebuild(0L);
+    }
+
+    /**
+     * 延迟后异步重建索引，执行后仍未就绪（重建失败、持续变化或其他实例正在重建）时加倍延迟再次安排
+     */
+    private void scheduleRebuild(long delaySeconds) {
+        Runnable task = () -> {
+            boolean ready = false;
+            RLock lock = redissonClient.getLock(REBUILD_LOCK);
+            if (lock.tryLock()) {
+                try {
+                    if (!isReady()) {
+                        rebuildIndex();
+                    }
+                    ready = isReady();
+                } catch (Exception e) {
+                    logger.error("用户竞赛成员索引重建失败", e);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (!ready) {
+                long next = Math.min(Math.max(RETRY_DELAY_SECONDS, delaySeconds * 2), MAX_RETRY_DELAY_SECONDS);
+                logger.info("用户竞赛成员索引未就绪，{}秒后再次检查", next);
+                scheduleRebuild(next);
+            }
+        };
+        if (delaySeconds <= 0) {
+            threadPoolTaskExecutor.execute(task);
+        } else {
+            scheduledExecutorService.schedule(() -> threadPoolTaskExecutor.execute(task), delaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 按批管道写入关联记录
+     */
+    private void writeIndex(List<SysUserComp> rows) {
+        for (int from = 0; from < rows.size(); from += REBUILD_BATCH) {
+            List<SysUserComp> batch = rows.subList(from, Math.min(from + REBUILD_BATCH, rows.size()));
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (SysUserComp row : batch) {
+                    String userId = String.valueOf(row.getUserId());
+                    String compId = String.valueOf(row.getCompId());
+                    conn.sAdd(USER_PREFIX + userId, compId);
+                    conn.sAdd(COMP_PREFIX + compId, userId);
+                    conn.sAdd(USERS_KEY, userId);
+                    conn.sAdd(COMPS_KEY, compId);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 清理已登记的索引键
+     */
+    private void clearIndex() {
+        List<String> keys = new ArrayList<>();
+        Set<String> users = stringRedisTemplate.opsForSet().members(USERS_KEY);
+        if (users != null) {
+            for (String userId : users) {
+                keys.add(USER_PREFIX + userId);
+            }
+        }
+        Set<String> comps = stringRedisTemplate.opsForSet().members(COMPS_KEY);
+        if (comps != null) {
+            for (String compId : comps) {
+                keys.add(COMP_PREFIX + compId);
+            }
+        }
+        keys.add(USERS_KEY);
+        keys.add(COMPS_KEY);
+        for (int from = 0; from < keys.size(); from += REBUILD_BATCH) {
+            stringRedisTemplate.delete(keys.subList(from, Math.min(from + REBUILD_BATCH, keys.size())));
+        }
+    }
+
+    /**
+     * 索引写入失败时撤销 ready 标记，读取回退到数据库，并安排重建
+     * 递增 generation 使正在进行的重建重新构建
+     */
+    private void invalidate() {
+        try {
+            stringRedisTemplate.opsForValue().increment(GENERATION_KEY);
+            stringRedisTemplate.delete(READY_KEY);
+        } catch (Exception e) {
+            logger.error("撤销用户竞赛成员索引标记失败", e);
+        }
+        scheduleRebuild();
+    }
+
+    private boolean isReady() {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(READY_KEY));
+        } catch (Exception e) {
+            logger.warn("读取用户竞赛成员索引状态失败，回退到数据库", e);
+            return false;
+        }
+    }
+
+    private Set<Long> toIds(Set<String> members) {
+        if (members == null || members.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<Long> ids = new LinkedHashSet<>(members.size());
+        for (String member : members) {
+            ids.add(Long.valueOf(member));
+        }
+        return ids;
+    }
+}
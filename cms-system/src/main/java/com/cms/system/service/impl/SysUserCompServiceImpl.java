@@ -7,6 +7,8 @@ import com.cms.common.exception.ServiceException;
 import com.cms.common.utils.DateUtils;
 import com.cms.system.mapper.SysUserCompMapper;
 import com.cms.system.service.ISysCompService;
+import com.cms.system.service.ISysCompStatsService;
+import com.cms.system.service.ISysUserCompIndexService;
 import com.cms.system.service.ISysUserCompService;
 import com.cms.system.service.ISysUserService;
 import org.slf4j.Logger;
@@ -15,8 +17,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 用户与竞赛关联Service实现
@@ -37,6 +39,12 @@ public class SysUserCompServiceImpl implements ISysUserCompService {
     @Autowired
     private ISysCompService compService;
 
+    @Autowired
+    private ISysCompStatsService compStatsService;
+
+    @Autowired
+    private ISysUserCompIndexService userCompIndexService;
+
     /**
      * 用户报名参加竞赛
      *
@@ -64,8 +72,7 @@ public class SysUserCompServiceImpl implements ISysUserCompService {
         }
 
         // 检查是否已报名
-        List<Long> userCompIds = selectUserCompetitions(userId);
-        if (userCompIds.contains(compId)) {
+        if (userCompIndexService.isMember(userId, compId)) {
             throw new ServiceException("已报名该竞赛，请勿重复操作");
         }
 
@@ -89,7 +96,12 @@ public class SysUserCompServiceImpl implements ISysUserCompService {
 
         // 插入关联记录
         List<SysUserComp> list = List.of(userComp);
-        return userCompMapper.batchUserComp(list);
+        int rows = userCompMapper.batchUserComp(list);
+        if (userService.isJudge(userId)) {
+            compStatsService.increment(compId, ISysCompStatsService.JUDGES, rows);
+        }
+        userCompIndexService.addMembers(compId, List.of(userId));
+        return rows;
     }
 
     /**
@@ -114,8 +126,7 @@ public class SysUserCompServiceImpl implements ISysUserCompService {
         }
 
         // 检查是否已报名
-        List<Long> userCompIds = selectUserCompetitions(userId);
-        if (!userCompIds.contains(compId)) {
+        if (!userCompIndexService.isMember(userId, compId)) {
             throw new ServiceException("未报名该竞赛，无法退出");
         }
 
@@ -139,51 +150,39 @@ public class SysUserCompServiceImpl implements ISysUserCompService {
         SysUserComp userComp = new SysUserComp();
         userComp.setUserId(userId);
         userComp.setCompId(compId);
-        return userCompMapper.deleteUserCompInfo(userComp);
+        int rows = userCompMapper.deleteUserCompInfo(userComp);
+        if (userService.isJudge(userId)) {
+            compStatsService.increment(compId, ISysCompStatsService.JUDGES, -rows);
+        }
+        userCompIndexService.removeMembers(compId, List.of(userId));
+        return rows;
     }
 
     /**
-     * 查询用户参加的竞赛列表
+     * 查询用户参加的竞赛列表（由成员索引提供）
      *
      * @param userId 用户ID
      * @return 竞赛ID列表
      */
     @Override
     public List<Long> selectUserCompetitions(Long userId) {
-        // 查询用户所有竞赛关联
-        SysUser user = new SysUser();
-        user.setUserId(userId);
-
-        // 获取已分配的竞赛
-        List<SysComp> comps = compService.selectMyAssignedCompetitions(userId);
-
-        return comps.stream()
-                .map(SysComp::getCompId)
-                .collect(Collectors.toList());
+        return new ArrayList<>(userCompIndexService.selectCompIds(userId));
     }
 
     /**
-     * 查询竞赛的参与用户
+     * 查询竞赛的评委用户
+     * 成员索引同时包含参赛用户，这里按评委角色查询
      *
      * @param compId 竞赛ID
      * @return 用户ID列表
      */
     @Override
     public List<Long> selectCompetitionUsers(Long compId) {
-        // 设置查询条件
-        SysUser user = new SysUser();
-        user.setCompId(compId);
-
-        // 查询分配的用户
-        List<SysUser> users = userService.selectAllocatedJudgeList(user);
-
-        return users.stream()
-                .map(SysUser::getUserId)
-                .collect(Collectors.toList());
+        return userCompMapper.selectJudgeIdsByCompId(compId);
     }
 
     /**
-     * 批量删除竞赛关联关系
+     * 批量删除竞赛的评委关联关系
      *
      * @param compId 竞赛ID
      * @return 结果
@@ -216,7 +215,10 @@ public class SysUserCompServiceImpl implements ISysUserCompService {
         // 删除竞赛的所有用户关联
         Long[] userIdArray = userIds.toArray(new Long[0]);
         if (userIdArray.length > 0) {
-            return userCompMapper.deleteUserCompInfos(compId, userIdArray);
+            int rows = userCompMapper.deleteUserCompInfos(compId, userIdArray);
+            compStatsService.increment(compId, ISysCompStatsService.JUDGES, -rows);
+            userCompIndexService.removeMembers(compId, userIds);
+            return rows;
         }
         return 0;
     }
@@ -235,7 +237,6 @@ public class SysUserCompServiceImpl implements ISysUserCompService {
             throw new ServiceException("用户ID和竞赛ID不能为空");
         }
 
-        List<Long> userCompIds = selectUserCompetitions(userId);
-        return userCompIds.contains(compId);
+        return userCompIndexService.isMember(userId, compId);
     }
 }
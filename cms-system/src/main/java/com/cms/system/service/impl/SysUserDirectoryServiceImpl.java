@@ -0,0 +1,329 @@
+package com.cms.system.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import com.alibaba.fastjson2.JSON;
+import com.cms.common.constant.CacheConstants;
+import com.cms.common.constant.UserConstants;
+import com.cms.common.core.cache.LocalCache;
+import com.cms.common.core.domain.entity.SysUser;
+import com.cms.common.utils.StringUtils;
+import com.cms.common.utils.spring.TransactionUtils;
+import com.cms.system.mapper.SysUserMapper;
+import com.cms.system.service.ISysUserDirectoryService;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+/**
+ * 用户目录缓存Service业务层处理
+ *
+ * 一级缓存为进程内 LocalCache（按用户ID保存精简用户，另存用户名到ID的映射），二级缓存为 Redis：
+ * user_dir:id:{userId} 保存精简用户 JSON，user_dir:name:{userName} 保存用户ID。
+ * 用户名映射只是索引，读取时校验用户名与删除标志，改名或删除后旧映射自然失效。
+ * 用户修改、删除、状态或部门变更后通过 Redisson 主题广播失效，各节点清除本地缓存。
+ * 失效时递增 user_dir:ver:{userId}，回填 Redis 前比较读库前取得的版本，本地缓存回填前后比较失效序号，
+ * 读库早于更新、回填晚于失效的旧数据不会写回缓存。
+ *
+ * @author quoteZZZ
+ */
+@Service
+public class SysUserDirectoryServiceImpl implements ISysUserDirectoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SysUserDirectoryServiceImpl.class);
+
+    private static final String ID_PREFIX = CacheConstants.USER_DIRECTORY_KEY + "id:";
+
+    private static final String NAME_PREFIX = CacheConstants.USER_DIRECTORY_KEY + "name:";
+
+    private static final String VERSION_PREFIX = CacheConstants.USER_DIRECTORY_KEY + "ver:";
+
+    private static final String EVICT_TOPIC = CacheConstants.USER_DIRECTORY_KEY + "evict";
+
+    // 本地缓存容量与存活时间，存活时间同时是跨节点失效通知丢失时的最大不一致时间
+    private static final int LOCAL_MAX_SIZE = 10000;
+
+    private static final long LOCAL_TTL_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    // Redis 缓存存活时间（分钟）
+    private static final long REDIS_TTL_MINUTES = 30;
+
+    /**
+     * 回填脚本：版本未变化时写入用户缓存
+     */
+    private static final DefaultRedisScript<Long> SAVE_IF_VERSION_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('get', KEYS[1]) or '0'\n" +
+            "if version ~= ARGV[1] then return 0 end\n" +
+            "redis.call('set', KEYS[2], ARGV[2], 'EX', ARGV[3])\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 失效脚本：逐个用户递增版本并删除缓存，KEYS 依次为版本键与缓存键
+     */
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #KEYS, 2 do\n" +
+            "    redis.call('incr', KEYS[i])\n" +
+            "    redis.call('expire', KEYS[i], ARGV[1])\n" +
+            "    redis.call('del', KEYS[i + 1])\n" +
+            "end\n" +
+            "return #KEYS / 2",
+            Long.class);
+
+    private final LocalCache<Long, SysUser> localById = new LocalCache<>(LOCAL_MAX_SIZE, LOCAL_TTL_MILLIS);
+
+    private final LocalCache<String, Long> localByName = new LocalCache<>(LOCAL_MAX_SIZE, LOCAL_TTL_MILLIS);
+
+    private final AtomicLong redisHits = new AtomicLong();
+
+    private final AtomicLong dbLoads = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    // 本节点收到的失效次数（含其他节点的通知），本地回填前后不一致时放弃回填
+    private final AtomicLong evictSequence = new AtomicLong();
+
+    @Resource
+    private SysUserMapper userMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    private RTopic evictTopic;
+
+    private int listenerId;
+
+    /**
+     * 订阅跨节点失效通知
+     */
+    @PostConstruct
+    public void init() {
+        evictTopic = redissonClient.getTopic(EVICT_TOPIC);
+        listenerId = evictTopic.addListener(String.class, (channel, message) -> {
+            evictSequence.incrementAndGet();
+            for (String id : message.split(",")) {
+                if (StringUtils.isNotEmpty(id)) {
+                    localById.remove(Long.valueOf(id));
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (evictTopic != null) {
+            evictTopic.removeListener(listenerId);
+        }
+    }
+
+    /**
+     * 通过用户ID查询用户基本信息
+     *
+     * @param userId 用户ID
+     * @return 用户基本信息副本，不存在时返回null
+     */
+    @Override
+    public SysUser selectUserById(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        SysUser user = localById.get(userId);
+        if (user == null) {
+            long sequence = evictSequence.get();
+            user = loadFromRedis(userId);
+            if (user == null) {
+                String version = readVersion(userId);
+                SysUser loaded = userMapper.selectUserById(userId);
+                dbLoads.incrementAndGet();
+                if (loaded == null) {
+                    return null;
+                }
+                user = slim(loaded);
+                saveToRedis(user, version);
+            }
+            putLocal(user, sequence);
+        }
+        return slim(user);
+    }
+
+    /**
+     * 通过用户名查询未删除用户的基本信息
+     *
+     * @param userName 用户名
+     * @return 用户基本信息副本，不存在时返回null
+     */
+    @Override
+    public SysUser selectUserByUserName(String userName) {
+        if (StringUtils.isEmpty(userName)) {
+            return null;
+        }
+        Long userId = localByName.get(userName);
+        if (userId == null) {
+            String cached = safeGet(NAME_PREFIX + userName);
+            userId = cached == null ? null : Long.valueOf(cached);
+        }
+        if (userId != null) {
+            SysUser user = selectUserById(userId);
+            if (user != null && userName.equals(user.getUserName()) && UserConstants.NORMAL.equals(StringUtils.nvl(user.getDelFlag(), UserConstants.NORMAL))) {
+                localByName.put(userName, userId);
+                return user;
+            }
+        }
+        long sequence = evictSequence.get();
+        String version = userId == null ? null : readVersion(userId);
+        SysUser loaded = userMapper.selectUserByUserName(userName);
+        dbLoads.incrementAndGet();
+        if (loaded == null) {
+            return null;
+        }
+        SysUser user = slim(loaded);
+        // 读库前不知道用户ID时无法取得版本，只返回结果不回填
+        if (loaded.getUserId().equals(userId)) {
+            saveToRedis(user, version);
+            putLocal(user, sequence);
+        }
+        localByName.put(userName, user.getUserId());
+        return slim(user);
+    }
+
+    /**
+     * 失效用户缓存（在当前事务提交后执行，并通知其他节点）
+     *
+     * @param userIds 用户ID集合
+     */
+    @Override
+    public void evict(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        TransactionUtils.runAfterCommit(() -> {
+            // 先递增序号再清除，正在回填的线程在清除之后写入时能发现序号变化
+            evictSequence.incrementAndGet();
+            List<String> keys = new ArrayList<>(ids.size() * 2);
+            for (Long userId : ids) {
+                localById.remove(userId);
+                keys.add(VERSION_PREFIX + userId);
+                keys.add(ID_PREFIX + userId);
+            }
+            evictions.addAndGet(ids.size());
+            try {
+                stringRedisTemplate.execute(EVICT_SCRIPT, keys, String.valueOf(TimeUnit.MINUTES.toSeconds(REDIS_TTL_MINUTES)));
+                evictTopic.publish(StringUtils.join(ids, ","));
+            } catch (Exception e) {
+                logger.error("用户目录缓存失效失败, userIds: {}", ids, e);
+            }
+        });
+    }
+
+    /**
+     * 查询缓存命中统计
+     *
+     * @return 统计信息
+     */
+    @Override
+    public Map<String, Object> getMetrics() {
+        long localHits = localById.getHitCount();
+        long total = localHits + localById.getMissCount();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("localSize", localById.size());
+        metrics.put("localHits", localHits);
+        metrics.put("redisHits", redisHits.get());
+        metrics.put("dbLoads", dbLoads.get());
+        metrics.put("evictions", evictions.get());
+        metrics.put("localHitRate", localById.getHitRate());
+        metrics.put("hitRate", total == 0 ? 0D : (double) (localHits + redisHits.get()) / total);
+        return metrics;
+    }
+
+    private SysUser loadFromRedis(Long userId) {
+        String json = safeGet(ID_PREFIX + userId);
+        if (json == null) {
+            return null;
+        }
+        redisHits.incrementAndGet();
+        return JSON.parseObject(json, SysUser.class);
+    }
+
+    /**
+     * 本地回填，回填期间发生过失效时撤销
+     */
+    private void putLocal(SysUser user, long sequence) {
+        localById.put(user.getUserId(), user);
+        if (evictSequence.get() != sequence) {
+            localById.remove(user.getUserId());
+        }
+    }
+
+    /**
+     * 读取用户缓存版本，不存在或读取失败时为 0
+     */
+    private String readVersion(Long userId) {
+        return StringUtils.nvl(safeGet(VERSION_PREFIX + userId), "0");
+    }
+
+    /**
+     * 版本与读库前一致时写入 Redis
+     */
+    private void saveToRedis(SysUser user, String version) {
+        try {
+            stringRedisTemplate.execute(SAVE_IF_VERSION_SCRIPT, Arrays.asList(VERSION_PREFIX + user.getUserId(), ID_PREFIX + user.getUserId()),
+                    version, JSON.toJSONString(user), String.valueOf(TimeUnit.MINUTES.toSeconds(REDIS_TTL_MINUTES)));
+            if (StringUtils.isNotEmpty(user.getUserName())) {
+                stringRedisTemplate.opsForValue().set(NAME_PREFIX + user.getUserName(), String.valueOf(user.getUserId()), REDIS_TTL_MINUTES, TimeUnit.MINUTES);
+            }
+        } catch (Exception e) {
+            logger.warn("用户目录缓存写入失败, userId: {}", user.getUserId(), e);
+        }
+    }
+
+    private String safeGet(String key) {
+        try {
+            return stringRedisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            logger.warn("用户目录缓存读取失败, key: {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 复制用户基本信息，不含密码、角色、竞赛等关联数据
+     * 缓存中的对象不直接返回，调用方修改副本不影响缓存
+     */
+    private SysUser slim(SysUser source) {
+        SysUser user = new SysUser();
+        user.setUserId(source.getUserId());
+        user.setDeptId(source.getDeptId());
+        user.setUserName(source.getUserName());
+        user.setNickName(source.getNickName());
+        user.setEmail(source.getEmail());
+        user.setPhonenumber(source.getPhonenumber());
+        user.setSex(source.getSex());
+        user.setAvatar(source.getAvatar());
+        user.setStatus(source.getStatus());
+        user.setDelFlag(source.getDelFlag());
+        user.setLoginIp(source.getLoginIp());
+        user.setLoginDate(source.getLoginDate());
+        user.setCreateBy(source.getCreateBy());
+        user.setCreateTime(source.getCreateTime());
+        user.setRemark(source.getRemark());
+        return user;
+    }
+}
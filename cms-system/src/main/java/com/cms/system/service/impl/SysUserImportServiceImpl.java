@@ -0,0 +1,334 @@
+package com.cms.system.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.Resource;
+import javax.validation.Validator;
+
+import com.cms.common.constant.CacheConstants;
+import com.cms.common.core.domain.entity.SysUser;
+import com.cms.common.exception.ServiceException;
+import com.cms.common.utils.DateUtils;
+import com.cms.common.utils.SecurityUtils;
+import com.cms.common.utils.StringUtils;
+import com.cms.common.utils.bean.BeanValidators;
+import com.cms.common.utils.excel.ExcelUtil;
+import com.cms.common.utils.spring.SpringUtils;
+import com.cms.common.utils.uuid.IdUtils;
+import com.cms.system.mapper.SysUserMapper;
+import com.cms.system.service.ISysConfigService;
+import com.cms.system.service.ISysDeptService;
+import com.cms.system.service.ISysUserDirectoryService;
+import com.cms.system.service.ISysUserImportService;
+import com.cms.system.service.ISysUserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 用户异步导入Service业务层处理
+ *
+ * 导入在线程池中执行：按批读取 Excel 行，每批用一条 IN 查询预取已存在的账号，
+ * 初始密码在任务开始时只加密一次，新增与更新分别用一条批量语句写入，每批一个事务，批量写入失败时逐行重写。
+ * 进度保存在 Redis 哈希 user_import:{taskId} 中，供前端轮询。
+ *
+ * @author quoteZZZ
+ */
+@Service
+public class SysUserImportServiceImpl implements ISysUserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SysUserImportServiceImpl.class);
+
+    public static final String STATUS_RUNNING = "RUNNING";
+
+    public static final String STATUS_SUCCESS = "SUCCESS";
+
+    public static final String STATUS_FAILED = "FAILED";
+
+    // 每批处理的行数
+    private static final int BATCH_SIZE = 500;
+
+    // 进度中保留的失败明细条数上限
+    private static final int MAX_FAILURE_DETAILS = 200;
+
+    // 进度保留时间（小时）
+    private static final long PROGRESS_TTL_HOURS = 24;
+
+    @Resource
+    private SysUserMapper userMapper;
+
+    @Resource
+    private ISysUserService userService;
+
+    @Resource
+    private ISysDeptService deptService;
+
+    @Resource
+    private ISysUserDirectoryService userDirectoryService;
+
+    @Resource
+    private ISysConfigService configService;
+
+    @Resource
+    private Validator validator;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource(name = "threadPoolTaskExecutor")
+    private ThreadPoolTaskExecutor threadPoolTaskExecutor;
+
+    /**
+     * 提交用户导入任务
+     * 任务线程继承提交者的安全上下文，数据权限校验与同步导入一致
+     *
+     * @param data Excel文件内容
+     * @param updateSupport 是否更新已存在的用户
+     * @param operName 操作用户
+     * @return 任务ID
+     */
+    @Override
+    public String submitImport(byte[] data, boolean updateSupport, String operName) {
+        if (data == null || data.length == 0) {
+            throw new ServiceException("导入用户数据不能为空！");
+        }
+        String taskId = IdUtils.fastSimpleUUID();
+        String key = progressKey(taskId);
+        Map<String, String> init = new HashMap<>();
+        init.put("status", STATUS_RUNNING);
+        init.put("total", "0");
+        init.put("success", "0");
+        init.put("failure", "0");
+        init.put("operName", StringUtils.nvl(operName, ""));
+        init.put("startTime", DateUtils.getTime());
+        stringRedisTemplate.opsForHash().putAll(key, init);
+        stringRedisTemplate.expire(key, PROGRESS_TTL_HOURS, TimeUnit.HOURS);
+
+        SecurityContext context = SecurityContextHolder.getContext();
+        threadPoolTaskExecutor.execute(() -> {
+            SecurityContextHolder.setContext(context);
+            try {
+                runImport(taskId, data, updateSupport, operName);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        });
+        return taskId;
+    }
+
+    /**
+     * 查询导入任务进度
+     *
+     * @param taskId 任务ID
+     * @return 进度信息，任务不存在时返回空集合
+     */
+    @Override
+    public Map<String, Object> selectImportProgress(String taskId) {
+        Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(progressKey(taskId));
+        Map<String, Object> progress = new LinkedHashMap<>();
+        hash.forEach((field, value) -> progress.put(field.toString(), value));
+        return progress;
+    }
+
+    /**
+     * 在一个事务内批量写入一批导入用户
+     *
+     * @param inserts 新增的用户
+     * @param updates 更新的用户
+     * @return 写入的记录数
+     */
+    @Override
+    @Transactional
+    public int saveImportBatch(List<SysUser> inserts, List<SysUser> updates) {
+        int rows = 0;
+        if (!inserts.isEmpty()) {
+            rows += userMapper.batchInsertUser(inserts);
+        }
+        if (!updates.isEmpty()) {
+            rows += userMapper.batchUpdateImportUser(updates);
+            userDirectoryService.evict(updates.stream().map(SysUser::getUserId).collect(Collectors.toList()));
+        }
+        return rows;
+    }
+
+    /**
+     * 执行导入任务
+     */
+    private void runImport(String taskId, byte[] data, boolean updateSupport, String operName) {
+        String key = progressKey(taskId);
+        ImportContext ctx = new ImportContext(updateSupport, operName);
+        try {
+            ctx.password = SecurityUtils.encryptPassword(configService.selectConfigByKey("sys.user.initPassword"));
+            ExcelUtil<SysUser> util = new ExcelUtil<SysUser>(SysUser.class);
+            int total = util.importExcel(new ByteArrayInputStream(data), 0, BATCH_SIZE, batch -> {
+                importBatch(batch, ctx);
+                writeProgress(key, ctx);
+            });
+            if (total == 0) {
+                throw new ServiceException("导入用户数据不能为空！");
+            }
+            writeProgress(key, ctx);
+            stringRedisTemplate.opsForHash().put(key, "status", ctx.failure > 0 ? STATUS_FAILED : STATUS_SUCCESS);
+            logger.info("用户导入完成, taskId: {}, 成功: {}, 失败: {}", taskId, ctx.success, ctx.failure);
+        } catch (Exception e) {
+            logger.error("用户导入任务失败, taskId: {}", taskId, e);
+            writeProgress(key, ctx);
+            stringRedisTemplate.opsForHash().put(key, "status", STATUS_FAILED);
+            stringRedisTemplate.opsForHash().put(key, "message", StringUtils.nvl(e.getMessage(), "导入任务异常"));
+        } finally {
+            stringRedisTemplate.opsForHash().put(key, "endTime", DateUtils.getTime());
+        }
+    }
+
+    /**
+     * 处理一批导入行：预取已存在账号、逐行校验分类，再批量写入
+     */
+    private void importBatch(List<SysUser> batch, ImportContext ctx) {
+        ctx.total += batch.size();
+        Set<String> userNames = batch.stream()
+                .map(SysUser::getUserName)
+                .filter(StringUtils::isNotEmpty)
+                .collect(Collectors.toSet());
+        Map<String, SysUser> existing = userNames.isEmpty() ? new HashMap<>() : userMapper.selectUsersByUserNames(userNames).stream()
+                .collect(Collectors.toMap(SysUser::getUserName, u -> u, (a, b) -> a));
+
+        List<SysUser> inserts = new ArrayList<>();
+        List<SysUser> updates = new ArrayList<>();
+        for (SysUser user : batch) {
+            try {
+                if (StringUtils.isNotEmpty(user.getUserName()) && !ctx.seen.add(user.getUserName())) {
+                    ctx.fail(user, "文件中账号重复");
+                    continue;
+                }
+                SysUser u = existing.get(user.getUserName());
+                if (StringUtils.isNull(u)) {
+                    BeanValidators.validateWithException(validator, user);
+                    checkDeptDataScope(user.getDeptId(), ctx);
+                    user.setPassword(ctx.password);
+                    user.setCreateBy(ctx.operName);
+                    inserts.add(user);
+                } else if (ctx.updateSupport) {
+                    BeanValidators.validateWithException(validator, user);
+                    userService.checkUserAllowed(u);
+                    userService.checkUserDataScope(u.getUserId());
+                    checkDeptDataScope(user.getDeptId(), ctx);
+                    user.setUserId(u.getUserId());
+                    user.setUpdateBy(ctx.operName);
+                    updates.add(user);
+                } else {
+                    ctx.fail(user, "已存在");
+                }
+            } catch (Exception e) {
+                ctx.fail(user, "导入失败：" + e.getMessage());
+            }
+        }
+
+        if (inserts.isEmpty() && updates.isEmpty()) {
+            return;
+        }
+        ISysUserImportService proxy = SpringUtils.getAopProxy(this);
+        try {
+            proxy.saveImportBatch(inserts, updates);
+            ctx.success += inserts.size() + updates.size();
+        } catch (Exception e) {
+            // 批量事务已整体回滚，逐行重写，只有写入失败的行计为失败
+            logger.warn("用户导入批量写入失败，改为逐行写入, 条数: {}", inserts.size() + updates.size(), e);
+            for (SysUser user : inserts) {
+                user.setUserId(null);
+                saveImportRow(proxy, Collections.singletonList(user), Collections.emptyList(), user, ctx);
+            }
+            for (SysUser user : updates) {
+                saveImportRow(proxy, Collections.emptyList(), Collections.singletonList(user), user, ctx);
+            }
+        }
+    }
+
+    /**
+     * 单行写入，失败时记录该行
+     */
+    private void saveImportRow(ISysUserImportService proxy, List<SysUser> inserts, List<SysUser> updates, SysUser user, ImportContext ctx) {
+        try {
+            proxy.saveImportBatch(inserts, updates);
+            ctx.success++;
+        } catch (Exception e) {
+            logger.error("用户导入写入失败, 账号: {}", user.getUserName(), e);
+            ctx.fail(user, "导入失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 部门数据权限校验，同一任务内每个部门只校验一次
+     */
+    private void checkDeptDataScope(Long deptId, ImportContext ctx) {
+        if (deptId == null) {
+            return;
+        }
+        String error = ctx.deptChecks.computeIfAbsent(deptId, id -> {
+            try {
+                deptService.checkDeptDataScope(id);
+                return "";
+            } catch (ServiceException e) {
+                return e.getMessage();
+            }
+        });
+        if (!error.isEmpty()) {
+            throw new ServiceException(error);
+        }
+    }
+
+    private void writeProgress(String key, ImportContext ctx) {
+        Map<String, String> progress = new HashMap<>();
+        progress.put("total", String.valueOf(ctx.total));
+        progress.put("success", String.valueOf(ctx.success));
+        progress.put("failure", String.valueOf(ctx.failure));
+        if (ctx.failure > 0) {
+            progress.put("failureMsg", ctx.failureMsg.toString());
+        }
+        stringRedisTemplate.opsForHash().putAll(key, progress);
+    }
+
+    private String progressKey(String taskId) {
+        return CacheConstants.USER_IMPORT_KEY + taskId;
+    }
+
+    /**
+     * 单个导入任务的状态
+     */
+    private static class ImportContext {
+        private final boolean updateSupport;
+        private final String operName;
+        private final Set<String> seen = new HashSet<>();
+        private final Map<Long, String> deptChecks = new HashMap<>();
+        private final StringBuilder failureMsg = new StringBuilder();
+        private String password;
+        private int total;
+        private int success;
+        private int failure;
+
+        private ImportContext(boolean updateSupport, String operName) {
+            this.updateSupport = updateSupport;
+            this.operName = operName;
+        }
+
+        private void fail(SysUser user, String reason) {
+            failure++;
+            if (failure <= MAX_FAILURE_DETAILS) {
+                failureMsg.append("<br/>").append(failure).append("、账号 ").append(user.getUserName()).append(" ").append(reason);
+            }
+        }
+    }
+}
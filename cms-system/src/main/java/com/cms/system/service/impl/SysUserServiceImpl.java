@@ -3,17 +3,18 @@ package com.cms.system.service.impl;
 import com.cms.common.annotation.DataScope;
 import com.cms.common.constant.UserConstants;
 import com.cms.common.core.domain.entity.*;
+import com.cms.common.core.loader.BatchLoader;
+import com.cms.common.core.loader.BatchLoaders;
 import com.cms.common.exception.ServiceException;
 import com.cms.common.redis.RedisCacheUtil;
 import com.cms.common.utils.SecurityUtils;
 import com.cms.common.utils.StringUtils;
-import com.cms.common.utils.bean.BeanValidators;
 import com.cms.common.utils.spring.SpringUtils;
 import com.cms.common.utils.uuid.IdGenerator;
 import com.cms.system.mapper.*;
-import com.cms.system.service.ISysConfigService;
-import com.cms.system.service.ISysDeptService;
+import com.cms.system.service.ISysUserCompIndexService;
 import com.cms.system.service.ISysUserCompService;
+import com.cms.system.service.ISysUserDirectoryService;
 import com.cms.system.service.ISysUserService;
 import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
@@ -24,9 +25,13 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import javax.annotation.Resource;
-import javax.validation.Validator;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -58,15 +63,6 @@ public class SysUserServiceImpl implements ISysUserService {
     @Autowired
     private SysUserPostMapper userPostMapper;// 用户和岗位关联数据层
 
-    @Autowired
-    private ISysConfigService configService;// 系统配置服务
-
-    @Autowired
-    private ISysDeptService deptService;// 部门服务
-
-    @Autowired
-    protected Validator validator;// 校验器
-
     @Resource(name = "threadPoolTaskExecutor")
     private Executor asyncExecutor; // 引入线程池
 
@@ -90,6 +86,12 @@ public class SysUserServiceImpl implements ISysUserService {
     @Resource
     private ISysUserCompService userCompService; // 注入ISysUserCompService
 
+    @Resource
+    private ISysUserCompIndexService userCompIndexService; // 注入用户竞赛成员索引服务
+
+    @Resource
+    private ISysUserDirectoryService userDirectoryService; // 注入用户目录缓存服务
+
     // 定义日志记录器
     Logger logger = LoggerFactory.getLogger(SysUserServiceImpl.class);
 
@@ -131,6 +133,9 @@ public class SysUserServiceImpl implements ISysUserService {
      * 填充用户信息
      * 补全用户角色、竞赛信息，并标记是否为评委
      *
+     * 通过请求级批量加载器收集整页用户的键，角色关联、角色、竞赛归属、竞赛各执行一次批量查询，
+     * 查询次数与分页大小无关。
+     *
      * @param userList 用户列表
      * @return 补全信息后的用户列表
      */
@@ -140,42 +145,45 @@ public class SysUserServiceImpl implements ISysUserService {
         }
 
         try {
-            // 遍历每个用户，补全信息
+            List<Long> userIds = userList.stream()
+                    .filter(user -> user != null && user.getUserId() != null)
+                    .map(SysUser::getUserId)
+                    .collect(Collectors.toList());
+
+            // 1. 批量加载角色信息
+            Map<Long, List<SysRole>> rolesByUser = loadUserRoles(userIds);
+
+            // 2. 批量加载竞赛归属（由成员索引提供）与竞赛信息
+            Map<Long, Set<Long>> compIdsByUser = userCompIndexService.selectCompIds(userIds);
+            BatchLoader<Long, SysComp> compLoader = BatchLoaders.get("sysComp", this::loadComps);
+            compIdsByUser.values().forEach(compLoader::loadMany);
+            compLoader.dispatch();
+
             for (SysUser user : userList) {
                 if (user == null || user.getUserId() == null) {
                     continue;
                 }
 
-                // 1. 补全角色信息
+                // 补全角色信息
                 if (user.getRoles() == null || user.getRoles().isEmpty()) {
-                    List<SysRole> roles = userRoleMapper.selectRolesByUserId(user.getUserId());
+                    List<SysRole> roles = rolesByUser.getOrDefault(user.getUserId(), new ArrayList<>());
                     user.setRoles(roles);
 
                     // 根据角色列表设置roleId（取第一个角色的ID）
-                    if (roles != null && !roles.isEmpty()) {
+                    if (!roles.isEmpty()) {
                         user.setRoleId(roles.get(0).getRoleId());
                     }
                 }
 
-                // 2. 补全竞赛信息
+                // 补全竞赛信息
                 if (user.getComps() == null || user.getComps().isEmpty()) {
-                    // 获取用户参与的竞赛
-                    List<Long> compIds = userCompService.selectUserCompetitions(user.getUserId());
-                    if (!compIds.isEmpty()) {
-                        List<SysComp> comps = new ArrayList<>();
-                        for (Long compId : compIds) {
-                            SysComp comp = sysCompMapper.selectSysCompByCompId(compId);
-                            if (comp != null) {
-                                comps.add(comp);
-                            }
-                        }
-                        user.setComps(comps);
+                    Set<Long> compIds = compIdsByUser.get(user.getUserId());
+                    if (compIds != null && !compIds.isEmpty()) {
+                        user.setComps(new ArrayList<>(compLoader.getMany(compIds).values()));
                     }
                 }
 
-                // 3. 判断用户是否为评委
-                boolean isJudge = isJudge(user.getUserId());
-                // 在SysUser类中没有直接的judge字段，但前端用到了，因此需要通过角色信息判断
+                // 判断用户是否为评委，前端通过roleId识别评委
                 for (SysRole role : user.getRoles()) {
                     if (role.getRoleId() == 3L) {  // 评委角色ID为3
                         user.setRoleId(3L);  // 设置roleId
@@ -191,6 +199,52 @@ public class SysUserServiceImpl implements ISysUserService {
         }
     }
 
+    /**
+     * 批量加载用户角色
+     * 用户角色关联与角色信息各执行一次批量查询，角色信息在请求内复用
+     *
+     * @param userIds 用户ID集合
+     * @return 用户ID到角色列表的映射
+     */
+    private Map<Long, List<SysRole>> loadUserRoles(Collection<Long> userIds) {
+        Map<Long, List<SysRole>> rolesByUser = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return rolesByUser;
+        }
+        List<SysUserRole> userRoles = new ArrayList<>();
+        for (List<Long> batch : partition(new ArrayList<>(userIds), BatchLoader.DEFAULT_MAX_BATCH_SIZE)) {
+            userRoles.addAll(userRoleMapper.selectUserRolesByUserIds(batch));
+        }
+        BatchLoader<Long, SysRole> roleLoader = BatchLoaders.get("sysRole", this::loadRoles);
+        userRoles.forEach(userRole -> roleLoader.load(userRole.getRoleId()));
+        roleLoader.dispatch();
+        for (SysUserRole userRole : userRoles) {
+            SysRole role = roleLoader.get(userRole.getRoleId());
+            if (role != null) {
+                rolesByUser.computeIfAbsent(userRole.getUserId(), k -> new ArrayList<>()).add(role);
+            }
+        }
+        return rolesByUser;
+    }
+
+    private Map<Long, SysRole> loadRoles(Collection<Long> roleIds) {
+        return userRoleMapper.selectRolesByRoleIds(roleIds).stream()
+                .collect(Collectors.toMap(SysRole::getRoleId, role -> role, (a, b) -> a));
+    }
+
+    private Map<Long, SysComp> loadComps(Collection<Long> compIds) {
+        return sysCompMapper.selectSysCompByCompIds(compIds).stream()
+                .collect(Collectors.toMap(SysComp::getCompId, comp -> comp, (a, b) -> a));
+    }
+
+    private static <T> List<List<T>> partition(List<T> list, int size) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += size) {
+            batches.add(list.subList(from, Math.min(from + size, list.size())));
+        }
+        return batches;
+    }
+
     /**
      * 判断用户是否为评委
      *
@@ -245,9 +299,14 @@ public class SysUserServiceImpl implements ISysUserService {
             SysUser queryParam = new SysUser();
             List<SysUser> allUsers = userMapper.selectUserList(queryParam);
 
-            // 筛选出评委用户
+            // 筛选出评委用户（批量加载角色，避免逐个查询）
+            Map<Long, List<SysRole>> rolesByUser = loadUserRoles(allUsers.stream()
+                    .map(SysUser::getUserId)
+                    .collect(Collectors.toList()));
             List<SysUser> judges = allUsers.stream()
-                .filter(user -> isJudge(user.getUserId()))
+                .filter(user -> rolesByUser.getOrDefault(user.getUserId(), new ArrayList<>()).stream()
+                        .anyMatch(role -> role.getRoleId() == 3L))
+                .peek(user -> user.setRoles(rolesByUser.get(user.getUserId())))
                 .collect(Collectors.toList());
 
             // 补全用户信息
@@ -287,7 +346,10 @@ public class SysUserServiceImpl implements ISysUserService {
         if (CollectionUtils.isEmpty(users)) {
             return 0;
         }
-        return userMapper.batchUpdateUserDept(users);
+        // 先更新再失效缓存：方法不在事务中时失效立即执行，先失效会让并发读取把旧数据写回缓存
+        int rows = userMapper.batchUpdateUserDept(users);
+        userDirectoryService.evict(users.stream().map(SysUser::getUserId).collect(Collectors.toList()));
+        return rows;
     }
 
     @Override
@@ -509,6 +571,7 @@ public class SysUserServiceImpl implements ISysUserService {
         userPostMapper.deleteUserPostByUserId(userId);
         // 新增用户与岗位管理
         insertUserPost(user);
+        userDirectoryService.evict(List.of(userId));
         return userMapper.updateUser(user);
     }
 
@@ -533,7 +596,9 @@ public class SysUserServiceImpl implements ISysUserService {
     @Override
     public int updateUserStatus(SysUser user)
     {
-        return userMapper.updateUser(user);
+        int rows = userMapper.updateUser(user);
+        userDirectoryService.evict(List.of(user.getUserId()));
+        return rows;
     }
 
     /**
@@ -544,7 +609,9 @@ public class SysUserServiceImpl implements ISysUserService {
     @Override
     public int updateUserProfile(SysUser user)
     {
-        return userMapper.updateUser(user);
+        int rows = userMapper.updateUser(user);
+        userDirectoryService.evict(List.of(user.getUserId()));
+        return rows;
     }
 
     /**
@@ -556,7 +623,13 @@ public class SysUserServiceImpl implements ISysUserService {
     @Override
     public boolean updateUserAvatar(String userName, String avatar)
     {
-        return userMapper.updateUserAvatar(userName, avatar) > 0;
+        boolean updated = userMapper.updateUserAvatar(userName, avatar) > 0;
+        SysUser user = userDirectoryService.selectUserByUserName(userName);
+        if (user != null)
+        {
+            userDirectoryService.evict(List.of(user.getUserId()));
+        }
+        return updated;
     }
 
     /**
@@ -648,6 +721,7 @@ public class SysUserServiceImpl implements ISysUserService {
         userRoleMapper.deleteUserRoleByUserId(userId);
         // 删除用户与岗位表
         userPostMapper.deleteUserPostByUserId(userId);
+        userDirectoryService.evict(List.of(userId));
         return userMapper.deleteUserById(userId);
     }
 
@@ -669,79 +743,7 @@ public class SysUserServiceImpl implements ISysUserService {
         userRoleMapper.deleteUserRole(userIds);
         // 删除用户与岗位关联
         userPostMapper.deleteUserPost(userIds);
+        userDirectoryService.evict(Arrays.asList(userIds));
         return userMapper.deleteUserByIds(userIds);
     }
-
-    /**
-     * 导入用户数据
-     * @param userList 用户数据列表
-     * @param isUpdateSupport 是否更新支持，如果已存在，则进行更新数据
-     * @param operName 操作用户
-     * @return 结果
-     */
-    @Override
-    public String importUser(List<SysUser> userList, Boolean isUpdateSupport, String operName)
-    {
-        if (StringUtils.isNull(userList) || userList.size() == 0)
-        {
-            throw new ServiceException("导入用户数据不能为空！");
-        }
-        int successNum = 0;
-        int failureNum = 0;
-        StringBuilder successMsg = new StringBuilder();
-        StringBuilder failureMsg = new StringBuilder();
-        for (SysUser user : userList)
-        {
-            try
-            {
-                // 验证是否存在这个用户
-                SysUser u = userMapper.selectUserByUserName(user.getUserName());
-                if (StringUtils.isNull(u))
-                {
-                    BeanValidators.validateWithException(validator, user);
-                    deptService.checkDeptDataScope(user.getDeptId());
-                    String password = configService.selectConfigByKey("sys.user.initPassword");
-                    user.setPassword(SecurityUtils.encryptPassword(password));
-                    user.setCreateBy(operName);
-                    userMapper.insertUser(user);
-                    successNum++;
-                    successMsg.append("<br/>" + successNum + "、账号 " + user.getUserName() + " 导入成功");
-                }
-                else if (isUpdateSupport)
-                {
-                    BeanValidators.validateWithException(validator, user);
-                    checkUserAllowed(u);
-                    checkUserDataScope(u.getUserId());
-                    deptService.checkDeptDataScope(user.getDeptId());
-                    user.setUserId(u.getUserId());
-                    user.setUpdateBy(operName);
-                    userMapper.updateUser(user);
-                    successNum++;
-                    successMsg.append("<br/>" + successNum + "、账号 " + user.getUserName() + " 更新成功");
-                }
-                else
-                {
-                    failureNum++;
-                    failureMsg.append("<br/>" + failureNum + "、账号 " + user.getUserName() + " 已存在");
-                }
-            }
-            catch (Exception e)
-            {
-                failureNum++;
-                String msg = "<br/>" + failureNum + "、账号 " + user.getUserName() + " 导入失败：";
-                failureMsg.append(msg + e.getMessage());
-                log.error(msg, e);
-            }
-        }
-        if (failureNum > 0)
-        {
-            failureMsg.insert(0, "很抱歉，导入失败！共 " + failureNum + " 条数据格式不正确，错误如下：");
-            throw new ServiceException(failureMsg.toString());
-        }
-        else
-        {
-            successMsg.insert(0, "恭喜您，数据已全部导入成功！共 " + successNum + " 条，数据如下：");
-        }
-        return successMsg.toString();
-    }
 }